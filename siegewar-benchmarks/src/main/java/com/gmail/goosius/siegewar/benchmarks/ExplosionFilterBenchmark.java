@@ -0,0 +1,31 @@
+package com.gmail.goosius.siegewar.benchmarks;
+
+import com.palmergames.bukkit.towny.exceptions.TownyException;
+import org.bukkit.block.Block;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The siege banner protection and trap warfare mitigation filters, run on an explosion at a siege banner.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExplosionFilterBenchmark {
+
+	@Benchmark
+	public List<Block> filterExplosionAtSiegeBanner(SiegeWarServerState server) throws TownyException {
+		server.getTownyEventListener().onBlockExploding(server.nextExplosion());
+		return server.getLastExplodeList();
+	}
+}
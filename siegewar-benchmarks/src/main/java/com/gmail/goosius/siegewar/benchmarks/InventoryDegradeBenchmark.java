@@ -0,0 +1,131 @@
+package com.gmail.goosius.siegewar.benchmarks;
+
+import com.gmail.goosius.siegewar.Messaging;
+import com.gmail.goosius.siegewar.harness.SiegeWarTestHarness;
+import com.gmail.goosius.siegewar.settings.SiegeWarSettings;
+import com.gmail.goosius.siegewar.utils.SiegeWarInventoryUtil;
+import com.palmergames.bukkit.towny.object.Translatable;
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.Damageable;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SiegeWarInventoryUtil.degradeInventory, which makes one pass over the contents,
+ * against the per-item implementation it replaced.
+ *
+ * The inventory is full, with tools, armour, an unbreakable tool, stacks of blocks and food, and a few empty slots.
+ * It is not refilled between calls, so after warm-up every tool sits at its damage cap.
+ * Both implementations still read and write the meta of every damageable item at the cap.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InventoryDegradeBenchmark {
+
+	private static final Material[] STORAGE_PATTERN = {
+			Material.DIAMOND_SWORD, Material.IRON_PICKAXE, Material.BOW, Material.COOKED_BEEF, Material.COBBLESTONE,
+			Material.TORCH, Material.SHIELD, Material.WATER_BUCKET, Material.DIRT, Material.ARROW, Material.OAK_LOG,
+			Material.STONE_SWORD, Material.FISHING_ROD, Material.FLINT_AND_STEEL, Material.GOLDEN_APPLE, null};
+	private static final Material[] ARMOUR = {
+			Material.DIAMOND_BOOTS, Material.DIAMOND_LEGGINGS, Material.DIAMOND_CHESTPLATE, Material.DIAMOND_HELMET};
+
+	@State(Scope.Thread)
+	public static class InventoryState {
+
+		private SiegeWarTestHarness harness;
+		private Player player;
+
+		@Setup(Level.Trial)
+		public void startServer() throws Exception {
+			harness = new SiegeWarTestHarness(Files.createTempDirectory("siegewar-benchmark"));
+			player = harness.createPlayer("player", null, harness.getWorld().getLocation(0, 64, 0));
+			player.getInventory().setContents(fullMixedInventory());
+		}
+
+		@TearDown(Level.Trial)
+		public void stopServer() throws Exception {
+			harness.close();
+		}
+	}
+
+	@Benchmark
+	public void degradeInventory(InventoryState state) {
+		SiegeWarInventoryUtil.degradeInventory(state.player);
+	}
+
+	@Benchmark
+	public void degradeInventoryPerItem(InventoryState state) {
+		degradeInventoryPerItem(state.player);
+	}
+
+	private static ItemStack[] fullMixedInventory() {
+		ItemStack[] contents = new ItemStack[SiegeWarTestHarness.INVENTORY_SIZE];
+		int storageSize = SiegeWarTestHarness.INVENTORY_SIZE - ARMOUR.length - 1;
+		for (int i = 0; i < storageSize; i++) {
+			Material material = STORAGE_PATTERN[i % STORAGE_PATTERN.length];
+			if (material != null)
+				contents[i] = new ItemStack(material, material.getMaxDurability() == 0 ? material.getMaxStackSize() : 1);
+		}
+		//An unbreakable tool, which is skipped
+		ItemStack unbreakableAxe = new ItemStack(Material.NETHERITE_AXE);
+		ItemMeta itemMeta = unbreakableAxe.getItemMeta();
+		itemMeta.setUnbreakable(true);
+		unbreakableAxe.setItemMeta(itemMeta);
+		contents[3] = unbreakableAxe;
+		for (int i = 0; i < ARMOUR.length; i++)
+			contents[storageSize + i] = new ItemStack(ARMOUR[i]);
+		contents[SiegeWarTestHarness.INVENTORY_SIZE - 1] = new ItemStack(Material.TOTEM_OF_UNDYING);
+		return contents;
+	}
+
+	/*
+	 * SiegeWarInventoryUtil.degradeInventory as it was before the single-pass change, kept as the baseline.
+	 */
+	private static void degradeInventoryPerItem(Player player) {
+		Damageable damageable;
+		double maxDurability;
+		int currentDurability, damageToInflict, newDurability, durabilityWarning;
+		boolean closeToBreaking = false;
+		for (ItemStack itemStack : player.getInventory().getContents()) {
+			if (itemStack != null && itemStack.getType().getMaxDurability() != 0 && !itemStack.getItemMeta().isUnbreakable()) {
+				damageable = ((Damageable) itemStack.getItemMeta());
+				maxDurability = itemStack.getType().getMaxDurability();
+				currentDurability = damageable.getDamage();
+				damageToInflict = (int)(maxDurability / 100 * SiegeWarSettings.getKeepInventoryOnSiegeZoneDeathToolsDegradePercentage());
+				newDurability = currentDurability + damageToInflict;
+				if (newDurability >= maxDurability) {
+					damageable.setDamage(Math.max((int)maxDurability-25, currentDurability));
+					closeToBreaking = true;
+				}
+				else {
+					damageable.setDamage(newDurability);
+					durabilityWarning = damageToInflict * 2 + currentDurability;
+					if (durabilityWarning >= maxDurability)
+						closeToBreaking = true;
+				}
+				itemStack.setItemMeta(damageable);
+			}
+		}
+		if (closeToBreaking) //One or more items are close to breaking, send warning.
+			Messaging.sendMsg(player, Translatable.of("msg_inventory_degrade_warning"));
+	}
+}
@@ -0,0 +1,44 @@
+package com.gmail.goosius.siegewar.benchmarks;
+
+import com.gmail.goosius.siegewar.hud.SiegeHUDManager;
+import com.gmail.goosius.siegewar.tasks.SiegeWarTimerTaskController;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The per-siege and per-player stages of the short tick, each run across the whole server.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShortTickBenchmark {
+
+	/*
+	 * The stages which schedule work for the next tick also run that work, so the task queue does not grow.
+	 */
+	@Benchmark
+	public void evaluateBannerControl(SiegeWarServerState server) {
+		SiegeWarTimerTaskController.evaluateBannerControl();
+		server.getHarness().runScheduledTasks();
+	}
+
+	@Benchmark
+	public void evaluateBeacons(SiegeWarServerState server) {
+		SiegeWarTimerTaskController.evaluateBeacons();
+		server.getHarness().runScheduledTasks();
+	}
+
+	@Benchmark
+	public void updateHUDs(SiegeWarServerState server) {
+		SiegeHUDManager.updateHUDs();
+	}
+}
@@ -0,0 +1,104 @@
+package com.gmail.goosius.siegewar.benchmarks;
+
+import com.gmail.goosius.siegewar.SiegeController;
+import com.gmail.goosius.siegewar.objects.Siege;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SiegeController.getSieges() and getActiveSieges(), which return cached views,
+ * against the copy of the siege map which getSieges() used to make on every call.
+ *
+ * Each benchmark walks the list the way the per-tick callers do.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SiegeListBenchmark {
+
+	@State(Scope.Thread)
+	public static class SiegeListState {
+
+		@Param({"10", "100", "1000"})
+		public int siegeCount;
+
+		private final SiegeWarServerState server = new SiegeWarServerState();
+		//The map which SiegeController copied before the views were cached
+		private final Map<UUID, Siege> townSiegeMap = new ConcurrentHashMap<>();
+
+		/*
+		 * Only the siege starters are online. The players do not matter here.
+		 */
+		@Setup(Level.Trial)
+		public void startServer() throws Exception {
+			server.siegeCount = siegeCount;
+			server.playerCount = siegeCount;
+			server.worldSize = 50000;
+			server.startServer();
+			for (Siege siege : server.getSieges())
+				townSiegeMap.put(siege.getTown().getUUID(), siege);
+		}
+
+		@TearDown(Level.Trial)
+		public void stopServer() throws Exception {
+			server.stopServer();
+		}
+	}
+
+	@Benchmark
+	public int getSiegesCached(SiegeListState state) {
+		int numSieges = 0;
+		for (Siege siege : SiegeController.getSieges())
+			if (siege.getFlagLocation() != null)
+				numSieges++;
+		return numSieges;
+	}
+
+	@Benchmark
+	public int getSiegesCopyPerCall(SiegeListState state) {
+		int numSieges = 0;
+		for (Siege siege : new ArrayList<>(state.townSiegeMap.values()))
+			if (siege.getFlagLocation() != null)
+				numSieges++;
+		return numSieges;
+	}
+
+	@Benchmark
+	public int getActiveSiegesCached(SiegeListState state) {
+		int numSieges = 0;
+		for (Siege siege : SiegeController.getActiveSieges())
+			if (siege.getFlagLocation() != null)
+				numSieges++;
+		return numSieges;
+	}
+
+	@Benchmark
+	public int getActiveSiegesCopyPerCall(SiegeListState state) {
+		int numSieges = 0;
+		List<Siege> sieges = new ArrayList<>(state.townSiegeMap.values());
+		for (Siege siege : sieges)
+			if (siege.getStatus().isActive() && siege.getFlagLocation() != null)
+				numSieges++;
+		return numSieges;
+	}
+}
@@ -0,0 +1,214 @@
+package com.gmail.goosius.siegewar.benchmarks;
+
+import com.gmail.goosius.siegewar.SiegeWar;
+import com.gmail.goosius.siegewar.harness.FakeWorld;
+import com.gmail.goosius.siegewar.harness.SiegeWarTestHarness;
+import com.gmail.goosius.siegewar.listeners.SiegeWarTownyEventListener;
+import com.gmail.goosius.siegewar.objects.Siege;
+import com.gmail.goosius.siegewar.settings.SiegeWarSettings;
+import com.palmergames.bukkit.towny.event.actions.TownyExplodingBlocksEvent;
+import com.palmergames.bukkit.towny.object.Nation;
+import com.palmergames.bukkit.towny.object.Town;
+import org.bukkit.Location;
+import org.bukkit.block.Block;
+import org.bukkit.entity.Player;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A headless server with sieges in progress, for the benchmarks to run against.
+ *
+ * The sieges are laid out on a grid across a square world centred on 0,0.
+ * Each siege has its own attacking and defending nation, and is started by a player standing at the banner.
+ * Every other player belongs to one side of a siege. Half of them stand in their siege zone, with the war HUD on,
+ * and half are scattered across the world.
+ * A battle session is active, and one short tick has run, so banner control sessions have started.
+ *
+ * The harness uses thread-local static mocks, so this state is per thread and is set up on the benchmark thread.
+ */
+@State(Scope.Thread)
+public class SiegeWarServerState {
+
+	private static final long RANDOM_SEED = 1234L;
+	private static final int TOWN_BLOCK_SIZE = SiegeWarTestHarness.TOWN_BLOCK_SIZE;
+	private static final int BANNER_Y = 64;
+	private static final int EXPLOSION_RADIUS = 2;
+	//The defending and attacking towns of a siege take 5 townblocks, with some room around them
+	private static final int MIN_SIEGE_SPACING_BLOCKS = 8 * TOWN_BLOCK_SIZE;
+
+	/** The number of online players, including the players who started the sieges. */
+	@Param({"100", "1000"})
+	public int playerCount;
+
+	/** The number of sieges in progress. */
+	@Param({"10", "100"})
+	public int siegeCount;
+
+	/** The side of the square world, in blocks. */
+	@Param({"5000", "50000"})
+	public int worldSize;
+
+	private SiegeWarTestHarness harness;
+	private SiegeWarTownyEventListener townyEventListener;
+	private final List<Siege> sieges = new ArrayList<>();
+	private final List<Location> playerLocations = new ArrayList<>();
+	private final List<Block> blocksNearBanners = new ArrayList<>();
+	private final List<TownyExplodingBlocksEvent> explosions = new ArrayList<>();
+	private List<Block> lastExplodeList;
+	private int nextIndex;
+
+	@Setup(Level.Trial)
+	public void startServer() throws Exception {
+		if (playerCount < siegeCount)
+			throw new IllegalArgumentException("Every siege needs a player to start it, so playerCount must be at least siegeCount");
+		int gridSize = (int) Math.ceil(Math.sqrt(siegeCount));
+		int spacing = worldSize / Math.max(gridSize, 1);
+		if (spacing < MIN_SIEGE_SPACING_BLOCKS)
+			throw new IllegalArgumentException("The world is too small for " + siegeCount + " sieges");
+
+		harness = new SiegeWarTestHarness(Files.createTempDirectory("siegewar-benchmark"));
+		townyEventListener = new SiegeWarTownyEventListener(harness.getPlugin());
+		FakeWorld world = harness.getWorld();
+		Random random = new Random(RANDOM_SEED);
+
+		List<Town[]> sides = new ArrayList<>();
+		for (int i = 0; i < siegeCount; i++) {
+			int centreX = -worldSize / 2 + spacing * (i % gridSize) + spacing / 2;
+			int centreZ = -worldSize / 2 + spacing * (i / gridSize) + spacing / 2;
+			int homeBlockX = Math.floorDiv(centreX, TOWN_BLOCK_SIZE);
+			int homeBlockZ = Math.floorDiv(centreZ, TOWN_BLOCK_SIZE);
+
+			Town defendingTown = harness.createTown("Defenders" + i, homeBlockX, homeBlockZ);
+			Nation defendingNation = harness.createNation("DefendingNation" + i, defendingTown);
+			Town attackingTown = harness.createTown("Attackers" + i, homeBlockX + 4, homeBlockZ);
+			Nation attackingNation = harness.createNation("AttackingNation" + i, attackingTown);
+			harness.setEnemies(attackingNation, defendingNation);
+
+			//The banner stands in the wilderness, just east of the defending homeblock
+			int bannerX = (homeBlockX + 1) * TOWN_BLOCK_SIZE;
+			int bannerZ = homeBlockZ * TOWN_BLOCK_SIZE + TOWN_BLOCK_SIZE / 2;
+			Block banner = harness.placeBanner(bannerX, BANNER_Y, bannerZ);
+			Location starterLocation = world.getLocation(bannerX + 1.5, BANNER_Y, bannerZ + 0.5);
+			Player starter = harness.createPlayer("starter" + i, attackingTown, starterLocation);
+			Siege siege = harness.startConquestSiege(starter, defendingTown, banner);
+			sieges.add(siege);
+			sides.add(new Town[] {attackingTown, defendingTown});
+			playerLocations.add(starterLocation);
+			SiegeWar.getSiegeHUDManager().toggleWarHud(starter, siege);
+
+			//A siege banner, its support, a decorative banner nearby, and plain air
+			blocksNearBanners.add(banner);
+			blocksNearBanners.add(banner.getRelative(0, -1, 0));
+			blocksNearBanners.add(harness.placeBanner(bannerX + 5, BANNER_Y, bannerZ + 5));
+			blocksNearBanners.add(world.getBlockAt(bannerX - 5, BANNER_Y, bannerZ - 5));
+
+			explosions.add(mockExplosion(world, banner));
+		}
+
+		int zoneOffset = SiegeWarSettings.getWarSiegeZoneRadiusBlocks() / 2;
+		for (int i = siegeCount; i < playerCount; i++) {
+			Siege siege = sieges.get(i % siegeCount);
+			Town town = sides.get(i % siegeCount)[i % 2];
+			Location location;
+			if (i % 4 < 2) {
+				location = siege.getFlagLocation().clone().add(
+						random.nextInt(zoneOffset * 2 + 1) - zoneOffset, 0, random.nextInt(zoneOffset * 2 + 1) - zoneOffset);
+			} else {
+				location = world.getLocation(random.nextInt(worldSize) - worldSize / 2, BANNER_Y, random.nextInt(worldSize) - worldSize / 2);
+			}
+			Player player = harness.createPlayer("player" + i, town, location);
+			playerLocations.add(location);
+			if (i % 4 < 2)
+				SiegeWar.getSiegeHUDManager().toggleWarHud(player, siege);
+		}
+
+		harness.startBattleSession();
+		harness.advanceShortTick();
+	}
+
+	@TearDown(Level.Trial)
+	public void stopServer() throws Exception {
+		harness.close();
+	}
+
+	public SiegeWarTestHarness getHarness() {
+		return harness;
+	}
+
+	public SiegeWarTownyEventListener getTownyEventListener() {
+		return townyEventListener;
+	}
+
+	public List<Siege> getSieges() {
+		return sieges;
+	}
+
+	/**
+	 * @return the location of the next player, in turn
+	 */
+	public Location nextPlayerLocation() {
+		return playerLocations.get(nextIndex(playerLocations.size()));
+	}
+
+	/**
+	 * @return the next block near a banner, in turn. A quarter of them are siege banners.
+	 */
+	public Block nextBlockNearBanner() {
+		return blocksNearBanners.get(nextIndex(blocksNearBanners.size()));
+	}
+
+	/**
+	 * @return the explosion at the next siege banner, in turn
+	 */
+	public TownyExplodingBlocksEvent nextExplosion() {
+		return explosions.get(nextIndex(explosions.size()));
+	}
+
+	/**
+	 * @return the block list which the listener last set on an explosion
+	 */
+	public List<Block> getLastExplodeList() {
+		return lastExplodeList;
+	}
+
+	private int nextIndex(int size) {
+		if (++nextIndex >= size)
+			nextIndex = 0;
+		return nextIndex;
+	}
+
+	/*
+	 * A creeper-sized explosion centred on the banner support. The event has no entity, like a block explosion.
+	 */
+	private TownyExplodingBlocksEvent mockExplosion(FakeWorld world, Block banner) {
+		List<Block> blocks = new ArrayList<>();
+		for (int x = -EXPLOSION_RADIUS; x <= EXPLOSION_RADIUS; x++)
+			for (int y = -EXPLOSION_RADIUS; y <= EXPLOSION_RADIUS; y++)
+				for (int z = -EXPLOSION_RADIUS; z <= EXPLOSION_RADIUS; z++)
+					blocks.add(world.getBlockAt(banner.getX() + x, banner.getY() - 1 + y, banner.getZ() + z));
+		return Mockito.mock(TownyExplodingBlocksEvent.class, Mockito.withSettings().stubOnly().defaultAnswer(invocation -> {
+			switch (invocation.getMethod().getName()) {
+				case "getTownyFilteredBlockList":
+				case "getVanillaBlockList":
+					return new ArrayList<>(blocks);
+				case "setBlockList":
+					@SuppressWarnings("unchecked")
+					List<Block> explodeList = (List<Block>) invocation.getArguments()[0];
+					lastExplodeList = explodeList;
+					return null;
+				default:
+					return Mockito.RETURNS_DEFAULTS.answer(invocation);
+			}
+		}));
+	}
+}
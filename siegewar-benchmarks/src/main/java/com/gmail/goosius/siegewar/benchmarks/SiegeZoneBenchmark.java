@@ -0,0 +1,35 @@
+package com.gmail.goosius.siegewar.benchmarks;
+
+import com.gmail.goosius.siegewar.SiegeController;
+import com.gmail.goosius.siegewar.objects.Siege;
+import com.gmail.goosius.siegewar.utils.SiegeWarBlockUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The lookups which the block, move and damage listeners make on every event.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SiegeZoneBenchmark {
+
+	@Benchmark
+	public Siege getActiveSiegeAtLocation(SiegeWarServerState server) {
+		return SiegeController.getActiveSiegeAtLocation(server.nextPlayerLocation());
+	}
+
+	@Benchmark
+	public boolean isBlockNearAnActiveSiegeBanner(SiegeWarServerState server) {
+		return SiegeWarBlockUtil.isBlockNearAnActiveSiegeBanner(server.nextBlockNearBanner());
+	}
+}
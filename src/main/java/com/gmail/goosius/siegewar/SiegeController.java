@@ -1,6 +1,7 @@
 package com.gmail.goosius.siegewar;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
@@ -10,7 +11,8 @@ import java.util.HashMap;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import com.gmail.goosius.siegewar.enums.SiegeSide;
 import com.gmail.goosius.siegewar.enums.SiegeStatus;
@@ -25,8 +27,11 @@ import com.gmail.goosius.siegewar.timeractions.AttackerTimedWin;
 import com.gmail.goosius.siegewar.timeractions.DefenderTimedWin;
 import com.gmail.goosius.siegewar.utils.SiegeCampUtil;
 import com.gmail.goosius.siegewar.utils.SiegeWarDistanceUtil;
+import com.gmail.goosius.siegewar.utils.SiegeWarHomeBlockIndex;
 import com.gmail.goosius.siegewar.utils.SiegeWarNationUtil;
+import com.gmail.goosius.siegewar.utils.SiegeWarNotificationUtil;
 import com.gmail.goosius.siegewar.utils.SiegeWarSiegeCompletionUtil;
+import com.gmail.goosius.siegewar.utils.SiegeWarSnapshotUtil;
 import com.palmergames.bukkit.towny.TownyEconomyHandler;
 import com.palmergames.bukkit.towny.TownyMessaging;
 import com.palmergames.bukkit.towny.object.Government;
@@ -40,11 +45,13 @@ import org.jetbrains.annotations.Nullable;
 import com.gmail.goosius.siegewar.metadata.SiegeMetaDataController;
 import com.gmail.goosius.siegewar.objects.Siege;
 import com.gmail.goosius.siegewar.objects.SiegeCamp;
+import com.gmail.goosius.siegewar.objects.SiegeParticipation;
 import com.gmail.goosius.siegewar.utils.SiegeWarMoneyUtil;
 import com.palmergames.bukkit.towny.TownyAPI;
 import com.palmergames.bukkit.towny.TownyUniverse;
 import com.palmergames.bukkit.towny.exceptions.TownyException;
 import com.palmergames.bukkit.towny.object.Nation;
+import com.palmergames.bukkit.towny.object.Resident;
 import com.palmergames.bukkit.towny.object.Town;
 import com.palmergames.bukkit.towny.object.TownBlock;
 import com.palmergames.bukkit.towny.object.Translatable;
@@ -59,22 +66,209 @@ public class SiegeController {
 	////The key of this map is the town UUID
 	//private final static Map<String, Siege> sieges = new ConcurrentHashMap<>();
 	private static Map<UUID, Siege> townSiegeMap = new ConcurrentHashMap<>();
-	private static List<Town> siegedTowns = new ArrayList<>();
-	private static List<SiegeCamp> siegeCamps = new ArrayList<>();
+	//Exposed read-only through SiegeWarAPI, which may be called from async threads.
+	private static List<Town> siegedTowns = new CopyOnWriteArrayList<>();
+	//Camps are evaluated on region threads when running on Folia, so this list must be safe to modify from any thread.
+	private static List<SiegeCamp> siegeCamps = new CopyOnWriteArrayList<>();
+	//Slot ids currently held by loaded sieges. Freed slots are reused by the next new siege.
+	private static BitSet usedSiegeSlots = new BitSet();
+	/*
+	 * Immutable views of the sieges, shared by all readers.
+	 * The views are rebuilt when a siege is added, removed, moved or changes status,
+	 * or when the nations or residents involved in sieges change.
+	 * Changes made on the main thread are visible straight away, e.g. to SiegeWarStartEvent listeners.
+	 * Changes made on other threads are visible from the next tick.
+	 * Readers on any thread get the latest views with a single volatile read.
+	 */
+	private static volatile SiegeViews siegeViews = new SiegeViews(Collections.emptyList());
+	private static final AtomicBoolean siegeViewsRebuildScheduled = new AtomicBoolean(false);
 
 	public static void newSiege(Town town) {
 		Siege siege = new Siege(town);
-		townSiegeMap.put(town.getUUID(), siege);
+		siege.setSlotId(allocateSiegeSlot());
+		Siege previousSiege = townSiegeMap.put(town.getUUID(), siege);
+		if (previousSiege != null)
+			releaseSiegeSlot(previousSiege);
 		siegedTowns.add(town);
+		markSiegesChanged();
+	}
+
+	private static int allocateSiegeSlot() {
+		int slot = usedSiegeSlots.nextClearBit(0);
+		usedSiegeSlots.set(slot);
+		return slot;
+	}
+
+	private static void releaseSiegeSlot(Siege siege) {
+		if (siege.getSlotId() < 0)
+			return;
+		usedSiegeSlots.clear(siege.getSlotId());
+		SiegeWarNotificationUtil.forgetSiegeSlot(siege.getSlotId());
+		siege.setSlotId(-1);
 	}
 
+	/**
+	 * @return an unmodifiable snapshot of all sieges. It is not updated when sieges change.
+	 */
 	public static List<Siege> getSieges() {
-		return new ArrayList<>(townSiegeMap.values());
+		return siegeViews.allSieges;
+	}
+
+	/**
+	 * @return an unmodifiable snapshot of the active sieges. It is not updated when sieges change.
+	 */
+	public static List<Siege> getActiveSieges() {
+		return siegeViews.activeSieges;
+	}
+
+	/**
+	 * @return an unmodifiable snapshot of the in-progress sieges. It is not updated when sieges change.
+	 */
+	public static List<Siege> getInProgressSieges() {
+		return siegeViews.inProgressSieges;
+	}
+
+	/**
+	 * @param world the world
+	 * @return an unmodifiable snapshot of the sieges whose banner is in the given world. It is not updated when sieges change.
+	 */
+	public static List<Siege> getSiegesInWorld(World world) {
+		return siegeViews.siegesByWorld.getOrDefault(world.getUID(), Collections.emptyList());
+	}
+
+	/**
+	 * Rebuild the siege views, and the siege zone caches which are built from them.
+	 * Must be called whenever a siege is added, removed, moved or changes status.
+	 * Safe to call from any thread. Off the main thread, the rebuild happens on the next tick.
+	 */
+	public static void markSiegesChanged() {
+		updateSiegeViews();
+	}
+
+	/**
+	 * Rebuild the nation and resident indexes of the siege views.
+	 * Must be called whenever the attacker or defender of a siege changes,
+	 * a town joins or leaves a nation, or a resident joins or leaves a town.
+	 * Safe to call from any thread. Off the main thread, the rebuild happens on the next tick.
+	 */
+	public static void markSiegeParticipantsChanged() {
+		updateSiegeViews();
+	}
+
+	/*
+	 * On the main thread the views are rebuilt straight away,
+	 * so that e.g. the per-nation siege limit sees a siege started earlier in the same tick.
+	 * Off the main thread, any number of calls before the next tick result in one rebuild.
+	 */
+	private static void updateSiegeViews() {
+		if (!SiegeWar.getSiegeWar().isEnabled())
+			return;
+		if (Bukkit.getServer().isPrimaryThread()) {
+			rebuildSiegeViews();
+			return;
+		}
+		if (!siegeViewsRebuildScheduled.compareAndSet(false, true))
+			return;
+		SiegeWar.getSiegeWar().getScheduler().run(() -> {
+			siegeViewsRebuildScheduled.set(false);
+			rebuildSiegeViews();
+		});
+	}
+
+	/**
+	 * Build and publish the siege views, then the caches and API snapshot built from them.
+	 * Must be called on the main thread, or on a region thread when running on Folia.
+	 * Synchronized, so that a rebuild never publishes views older than a rebuild which finished before it.
+	 */
+	public static synchronized void rebuildSiegeViews() {
+		siegeViews = new SiegeViews(townSiegeMap.values());
+		SiegeWarDistanceUtil.markSiegeZonesChanged();
+		SiegeWarSnapshotUtil.publish();
+	}
+
+	/**
+	 * Get the participation of the given resident in the siege on their town.
+	 * This is a map read. It reflects changes to sieges or town membership made on the main thread straight away,
+	 * and changes made on other threads from the next tick.
+	 *
+	 * @param residentUUID the resident uuid
+	 * @return the participation, or null if the resident's town is not besieged
+	 */
+	@Nullable
+	public static SiegeParticipation getSiegeParticipation(UUID residentUUID) {
+		return siegeViews.participationsByResident.get(residentUUID);
+	}
+
+	private static class SiegeViews {
+		private final List<Siege> allSieges;
+		private final List<Siege> activeSieges;
+		private final List<Siege> inProgressSieges;
+		private final Map<UUID, List<Siege>> siegesByWorld;
+		//The following are keyed by nation uuid, and contain active sieges only
+		private final Map<UUID, List<Siege>> activeSiegesByAttackingNation = new HashMap<>();
+		private final Map<UUID, List<Siege>> activeSiegesByDefendingNation = new HashMap<>();
+		private final Map<UUID, List<Siege>> activeSiegesByTownNation = new HashMap<>();
+		//Keyed by resident uuid. Contains the residents of every besieged town.
+		private final Map<UUID, SiegeParticipation> participationsByResident = new HashMap<>();
+
+		private SiegeViews(Collection<Siege> sieges) {
+			List<Siege> all = new ArrayList<>();
+			List<Siege> active = new ArrayList<>();
+			List<Siege> inProgress = new ArrayList<>();
+			Map<UUID, List<Siege>> byWorld = new HashMap<>();
+			for (Siege siege : sieges) {
+				//A new siege has no status until it is set up. It is added by the rebuild which setStatus() triggers.
+				if (siege.getStatus() == null)
+					continue;
+				all.add(siege);
+				if (siege.getStatus().isActive()) {
+					active.add(siege);
+					indexActiveSiegeByNation(siege);
+				}
+				if (siege.getStatus() == SiegeStatus.IN_PROGRESS)
+					inProgress.add(siege);
+				indexSiegeByResident(siege);
+				if (siege.getFlagLocation() != null && siege.getFlagLocation().getWorld() != null)
+					byWorld.computeIfAbsent(siege.getFlagLocation().getWorld().getUID(), k -> new ArrayList<>()).add(siege);
+			}
+			byWorld.replaceAll((world, worldSieges) -> Collections.unmodifiableList(worldSieges));
+			this.allSieges = Collections.unmodifiableList(all);
+			this.activeSieges = Collections.unmodifiableList(active);
+			this.inProgressSieges = Collections.unmodifiableList(inProgress);
+			this.siegesByWorld = Collections.unmodifiableMap(byWorld);
+		}
+
+		private void indexSiegeByResident(Siege siege) {
+			//A revolting town is the attacker of the siege on itself
+			SiegeParticipation participation = new SiegeParticipation(siege, siege.getAttacker() == siege.getTown() ? SiegeSide.ATTACKERS : SiegeSide.DEFENDERS);
+			for (Resident resident : siege.getTown().getResidents())
+				participationsByResident.put(resident.getUUID(), participation);
+		}
+
+		private void indexActiveSiegeByNation(Siege siege) {
+			if (siege.getAttacker() instanceof Nation)
+				activeSiegesByAttackingNation.computeIfAbsent(siege.getAttacker().getUUID(), k -> new ArrayList<>()).add(siege);
+
+			Nation townNation = TownyAPI.getInstance().getTownNationOrNull(siege.getTown());
+			if (townNation != null)
+				activeSiegesByTownNation.computeIfAbsent(townNation.getUUID(), k -> new ArrayList<>()).add(siege);
+
+			//A nation defender defends itself. A town defender is defended by its nation.
+			Nation defendingNation = siege.getDefender() instanceof Nation ? (Nation) siege.getDefender() : townNation;
+			if (defendingNation != null)
+				activeSiegesByDefendingNation.computeIfAbsent(defendingNation.getUUID(), k -> new ArrayList<>()).add(siege);
+		}
 	}
 
 	public static void clearSieges() {
 		townSiegeMap.clear();
 		siegedTowns.clear();
+		usedSiegeSlots.clear();
+		siegeCamps.clear();
+		markSiegesChanged();
+		SiegeWarNotificationUtil.clearSiegeZoneProximityWarningsReceived();
+		SiegeWarNotificationUtil.invalidateSiegeParticipantAudiences();
+		SiegeCampUtil.clearFailedCamps();
 	}
 
 	public static void saveSiege(Siege siege) {
@@ -113,6 +307,10 @@ public class SiegeController {
 				return false;
 			SiegeWar.info("Siege Data Loaded Successfully.");
 			SiegeWar.info(SiegeController.getSieges().size() + " siege(s) loaded.");
+			SiegeWar.info("Loading Siege Camp Data...");
+			SiegeCampUtil.loadSiegeCamps();
+			SiegeWar.info(siegeCamps.size() + " siege camp(s) loaded.");
+			SiegeWarHomeBlockIndex.rebuild();
 			return true;
 		} catch (Exception e) {
 			SiegeWar.severe("Problem Loading Siege Data...");
@@ -143,6 +341,8 @@ public class SiegeController {
 				return false;
 			}
 		}
+		//Loading runs on the main thread, and the rest of the load reads the sieges straight away
+		rebuildSiegeViews();
 		return true;
 	}
 
@@ -272,6 +472,9 @@ public class SiegeController {
 		//Remove siege from collections
 		townSiegeMap.remove(town.getUUID());
 		siegedTowns.remove(siege.getTown());
+		releaseSiegeSlot(siege);
+		markSiegesChanged();
+		SiegeWarNotificationUtil.invalidateSiegeParticipantAudience(siege);
 		//Save town
 		town.save();
 		//Call event
@@ -280,6 +483,7 @@ public class SiegeController {
 
 	public static void putTownInSiegeMap(Town town, Siege siege) {
 		townSiegeMap.put(town.getUUID(), siege);
+		markSiegesChanged();
 	}
 
 	public static boolean hasSiege(Town town) {
@@ -308,9 +512,8 @@ public class SiegeController {
 
 	public static Collection<String> getNamesOfActivelySiegedTowns() {
 		Set<String> result = new HashSet<>();
-		for(Siege siege: getSieges()) {
-			if(siege.getStatus().isActive())
-				result.add(siege.getTown().getName());
+		for(Siege siege: getActiveSieges()) {
+			result.add(siege.getTown().getName());
 		}
 		return result;
 	}
@@ -352,12 +555,26 @@ public class SiegeController {
 	 */
 	@Nullable
 	public static Siege getActiveSiegeAtLocation(Location loc) {
+		return getActiveSiegeAtLocation(loc, getActiveSieges());
+	}
+
+	/**
+	 * Get the active siege at the given location, from the given sieges
+	 * If more than one active siege is found, return the closest one
+	 * If no active sieges are found, return null
+	 *
+	 * @param loc Given location
+	 * @param sieges the sieges to search
+	 * @return active siege at given location
+	 */
+	@Nullable
+	public static Siege getActiveSiegeAtLocation(Location loc, Collection<Siege> sieges) {
 		Siege resultSiege = null;
 		int distanceToResultSiege = 0;
 		int distanceToCandidateSiege = 0;
-		for (Siege candidateSiege : getSieges()) {
+		for (Siege candidateSiege : sieges) {
 			if (candidateSiege.getStatus().isActive()) {
-				if (!candidateSiege.getFlagBlock().getWorld().getName().equals(loc.getWorld().getName()))
+				if (!candidateSiege.getFlagLocation().getWorld().getName().equals(loc.getWorld().getName()))
 					continue;
 				distanceToCandidateSiege = SiegeWarDistanceUtil.getDistanceToSiege(loc, candidateSiege);
 				if(distanceToCandidateSiege < SiegeWarSettings.getWarSiegeZoneRadiusBlocks()) {
@@ -390,24 +607,15 @@ public class SiegeController {
 	 * @return The list of towns that are under siege in that nation.
 	 */
 	public static List<Town> getSiegedTowns(Nation nation) {
-		return getSiegedTowns().stream()
-				.filter(t -> t.hasNation())
-				.filter(t -> getSiege(t).getStatus().isActive())
-				.filter(t -> TownyAPI.getInstance().getTownNationOrNull(t).equals(nation))
-				.collect(Collectors.toList());
-
-
+		List<Town> result = new ArrayList<>();
+		for(Siege siege : siegeViews.activeSiegesByTownNation.getOrDefault(nation.getUUID(), Collections.emptyList())) {
+			result.add(siege.getTown());
+		}
+		return result;
 	}
 
 	public static Map<Siege, Town> getActiveOffensiveSieges(Nation nation) {
-		Map<Siege, Town> result = new HashMap<>();
-		for(Siege siege : SiegeController.getSieges()) {
-			if(siege.getStatus().isActive()
-				&& siege.getAttacker() == nation) {
-					result.put(siege, siege.getTown());
-			}
-		}
-		return result;
+		return toSiegeTownMap(siegeViews.activeSiegesByAttackingNation.get(nation.getUUID()));
 	}
 
 	public static int getNumActiveConquestAttackSieges(Nation nation) {
@@ -422,21 +630,14 @@ public class SiegeController {
 	}
 
 	public static Map<Siege, Town> getActiveDefensiveSieges(Nation nation) {
+		return toSiegeTownMap(siegeViews.activeSiegesByDefendingNation.get(nation.getUUID()));
+	}
+
+	private static Map<Siege, Town> toSiegeTownMap(@Nullable List<Siege> sieges) {
 		Map<Siege, Town> result = new HashMap<>();
-		for(Siege siege : SiegeController.getSieges()) {
-			if(siege.getStatus().isActive()) {
-				if(siege.getDefender() instanceof Nation) {
-					if(siege.getDefender() == nation) {
-						//Defender is the given nation
-						result.put(siege, siege.getTown());
-					}
-				} else {
-					if(siege.getTown().hasNation()
-						&& TownyAPI.getInstance().getTownNationOrNull(siege.getTown()) == nation) {
-						//Defender is a town belonging to the given nation
-						result.put(siege, siege.getTown());
-					}
-				}
+		if (sieges != null) {
+			for(Siege siege : sieges) {
+				result.put(siege, siege.getTown());
 			}
 		}
 		return result;
@@ -558,19 +759,29 @@ public class SiegeController {
 	}
 	
 	/**
-	 * Add a {@link SiegeCamp} to the SiegeCamp list.
+	 * Add a {@link SiegeCamp} to the SiegeCamp list, and save it to the target town.
 	 * @param camp {@link SiegeCamp} to add.
 	 */
 	public static void addSiegeCamp(SiegeCamp camp) {
 		siegeCamps.add(camp);
+		SiegeCampUtil.saveSiegeCamp(camp);
+	}
+
+	/**
+	 * Add a {@link SiegeCamp} which was loaded from the target town's metadata.
+	 * @param camp {@link SiegeCamp} to add.
+	 */
+	public static void addLoadedSiegeCamp(SiegeCamp camp) {
+		siegeCamps.add(camp);
 	}
 	
 	/**
-	 * Remove a {@link SiegeCamp} from the SiegeCamp list.
+	 * Remove a {@link SiegeCamp} from the SiegeCamp list, and from the target town's saved data.
 	 * @param camp {@link SiegeCamp} to remove.
 	 */
 	public static void removeSiegeCamp(SiegeCamp camp) {
-		siegeCamps.remove(camp);
+		if (siegeCamps.remove(camp))
+			SiegeCampUtil.deleteSiegeCamp(camp);
 	}
 	
 	/**
@@ -642,9 +853,9 @@ public class SiegeController {
 
 		// Broadcast a message
 		Messaging.sendGlobalMessage(translatable);
-		// Add to SiegeCamp list and begin Evaluating this SiegeCamp for success.
+		// Add to SiegeCamp list. The shared SiegeCamp task will evaluate it in one minute.
+		camp.setNextEvaluationTime(System.currentTimeMillis() + SiegeCampUtil.CAMP_EVALUATION_INTERVAL_MILLIS);
 		addSiegeCamp(camp);
-		SiegeWar.getSiegeWar().getScheduler().run(camp.getBannerBlock().getLocation(), ()-> SiegeCampUtil.evaluateCamp(camp, true));
 		// Call event
 		Bukkit.getPluginManager().callEvent(new SiegeCampStartEvent(camp, translatable.defaultLocale()));
 	}
@@ -5,7 +5,12 @@ import com.gmail.goosius.siegewar.settings.SiegeWarSettings;
 import com.gmail.goosius.siegewar.utils.DataCleanupUtil;
 
 import com.gmail.goosius.siegewar.utils.PermsCleanupUtil;
+import com.gmail.goosius.siegewar.utils.SiegeCampUtil;
 import com.gmail.goosius.siegewar.utils.SiegeWarMoneyUtil;
+import com.gmail.goosius.siegewar.utils.SiegeWarHistoryUtil;
+import com.gmail.goosius.siegewar.utils.SiegeWarJournal;
+import com.gmail.goosius.siegewar.utils.SiegeWarScoringUtil;
+import com.gmail.goosius.siegewar.utils.SiegeWarTimingsUtil;
 import org.bukkit.Bukkit;
 import org.bukkit.plugin.PluginManager;
 import org.bukkit.plugin.java.JavaPlugin;
@@ -84,6 +89,9 @@ public class SiegeWar extends JavaPlugin {
 
 		if (!loadAll()) {
 			siegeWarPluginError = true;
+		} else {
+			SiegeWarJournal.start();
+			SiegeWarHistoryUtil.start();
 		}
 
 		listenersRegistered = registerListeners();
@@ -92,7 +100,12 @@ public class SiegeWar extends JavaPlugin {
 		DataCleanupUtil.cleanupData(siegeWarPluginError, listenersRegistered);
 		PermsCleanupUtil.cleanupPerms(siegeWarPluginError);
 
-		//Calculate estimated total money in economy. This will run async.
+		if (!siegeWarPluginError) {
+			SiegeCampUtil.startSiegeCampTask();
+			SiegeWarTimingsUtil.startExportTask();
+		}
+
+		//Calculate estimated total money in economy. This will run over the next few ticks.
 		SiegeWarMoneyUtil.calculateEstimatedTotalMoneyInEconomy(siegeWarPluginError);
 
 		if(siegeWarPluginError) {
@@ -124,6 +137,10 @@ public class SiegeWar extends JavaPlugin {
 	@Override
     public void onDisable() {
     	info("Shutting down...");
+    	SiegeWarScoringUtil.applyPendingPenaltyPoints();
+    	SiegeCampUtil.saveUnsavedSiegeCamps();
+    	SiegeWarJournal.stop();
+    	SiegeWarHistoryUtil.stop();
     }
     
     private boolean loadAll() {
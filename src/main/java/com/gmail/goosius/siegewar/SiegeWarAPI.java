@@ -1,5 +1,6 @@
 package com.gmail.goosius.siegewar;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
@@ -17,8 +18,11 @@ import com.gmail.goosius.siegewar.enums.SiegeStatus;
 import com.gmail.goosius.siegewar.objects.BannerControlSession;
 import com.gmail.goosius.siegewar.objects.BattleSession;
 import com.gmail.goosius.siegewar.objects.Siege;
+import com.gmail.goosius.siegewar.objects.SiegeParticipation;
+import com.gmail.goosius.siegewar.objects.SiegeWorldView;
 import com.gmail.goosius.siegewar.utils.SiegeWarDistanceUtil;
-import com.palmergames.bukkit.towny.TownyAPI;
+import com.gmail.goosius.siegewar.utils.SiegeWarMoneyUtil;
+import com.gmail.goosius.siegewar.utils.SiegeWarSnapshotUtil;
 import com.palmergames.bukkit.towny.exceptions.TownyException;
 import com.palmergames.bukkit.towny.object.Nation;
 import com.palmergames.bukkit.towny.object.Resident;
@@ -29,10 +33,28 @@ import com.palmergames.bukkit.towny.object.Translatable;
 public class SiegeWarAPI {
 
 	/**
-	 * @return a List of the Sieges.
+	 * Get a frozen, read-only view of all sieges, which is safe to use from any thread.
+	 * 
+	 * Unlike the other methods of this class, which return live objects that must only be used on the main thread,
+	 * the view holds copies of the siege data and never changes.
+	 * 
+	 * The view is republished when a siege starts, ends, changes status or changes participants
+	 * (one tick later if the change was made off the main thread),
+	 * and on every Towny short-time tick (20 seconds by default).
+	 * So siege membership is at most about one tick stale,
+	 * and battle points and siege balance are at most one short-time interval stale.
+	 * 
+	 * @return the latest published view.
+	 */
+	public static SiegeWorldView snapshot() {
+		return SiegeWarSnapshotUtil.getCurrentView();
+	}
+
+	/**
+	 * @return a new, modifiable List of the Sieges.
 	 */
 	public static List<Siege> getSieges() {
-		return SiegeController.getSieges();
+		return new ArrayList<>(SiegeController.getSieges());
 	}
 
 	/**
@@ -46,14 +68,14 @@ public class SiegeWarAPI {
 	 * @return a Collection of all of the Towns which have active Sieges.
 	 */
 	public static Collection<Town> getActivelySiegedTowns() {
-		return getSieges().stream().filter(s -> isActive(s)).map(Siege::getTown).collect(Collectors.toSet());
+		return SiegeController.getActiveSieges().stream().map(Siege::getTown).collect(Collectors.toSet());
 	}
 
 	/**
 	 * @return a Collection of all of the names of the Sieged Towns.
 	 */
 	public static Collection<String> getNamesOfSiegedTowns() {
-		return getSieges().stream().map(s -> s.getTown().getName()).collect(Collectors.toSet());
+		return SiegeController.getSieges().stream().map(s -> s.getTown().getName()).collect(Collectors.toSet());
 	}
 
 	/**
@@ -61,7 +83,7 @@ public class SiegeWarAPI {
 	 *         Sieges.
 	 */
 	public static Collection<String> getNamesOfActivelySiegedTowns() {
-		return getSieges().stream().filter(s -> isActive(s)).map(s -> s.getTown().getName())
+		return SiegeController.getActiveSieges().stream().map(s -> s.getTown().getName())
 				.collect(Collectors.toSet());
 	}
 
@@ -91,8 +113,7 @@ public class SiegeWarAPI {
 	 * @return true if the player's Town is Sieged.
 	 */
 	public static boolean hasSiege(Player player) {
-		Resident resident = TownyAPI.getInstance().getResident(player);
-		return resident != null && hasSiege(resident);
+		return SiegeController.getSiegeParticipation(player.getUniqueId()) != null;
 	}
 
 	/**
@@ -102,7 +123,7 @@ public class SiegeWarAPI {
 	 * @return true if the resident's Town is Sieged.
 	 */
 	public static boolean hasSiege(Resident resident) {
-		return resident.hasTown() && hasSiege(resident.getTownOrNull());
+		return SiegeController.getSiegeParticipation(resident.getUUID()) != null;
 	}
 
 	/**
@@ -148,8 +169,8 @@ public class SiegeWarAPI {
 	 */
 	@Nullable
 	public static Siege getSiegeOrNull(Player player) {
-		Resident resident = TownyAPI.getInstance().getResident(player);
-		return resident != null ? getSiegeOrNull(resident) : null;
+		SiegeParticipation participation = SiegeController.getSiegeParticipation(player.getUniqueId());
+		return participation != null ? participation.getSiege() : null;
 	}
 
 	/**
@@ -178,6 +199,17 @@ public class SiegeWarAPI {
 		return Optional.ofNullable(getSiegeOrNull(player));
 	}
 
+	/**
+	 * Get the Player's participation in the Siege on their Town.
+	 * 
+	 * @param player Player to check.
+	 * @return the Siege on the Player's Town, and the side of the Town, or null.
+	 */
+	@Nullable
+	public static SiegeParticipation getSiegeParticipation(Player player) {
+		return SiegeController.getSiegeParticipation(player.getUniqueId());
+	}
+
 	/*
 	 * Get Siege by Resident.
 	 */
@@ -190,7 +222,8 @@ public class SiegeWarAPI {
 	 */
 	@Nullable
 	public static Siege getSiegeOrNull(Resident resident) {
-		return resident.hasTown() ? getSiegeOrNull(resident.getTownOrNull()) : null;
+		SiegeParticipation participation = SiegeController.getSiegeParticipation(resident.getUUID());
+		return participation != null ? participation.getSiege() : null;
 	}
 
 	/**
@@ -269,7 +302,7 @@ public class SiegeWarAPI {
 	 * @return a List of Sieges that the Nation has started.
 	 */
 	public static List<Siege> getSiegesBelongingToNation(Nation nation) {
-		return getSieges().stream().filter(s -> s.getAttacker().equals(nation)).collect(Collectors.toList());
+		return SiegeController.getSieges().stream().filter(s -> s.getAttacker().equals(nation)).collect(Collectors.toList());
 	}
 
 	/**
@@ -418,4 +451,28 @@ public class SiegeWarAPI {
 	public static Set<Player> getPlayersInBannerControlSessions() {
 		return SiegeController.getPlayersInBannerControlSessions();
 	}
+
+	/*
+	 * Economy methods.
+	 */
+
+	/**
+	 * Get the last computed estimate of the total money in the economy.
+	 * 
+	 * The estimate is recalculated when SiegeWar enables, and on each new day,
+	 * as long as bad config warnings are enabled and an economy is active.
+	 * 
+	 * @return the estimated total money in the economy, or 0 if no estimate has completed yet.
+	 */
+	public static double getEstimatedTotalMoneyInEconomy() {
+		return SiegeWarMoneyUtil.getEstimatedTotalMoneyInEconomy();
+	}
+
+	/**
+	 * @return the time (in millis) when the last estimate of the total money in
+	 *         the economy completed, or 0 if no estimate has completed yet.
+	 */
+	public static long getEstimatedTotalMoneyInEconomyTime() {
+		return SiegeWarMoneyUtil.getEstimatedTotalMoneyInEconomyTime();
+	}
 }
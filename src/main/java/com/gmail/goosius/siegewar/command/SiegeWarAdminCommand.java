@@ -2,14 +2,20 @@ package com.gmail.goosius.siegewar.command;
 
 import com.gmail.goosius.siegewar.Messaging;
 import com.gmail.goosius.siegewar.SiegeController;
+import com.gmail.goosius.siegewar.SiegeWar;
 import com.gmail.goosius.siegewar.TownOccupationController;
+import com.gmail.goosius.siegewar.enums.SiegeStatus;
 import com.gmail.goosius.siegewar.enums.SiegeWarPermissionNodes;
 import com.gmail.goosius.siegewar.metadata.NationMetaDataController;
 import com.gmail.goosius.siegewar.metadata.TownMetaDataController;
 import com.gmail.goosius.siegewar.objects.BattleSession;
 import com.gmail.goosius.siegewar.objects.Siege;
 import com.gmail.goosius.siegewar.settings.Settings;
+import com.gmail.goosius.siegewar.settings.SiegeWarSettings;
 import com.gmail.goosius.siegewar.utils.SiegeWarBattleSessionUtil;
+import com.gmail.goosius.siegewar.utils.SiegeWarJournal;
+import com.gmail.goosius.siegewar.utils.SiegeWarJournalReplayer;
+import com.gmail.goosius.siegewar.utils.SiegeWarTimingsUtil;
 import com.gmail.goosius.siegewar.utils.SiegeWarTownPeacefulnessUtil;
 import com.palmergames.bukkit.config.CommentedConfiguration;
 import com.palmergames.bukkit.towny.TownyMessaging;
@@ -28,21 +34,26 @@ import org.bukkit.command.CommandSender;
 import org.bukkit.command.TabExecutor;
 import org.bukkit.entity.Player;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
 
 public class SiegeWarAdminCommand implements TabExecutor {
 
-	private static final List<String> siegewaradminTabCompletes = Arrays.asList("battlesession","install","nation","reload","revoltimmunity","siege","siegeimmunity","town");
+	private static final List<String> siegewaradminTabCompletes = Arrays.asList("battlesession","install","journal","nation","perf","reload","revoltimmunity","siege","siegeimmunity","town");
 	private static final List<String> siegewaradminSiegeImmunityTabCompletes = Arrays.asList("town","nation","alltowns");
 	private static final List<String> siegewaradminRevoltImmunityTabCompletes = Arrays.asList("town","nation","alltowns");
 	private static final List<String> siegewaradminSiegeTabCompletes = Arrays.asList("setbalance","end","setplundered","setinvaded","remove");
 	private static final List<String> siegewaradminTownTabCompletes = Arrays.asList("setpeaceful", "setoccupied");
 	private static final List<String> siegewaradminNationTabCompletes = Arrays.asList("setplundergained","setplunderlost","settownsgained","settownslost");
 	private static final List<String> siegewaradminBattleSessionTabCompletes = Arrays.asList("end","start");
+	private static final List<String> siegewaradminPerfTabCompletes = Arrays.asList("reset");
+	private static final List<String> siegewaradminJournalTabCompletes = Arrays.asList("verify");
 
 	public List<String> onTabComplete(CommandSender sender, Command command, String alias, String[] args) {
 
@@ -124,6 +135,12 @@ public class SiegeWarAdminCommand implements TabExecutor {
 		case "battlesession":
 			if (args.length == 2)
 				return NameUtil.filterByStart(siegewaradminBattleSessionTabCompletes, args[1]);
+		case "perf":
+			if (args.length == 2)
+				return NameUtil.filterByStart(siegewaradminPerfTabCompletes, args[1]);
+		case "journal":
+			if (args.length == 2)
+				return NameUtil.filterByStart(siegewaradminJournalTabCompletes, args[1]);
 		default:
 			if (args.length == 1)
 				return NameUtil.filterByStart(siegewaradminTabCompletes, args[0]);
@@ -171,6 +188,12 @@ public class SiegeWarAdminCommand implements TabExecutor {
 			case "battlesession":
 				parseSiegeWarBattleSessionCommand(sender, StringMgmt.remFirstArg(args));
 				break;
+			case "perf":
+				parseSiegeWarPerfCommand(sender, StringMgmt.remFirstArg(args));
+				break;
+			case "journal":
+				parseSiegeWarJournalCommand(sender, StringMgmt.remFirstArg(args));
+				break;
 
 			/*
 			 * Show help if no command found.
@@ -322,6 +345,8 @@ public class SiegeWarAdminCommand implements TabExecutor {
 		TownyMessaging.sendMessage(sender, ChatTools.formatCommand("Eg", "/swa", "nation [nation_name] settownsgained [amount]", ""));
 		TownyMessaging.sendMessage(sender, ChatTools.formatCommand("Eg", "/swa", "nation [nation_name] settownslost [amount]", ""));
 		TownyMessaging.sendMessage(sender, ChatTools.formatCommand("Eg", "/swa", "battlesession [start/end]", ""));
+		TownyMessaging.sendMessage(sender, ChatTools.formatCommand("Eg", "/swa", "perf [reset]", ""));
+		TownyMessaging.sendMessage(sender, ChatTools.formatCommand("Eg", "/swa", "journal verify", ""));
 		TownyMessaging.sendMessage(sender, ChatTools.formatCommand("Eg", "/swa", "siegeduration addhours [1,2,3,4,5...]", "Add a number of hours to every siege."));
 	}
 
@@ -402,6 +427,75 @@ public class SiegeWarAdminCommand implements TabExecutor {
 		}
 	}
 
+	private void parseSiegeWarPerfCommand(CommandSender sender, String[] args) {
+		if (args.length > 0 && args[0].equalsIgnoreCase("reset")) {
+			SiegeWarTimingsUtil.resetTimings();
+			Messaging.sendMsg(sender, Translatable.of("msg_perf_timings_reset"));
+			return;
+		}
+
+		List<SiegeWarTimingsUtil.StageSummary> summaries = SiegeWarTimingsUtil.getStageSummaries();
+		if (summaries.isEmpty()) {
+			Messaging.sendMsg(sender, Translatable.of("msg_perf_no_timings"));
+			return;
+		}
+		TownyMessaging.sendMessage(sender, ChatTools.formatTitle("SiegeWar Timings (ms)"));
+		for (SiegeWarTimingsUtil.StageSummary summary : summaries) {
+			TownyMessaging.sendMessage(sender, String.format(Locale.ROOT, "%s: calls=%d p50=%.3f p95=%.3f max=%.3f",
+				summary.getStage(),
+				summary.getCount(),
+				summary.getP50Nanos() / 1_000_000.0,
+				summary.getP95Nanos() / 1_000_000.0,
+				summary.getMaxNanos() / 1_000_000.0));
+		}
+	}
+
+	private void parseSiegeWarJournalCommand(CommandSender sender, String[] args) {
+		if (args.length == 0 || !args[0].equalsIgnoreCase("verify")) {
+			TownyMessaging.sendMessage(sender, ChatTools.formatCommand("Eg", "/swa", "journal verify", ""));
+			return;
+		}
+		if (!SiegeWarSettings.isSiegeJournalEnabled()) {
+			Messaging.sendErrorMsg(sender, Translatable.of("msg_err_journal_disabled"));
+			return;
+		}
+
+		//Read the journal off the main thread, then compare with the live sieges on the main thread
+		boolean winnerTakesAll = SiegeWarSettings.areBattlePointsWinnerTakesAll();
+		SiegeWar.getSiegeWar().getScheduler().runAsync(() -> {
+			Map<UUID, SiegeWarJournalReplayer.ReplayedSiege> replayedSieges;
+			try {
+				SiegeWarJournal.flush(5000);
+				replayedSieges = SiegeWarJournalReplayer.replay(SiegeWarJournalReplayer.getJournalFiles(SiegeWarJournal.getJournalFolder()), winnerTakesAll);
+			} catch (IOException e) {
+				SiegeWar.getSiegeWar().getScheduler().run(() -> Messaging.sendErrorMsg(sender, Translatable.of("msg_err_journal_replay_failed", e.getMessage())));
+				return;
+			}
+			SiegeWar.getSiegeWar().getScheduler().run(() -> sendJournalVerificationResult(sender, replayedSieges));
+		});
+	}
+
+	private void sendJournalVerificationResult(CommandSender sender, Map<UUID, SiegeWarJournalReplayer.ReplayedSiege> replayedSieges) {
+		int numSiegesChecked = 0;
+		int numMismatchedBattleResults = 0;
+		List<String> mismatchedTownNames = new ArrayList<>();
+		for (Siege siege : SiegeController.getSieges()) {
+			if (siege.getStatus() != SiegeStatus.IN_PROGRESS)
+				continue;
+			SiegeWarJournalReplayer.ReplayedSiege replayedSiege = replayedSieges.get(siege.getTown().getUUID());
+			if (replayedSiege == null || replayedSiege.isFinished())
+				continue;
+			numSiegesChecked++;
+			numMismatchedBattleResults += replayedSiege.getNumMismatchedBattleResults();
+			if (replayedSiege.getAttackerBattlePoints() != siege.getAttackerBattlePoints()
+					|| replayedSiege.getDefenderBattlePoints() != siege.getDefenderBattlePoints())
+				mismatchedTownNames.add(siege.getTown().getName());
+		}
+		Messaging.sendMsg(sender, Translatable.of("msg_journal_verify_result", numSiegesChecked, mismatchedTownNames.size(), numMismatchedBattleResults));
+		if (!mismatchedTownNames.isEmpty())
+			Messaging.sendMsg(sender, Translatable.of("msg_journal_verify_mismatched_sieges", StringMgmt.join(mismatchedTownNames, ", ")));
+	}
+
 	private void parseSiegeWarSiegeImmunityCommand(CommandSender sender, String[] args) {
 		if (args.length < 2) {
 			showSiegeImmunityHelp(sender);
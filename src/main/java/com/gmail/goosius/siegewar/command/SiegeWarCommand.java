@@ -9,6 +9,7 @@ import com.gmail.goosius.siegewar.objects.BattleSession;
 import com.gmail.goosius.siegewar.settings.SiegeWarSettings;
 import com.gmail.goosius.siegewar.utils.BossBarUtil;
 import com.gmail.goosius.siegewar.utils.CosmeticUtil;
+import com.gmail.goosius.siegewar.utils.SiegeWarHistoryUtil;
 import com.gmail.goosius.siegewar.utils.SiegeWarMoneyUtil;
 import com.gmail.goosius.siegewar.utils.SiegeWarSpawnUtil;
 import com.gmail.goosius.siegewar.utils.SiegeWarTownPeacefulnessUtil;
@@ -33,17 +34,22 @@ import org.bukkit.command.CommandSender;
 import org.bukkit.command.TabCompleter;
 import org.bukkit.entity.Player;
 
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.*;
 
 public class SiegeWarCommand implements CommandExecutor, TabCompleter {
 	
-	private static final List<String> siegewarTabCompletes = Arrays.asList("collect", "town", "nation", "hud", "preference", "version", "nextsession", "spawn");
+	private static final List<String> siegewarTabCompletes = Arrays.asList("collect", "town", "nation", "hud", "preference", "version", "nextsession", "spawn", "history");
 
 	private static final List<String> siegewarTownTabCompletes = Arrays.asList("togglepeaceful");
 	
 	private static final List<String> siegewarNationTabCompletes = Arrays.asList("paysoldiers");
 
 	private static final List<String> siegewarPreferenceTabCompletes = Arrays.asList("beacons", "bossbars");
+
+	private static final List<String> siegewarHistoryTabCompletes = Arrays.asList("town", "nation", "battles", "recent");
 	
 	public List<String> onTabComplete(CommandSender sender, Command command, String alias, String[] args) {
 
@@ -61,6 +67,14 @@ public class SiegeWarCommand implements CommandExecutor, TabCompleter {
 				if (args.length == 2)
 					return NameUtil.filterByStart(new ArrayList<>(SiegeController.getNamesOfActivelySiegedTowns()), args[1]);
 				break;
+			case "history":
+				if (args.length == 2)
+					return NameUtil.filterByStart(siegewarHistoryTabCompletes, args[1]);
+				if (args.length == 3 && (args[1].equalsIgnoreCase("town") || args[1].equalsIgnoreCase("battles")))
+					return SiegeWarAdminCommand.getTownyStartingWith(args[2], "t");
+				if (args.length == 3 && args[1].equalsIgnoreCase("nation"))
+					return SiegeWarAdminCommand.getTownyStartingWith(args[2], "n");
+				break;
 			case "preference":
 				if (args.length == 2)
 					return NameUtil.filterByStart(siegewarPreferenceTabCompletes, args[1]);
@@ -83,6 +97,7 @@ public class SiegeWarCommand implements CommandExecutor, TabCompleter {
 		TownyMessaging.sendMessage(sender, ChatTools.formatCommand("Eg", "/sw nation", "paysoldiers [amount]", Translatable.of("nation_help_12").forLocale(sender)));
 		TownyMessaging.sendMessage(sender, ChatTools.formatCommand("Eg", "/sw town", "togglepeaceful", Translatable.of("town_help_toggle_peaceful").forLocale(sender)));
 		TownyMessaging.sendMessage(sender, ChatTools.formatCommand("Eg", "/sw nextsession", "", ""));
+		TownyMessaging.sendMessage(sender, ChatTools.formatCommand("Eg", "/sw history", "[town/nation/battles/recent]", ""));
 		TownyMessaging.sendMessage(sender, ChatTools.formatCommand("Eg", "/sw version", "", ""));
 		TownyMessaging.sendMessage(sender, ChatTools.formatCommand("Eg", "/sw preference", "beacons [on/off]", ""));
 	}
@@ -102,6 +117,14 @@ public class SiegeWarCommand implements CommandExecutor, TabCompleter {
 		TownyMessaging.sendMessage(sender, ChatTools.formatCommand("Eg", "/sw town", "togglepeaceful", Translatable.of("town_help_toggle_peaceful").forLocale(sender)));
 	}
 
+	private void showHistoryHelp(CommandSender sender) {
+		TownyMessaging.sendMessage(sender, ChatTools.formatTitle("/siegewar history"));
+		TownyMessaging.sendMessage(sender, ChatTools.formatCommand("Eg", "/sw history", "town [town] [page]", ""));
+		TownyMessaging.sendMessage(sender, ChatTools.formatCommand("Eg", "/sw history", "nation [nation] [page]", ""));
+		TownyMessaging.sendMessage(sender, ChatTools.formatCommand("Eg", "/sw history", "battles [town] [page]", ""));
+		TownyMessaging.sendMessage(sender, ChatTools.formatCommand("Eg", "/sw history", "recent [days] [page]", ""));
+	}
+
 	private void showPreferenceHelp(CommandSender sender) {
 		TownyMessaging.sendMessage(sender, ChatTools.formatTitle("/siegewar preference"));
 		TownyMessaging.sendMessage(sender, ChatTools.formatCommand("Eg", "/sw", "preference beacons [on/off]", ""));
@@ -150,6 +173,9 @@ public class SiegeWarCommand implements CommandExecutor, TabCompleter {
 		case "preference":
 			parseSiegewarPreferenceCommand(player, StringMgmt.remFirstArg(args));
 			break;
+		case "history":
+			parseSiegeWarHistoryCommand(player, StringMgmt.remFirstArg(args));
+			break;
 		case "v":
 		case "version":
 			parseSiegewarVersionCommand(player);
@@ -387,6 +413,118 @@ public class SiegeWarCommand implements CommandExecutor, TabCompleter {
 			showPreferenceHelp(player);
 	}
 
+	private void parseSiegeWarHistoryCommand(Player player, String[] args) {
+		try {
+			if (!SiegeWarSettings.isSiegeHistoryEnabled())
+				throw new TownyException(Translatable.of("msg_err_siege_history_disabled"));
+			if (args.length < 2) {
+				showHistoryHelp(player);
+				return;
+			}
+			int page = parseHistoryPage(args, 2);
+			switch (args[0].toLowerCase(Locale.ROOT)) {
+				case "town": {
+					Town town = TownyUniverse.getInstance().getTown(args[1]);
+					if (town == null)
+						throw new TownyException(Translatable.of("msg_err_town_not_registered", args[1]));
+					SiegeWarHistoryUtil.getSiegesOfTown(town.getUUID(), page, sieges -> sendSiegeHistory(player, town.getName(), page, sieges));
+					break;
+				}
+				case "nation": {
+					Nation nation = TownyUniverse.getInstance().getNation(args[1]);
+					if (nation == null)
+						throw new TownyException(Translatable.of("msg_err_nation_not_registered", args[1]));
+					SiegeWarHistoryUtil.getSiegesOfNation(nation.getUUID(), page, sieges -> sendSiegeHistory(player, nation.getName(), page, sieges));
+					break;
+				}
+				case "battles": {
+					Town town = TownyUniverse.getInstance().getTown(args[1]);
+					if (town == null)
+						throw new TownyException(Translatable.of("msg_err_town_not_registered", args[1]));
+					SiegeWarHistoryUtil.getBattlesOfTown(town.getUUID(), page, battles -> sendBattleHistory(player, town.getName(), page, battles));
+					break;
+				}
+				case "recent": {
+					int days;
+					try {
+						days = Integer.parseInt(args[1]);
+					} catch (NumberFormatException e) {
+						throw new TownyException(Translatable.of("msg_error_must_be_num"));
+					}
+					long now = System.currentTimeMillis();
+					SiegeWarHistoryUtil.getSiegesEndedBetween(now - days * 86400000L, now, page, sieges -> sendSiegeHistory(player, args[1] + "d", page, sieges));
+					break;
+				}
+				default:
+					showHistoryHelp(player);
+			}
+		} catch (TownyException e) {
+			Messaging.sendErrorMsg(player, e.getMessage(player));
+		}
+	}
+
+	private int parseHistoryPage(String[] args, int index) throws TownyException {
+		if (args.length <= index)
+			return 1;
+		try {
+			return Math.max(1, Integer.parseInt(args[index]));
+		} catch (NumberFormatException e) {
+			throw new TownyException(Translatable.of("msg_error_must_be_num"));
+		}
+	}
+
+	/*
+	 * Called on the async task which read the history, so the messages are sent on the player's thread.
+	 */
+	private void sendSiegeHistory(Player player, String name, int page, List<SiegeWarHistoryUtil.SiegeHistoryEntry> sieges) {
+		SiegeWar.getSiegeWar().getScheduler().run(player, () -> {
+			if (sieges == null) {
+				Messaging.sendErrorMsg(player, Translatable.of("msg_err_siege_history_unavailable"));
+				return;
+			}
+			TownyMessaging.sendMessage(player, ChatTools.formatTitle(Translatable.of("siege_history_title", name, page).forLocale(player)));
+			if (sieges.isEmpty()) {
+				Messaging.sendMsg(player, Translatable.of("msg_siege_history_empty"));
+				return;
+			}
+			for (SiegeWarHistoryUtil.SiegeHistoryEntry siege : sieges) {
+				TownyMessaging.sendMessage(player, Translatable.of("siege_history_siege_line",
+						formatHistoryTime(siege.getEndTime()),
+						siege.getTownName(),
+						siege.getAttackerName(),
+						siege.getDefenderName(),
+						siege.getStatus().getName(),
+						siege.getSiegeBalance()).forLocale(player));
+			}
+		});
+	}
+
+	private void sendBattleHistory(Player player, String name, int page, List<SiegeWarHistoryUtil.BattleHistoryEntry> battles) {
+		SiegeWar.getSiegeWar().getScheduler().run(player, () -> {
+			if (battles == null) {
+				Messaging.sendErrorMsg(player, Translatable.of("msg_err_siege_history_unavailable"));
+				return;
+			}
+			TownyMessaging.sendMessage(player, ChatTools.formatTitle(Translatable.of("siege_history_title", name, page).forLocale(player)));
+			if (battles.isEmpty()) {
+				Messaging.sendMsg(player, Translatable.of("msg_siege_history_empty"));
+				return;
+			}
+			for (SiegeWarHistoryUtil.BattleHistoryEntry battle : battles) {
+				TownyMessaging.sendMessage(player, Translatable.of("siege_history_battle_line",
+						formatHistoryTime(battle.getEndTime()),
+						battle.getAttackerBattlePoints(),
+						battle.getDefenderBattlePoints(),
+						battle.getBalanceAdjustment(),
+						battle.getSiegeBalance()).forLocale(player));
+			}
+		});
+	}
+
+	private static String formatHistoryTime(long time) {
+		return DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm").withZone(ZoneId.systemDefault()).format(Instant.ofEpochMilli(time));
+	}
+
 	private void parseSiegewarVersionCommand(Player player) {
 		Messaging.sendMsg(player, Translatable.of("msg_siege_war_version", SiegeWar.getSiegeWar().getVersion()));
 		return;
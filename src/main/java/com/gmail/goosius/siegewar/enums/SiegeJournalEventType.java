@@ -0,0 +1,43 @@
+package com.gmail.goosius.siegewar.enums;
+
+/**
+ * This class represents the type of a siege journal record
+ *
+ * The codes are written to disk, so they must never be changed or reused.
+ */
+public enum SiegeJournalEventType {
+	//Global. Value unused.
+	SESSION_START(1),
+	//Global. Value unused.
+	SESSION_END(2),
+	//Side is the side which gained banner control. Value unused.
+	BANNER_CONTROL_GAINED(3),
+	//Side is the side which lost banner control. Value unused.
+	BANNER_CONTROL_LOST(4),
+	//Side is the side which was awarded the points. Value is the points.
+	BANNER_CONTROL_POINTS(5),
+	//Side is the side which was awarded the points, i.e. the opponents of the dead player. Value is the points.
+	DEATH_PENALTY_POINTS(6),
+	//Value is the siege balance adjustment applied at the end of the battle.
+	BATTLE_RESULT(7),
+	//Side is the siege winner. Value is the final siege balance.
+	SIEGE_OUTCOME(8);
+
+	private final byte code;
+
+	SiegeJournalEventType(int code) {
+		this.code = (byte) code;
+	}
+
+	public byte getCode() {
+		return code;
+	}
+
+	public static SiegeJournalEventType fromCode(byte code) {
+		for (SiegeJournalEventType type : values()) {
+			if (type.code == code)
+				return type;
+		}
+		return null;
+	}
+}
@@ -38,6 +38,7 @@ public enum SiegeWarPermissionNodes {
 	SIEGEWAR_COMMAND_SIEGEWAR_SPAWN("siegewar.command.siegewar.spawn"),
 	SIEGEWAR_COMMAND_SIEGEWAR_PREFERENCE("siegewar.command.siegewar.preference"),
 	SIEGEWAR_COMMAND_SIEGEWAR_NEXTSESSION("siegewar.command.siegewar.nextsession"),
+	SIEGEWAR_COMMAND_SIEGEWAR_HISTORY("siegewar.command.siegewar.history"),
 
 	// ----- Admin Command Nodes -----
 	SIEGEWAR_COMMAND_SIEGEWARADMIN("siegewar.command.siegewaradmin.*"),
@@ -49,6 +50,8 @@ public enum SiegeWarPermissionNodes {
 		SIEGEWAR_COMMAND_SIEGEWARADMIN_NATION("siegewar.command.siegewaradmin.nation"),
 		SIEGEWAR_COMMAND_SIEGEWARADMIN_INSTALLPERMS("siegewar.command.siegewaradmin.installperms"),
 		SIEGEWAR_COMMAND_SIEGEWARADMIN_BATTLESESSION("siegewar.command.siegewaradmin.battlesession"),
+		SIEGEWAR_COMMAND_SIEGEWARADMIN_PERF("siegewar.command.siegewaradmin.perf"),
+		SIEGEWAR_COMMAND_SIEGEWARADMIN_JOURNAL("siegewar.command.siegewaradmin.journal"),
 		SIEGEWAR_COMMAND_SIEGEWARADMIN_BADCONFIGWARNINGS("siegewar.command.siegewaradmin.badconfigwarnings");
 
 	private String value;
@@ -1,11 +1,12 @@
 package com.gmail.goosius.siegewar.hud;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.gmail.goosius.siegewar.objects.Siege;
+import com.gmail.goosius.siegewar.tasks.SiegeWarTimerTaskController;
 
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
@@ -17,7 +18,7 @@ public class SiegeHUDManager {
     static Map<Player, Siege> warHudUsers;
 
     public SiegeHUDManager() {
-        warHudUsers = new HashMap<>();
+        warHudUsers = new ConcurrentHashMap<>();
     }
 
     public void toggleWarHud(Player player, Siege siege) {
@@ -39,11 +40,13 @@ public class SiegeHUDManager {
 
     public static void updateHUDs() {
         for (Entry<Player, Siege> entry : new ArrayList<>(warHudUsers.entrySet())) {
-            if (entry.getKey().getScoreboard().getTeam("balance") == null) {
-                warHudUsers.remove(entry.getKey());
-                continue;
-            } else
-                SiegeWarHud.updateInfo(entry.getKey(), entry.getValue());
+            Player player = entry.getKey();
+            SiegeWarTimerTaskController.runForPlayer(player, () -> {
+                if (player.getScoreboard().getTeam("balance") == null)
+                    warHudUsers.remove(player);
+                else
+                    SiegeWarHud.updateInfo(player, entry.getValue());
+            });
         }
     }
 
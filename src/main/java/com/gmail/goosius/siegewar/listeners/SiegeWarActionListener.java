@@ -12,6 +12,7 @@ import com.gmail.goosius.siegewar.playeractions.PlaceBlock;
 import com.gmail.goosius.siegewar.settings.SiegeWarSettings;
 import com.gmail.goosius.siegewar.utils.SiegeWarBlockUtil;
 import com.gmail.goosius.siegewar.utils.SiegeWarDistanceUtil;
+import com.gmail.goosius.siegewar.utils.SiegeWarTimingsUtil;
 import com.palmergames.bukkit.towny.event.actions.TownyBuildEvent;
 import com.palmergames.bukkit.towny.event.actions.TownyBurnEvent;
 import com.palmergames.bukkit.towny.event.actions.TownyDestroyEvent;
@@ -36,8 +37,11 @@ public class SiegeWarActionListener implements Listener {
 	 */
 	@EventHandler
 	public void onBlockBuild(TownyBuildEvent event) {
-		if (SiegeWarSettings.getWarSiegeEnabled())
+		if (SiegeWarSettings.getWarSiegeEnabled()) {
+			long startTime = System.nanoTime();
 			PlaceBlock.evaluateSiegeWarPlaceBlockRequest(event.getPlayer(), event.getBlock(), event);
+			SiegeWarTimingsUtil.record("listener.block_build", startTime);
+		}
 	}
 
 	/*
@@ -46,12 +50,14 @@ public class SiegeWarActionListener implements Listener {
 	@EventHandler(ignoreCancelled = true)
 	public void onBlockBreak(TownyDestroyEvent event) {
 		if (SiegeWarSettings.getWarSiegeEnabled()) {
+			long startTime = System.nanoTime();
 			try {
 				DestroyBlock.evaluateSiegeWarDestroyBlockRequest(event);
 			} catch (TownyException e) {
 				event.setCancelled(true);
 				event.setCancelMessage(e.getMessage());
 			}
+			SiegeWarTimingsUtil.record("listener.block_destroy", startTime);
 		}
 	}
 	
@@ -6,6 +6,7 @@ import com.gmail.goosius.siegewar.objects.BattleSession;
 import com.gmail.goosius.siegewar.utils.DataCleanupUtil;
 import com.gmail.goosius.siegewar.utils.SiegeWarNotificationUtil;
 import com.gmail.goosius.siegewar.utils.SiegeWarSpawnUtil;
+import com.gmail.goosius.siegewar.utils.SiegeWarTimingsUtil;
 import com.gmail.goosius.siegewar.utils.SiegeWarWarningsUtil;
 import org.bukkit.Material;
 import org.bukkit.World;
@@ -145,17 +146,30 @@ public class SiegeWarBukkitEventListener implements Listener {
 	public void onPlayerDeath(PlayerDeathEvent event) {
 		//Check for siege-war related death effects
 		if(isSWEnabledAndIsThisAWarAllowedWorld(event.getEntity().getWorld())) {
+			long startTime = System.nanoTime();
 			PlayerDeath.evaluateSiegePlayerDeath(event.getEntity(), event);
+			SiegeWarTimingsUtil.record("listener.player_death", startTime);
 		}
 	}
 	
 	@EventHandler(ignoreCancelled = true)
 	public void onPlayerTeleport(PlayerTeleportEvent event) {
+		long startTime = System.nanoTime();
+		evaluatePlayerTeleport(event);
+		SiegeWarTimingsUtil.record("listener.player_teleport", startTime);
+	}
+
+	private void evaluatePlayerTeleport(PlayerTeleportEvent event) {
 		// Check if SiegeWar is set to disallow non-residents teleporting into a siege
 		// zone, limiting to only plugin and command TeleportCauses.
 		if (!siegeWarStopsNonResidentsTeleporting(event))
 			return;
 
+		// Check the destination world and chunk against the siege chunk grid.
+		// Most teleports end up nowhere near a siege, so they stop here, before any Towny lookups.
+		if (SiegeWarDistanceUtil.getCandidateSiegesAt(event.getTo()).isEmpty())
+			return;
+
 		// Don't stop admins/ops. towny.admin.spawn is part of towny.admin.
 		if (event.getPlayer().hasPermission("towny.admin.spawn") || event.getPlayer().isOp())
 			return;
@@ -202,14 +216,27 @@ public class SiegeWarBukkitEventListener implements Listener {
 	}
 
 	private boolean siegeWarStopsNonResidentsTeleporting(PlayerTeleportEvent event) {
-		return SiegeWarSettings.getWarSiegeEnabled()
+		return isTeleportCauseCheckedBySiegeWar(event.getCause())
+			&& SiegeWarSettings.getWarSiegeEnabled()
 			&& SiegeWarSettings.getWarSiegeNonResidentSpawnIntoSiegeZonesOrBesiegedTownsDisabled()
-			&& BattleSession.getBattleSession().isActive()
-			&& (event.getCause() == TeleportCause.PLUGIN || event.getCause() == TeleportCause.COMMAND);
+			&& BattleSession.getBattleSession().isActive();
+	}
+
+	/**
+	 * Only plugin and command teleports (e.g. /t spawn, /warp) are checked.
+	 * Ender pearls, portals and other causes are never stopped by SiegeWar.
+	 *
+	 * @param cause the teleport cause
+	 * @return true if a teleport with the given cause may be stopped by SiegeWar
+	 */
+	static boolean isTeleportCauseCheckedBySiegeWar(TeleportCause cause) {
+		return cause == TeleportCause.PLUGIN || cause == TeleportCause.COMMAND;
 	}
 
 	@EventHandler(ignoreCancelled = true)
 	public void on(PlayerJoinEvent event) {
+		SiegeWarNotificationUtil.addPlayerToSiegeParticipantAudiences(event.getPlayer());
+
 		if (isSWEnabledAndIsThisAWarAllowedWorld(event.getPlayer().getWorld())) {
 			Siege activeSiegeAtPlayerLocation = SiegeController.getActiveSiegeAtLocation(event.getPlayer().getLocation());
 			if(activeSiegeAtPlayerLocation != null) {
@@ -232,6 +259,9 @@ public class SiegeWarBukkitEventListener implements Listener {
 
 	@EventHandler(ignoreCancelled = true)
 	public void onPlayerQuit(PlayerQuitEvent event) {
+		SiegeWarNotificationUtil.clearSiegeZoneProximityWarningsReceived(event.getPlayer());
+		SiegeWarNotificationUtil.removePlayerFromSiegeParticipantAudiences(event.getPlayer());
+
 		if(!isSWEnabledAndIsThisAWarAllowedWorld(event.getPlayer().getWorld()))
 			return;
 
@@ -245,6 +275,7 @@ public class SiegeWarBukkitEventListener implements Listener {
 	//Stops TNT/Minecarts from destroying blocks in the siegezone wilderness
 	@EventHandler(ignoreCancelled = true)
 	public void on(EntityExplodeEvent event) {
+		long startTime = System.nanoTime();
 		if(isSWEnabledAndIsThisAWarAllowedWorld(event.getEntity().getWorld())
 				&& !event.isCancelled()
 				&& SiegeWarSettings.getSiegeZoneWildernessForbiddenExplodeEntityTypes().contains(event.getEntityType())
@@ -252,6 +283,7 @@ public class SiegeWarBukkitEventListener implements Listener {
 				&& SiegeWarDistanceUtil.isLocationInActiveSiegeZone(event.getLocation())) {
 			event.setCancelled(true);
 		}
+		SiegeWarTimingsUtil.record("listener.entity_explode", startTime);
 	}
 	
 	/**
@@ -259,7 +291,13 @@ public class SiegeWarBukkitEventListener implements Listener {
 	 * - Stop TNT/Minecarts from injuring players in the siegezone wilderness
 	 */
 	@EventHandler(priority = EventPriority.HIGHEST)
-	public void on(EntityDamageByEntityEvent event) {	
+	public void on(EntityDamageByEntityEvent event) {
+		long startTime = System.nanoTime();
+		evaluateEntityDamageByEntity(event);
+		SiegeWarTimingsUtil.record("listener.entity_damage_by_entity", startTime);
+	}
+
+	private void evaluateEntityDamageByEntity(EntityDamageByEntityEvent event) {	
 		if(!isSWEnabledAndIsThisAWarAllowedWorld(event.getEntity().getWorld()))
 			return;
 
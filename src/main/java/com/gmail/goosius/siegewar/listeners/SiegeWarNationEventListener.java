@@ -1,16 +1,22 @@
 package com.gmail.goosius.siegewar.listeners;
 
 import com.gmail.goosius.siegewar.SiegeController;
+import com.gmail.goosius.siegewar.SiegeWar;
 import com.gmail.goosius.siegewar.enums.SiegeWarPermissionNodes;
 import com.gmail.goosius.siegewar.objects.Siege;
 import com.gmail.goosius.siegewar.settings.SiegeWarSettings;
 import com.gmail.goosius.siegewar.utils.PermissionUtil;
 import com.gmail.goosius.siegewar.utils.SiegeWarMoneyUtil;
+import com.gmail.goosius.siegewar.utils.SiegeWarNotificationUtil;
 import com.gmail.goosius.siegewar.TownOccupationController;
 import com.gmail.goosius.siegewar.utils.SiegeWarTownPeacefulnessUtil;
 import com.palmergames.bukkit.towny.TownyAPI;
 import com.palmergames.bukkit.towny.event.NationPreRemoveEnemyEvent;
 import com.palmergames.bukkit.towny.event.DeleteNationEvent;
+import com.palmergames.bukkit.towny.event.NationAddAllyEvent;
+import com.palmergames.bukkit.towny.event.NationAddTownEvent;
+import com.palmergames.bukkit.towny.event.RenameNationEvent;
+import com.palmergames.bukkit.towny.event.nation.NationMergeEvent;
 import com.palmergames.bukkit.towny.event.nation.NationPreTownLeaveEvent;
 import com.palmergames.bukkit.towny.event.nation.NationRankAddEvent;
 import com.palmergames.bukkit.towny.event.nation.NationKingChangeEvent;
@@ -22,6 +28,7 @@ import com.palmergames.bukkit.towny.object.Town;
 import com.palmergames.bukkit.towny.object.Translatable;
 import com.palmergames.bukkit.towny.object.Translation;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 
 /**
@@ -70,6 +77,8 @@ public class SiegeWarNationEventListener implements Listener {
 	 */
 	@EventHandler (ignoreCancelled = true)
 	public void onDeleteNation(DeleteNationEvent event) {
+		SiegeWarNotificationUtil.invalidateSiegeParticipantAudiences();
+		SiegeController.markSiegeParticipantsChanged();
 		if(!SiegeWarSettings.getWarSiegeEnabled())
 			return;
 
@@ -201,4 +210,33 @@ public class SiegeWarNationEventListener implements Listener {
 		}
 	}
 
+	/*
+	 * Nation membership, alliances and names all feed into who is informed about a siege,
+	 * so the cached siege participant audiences are discarded when they change.
+	 */
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	public void onNationAddTown(NationAddTownEvent event) {
+		SiegeWarNotificationUtil.invalidateSiegeParticipantAudiences();
+		SiegeController.markSiegeParticipantsChanged();
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	public void onNationAddAlly(NationAddAllyEvent event) {
+		SiegeWarNotificationUtil.invalidateSiegeParticipantAudiences();
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	public void onNationRename(RenameNationEvent event) {
+		SiegeWarNotificationUtil.invalidateSiegeParticipantAudiences();
+		SiegeController.markSiegeParticipantsChanged();
+	}
+
+	/*
+	 * The towns are moved after this event, so the nation indexes of the sieges are discarded once the merge is done.
+	 */
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	public void onNationMerge(NationMergeEvent event) {
+		SiegeWar.getSiegeWar().getScheduler().runLater(SiegeController::markSiegeParticipantsChanged, 1L);
+	}
+
 }
@@ -9,6 +9,7 @@ import com.gmail.goosius.siegewar.events.SiegeEndEvent;
 import com.gmail.goosius.siegewar.events.SiegeRemoveEvent;
 import com.gmail.goosius.siegewar.objects.Siege;
 import com.gmail.goosius.siegewar.utils.DiscordWebhook;
+import com.gmail.goosius.siegewar.utils.SiegeWarHistoryUtil;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 
@@ -23,7 +24,7 @@ public class SiegeWarSelfListener implements Listener {
 	@EventHandler(ignoreCancelled = true)
 	public void onBattleSessionPreStart(BattleSessionPreStartEvent event) {
 		if (SiegeWarSettings.cancelBattleSessionWhenNoActiveSieges()
-		&& (SiegeController.getSieges().isEmpty() || SiegeController.getSieges().stream().noneMatch(siege -> siege.getStatus().isActive()))) {
+		&& SiegeController.getActiveSieges().isEmpty()) {
 			event.setCancelled(true);
 			event.setCancellationMsg(Translatable.of("battle_session_cancelled_no_sieges").defaultLocale());
 		}
@@ -39,6 +40,8 @@ public class SiegeWarSelfListener implements Listener {
 
 	@EventHandler
 	public void onBattleSessionEnded(BattleSessionEndedEvent event) {
+		SiegeWarHistoryUtil.writePendingBattles();
+
 		if (!SiegeWarSettings.isDiscordWebhookEnabled() || !SiegeWarSettings.isSessionEndNotificationEnabled())
 			return;
 
@@ -64,6 +67,8 @@ public class SiegeWarSelfListener implements Listener {
 	@EventHandler
 	public void onSiegeEnd(SiegeEndEvent event) {
 		Siege siege = event.getSiege();
+		SiegeWarHistoryUtil.writeSiege(siege);
+
 		if (!SiegeWarSettings.isDiscordWebhookEnabled() || !SiegeWarSettings.isSiegeEndNotificationEnabled())
 			return;
 
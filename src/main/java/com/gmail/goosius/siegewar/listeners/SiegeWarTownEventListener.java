@@ -7,19 +7,24 @@ import com.gmail.goosius.siegewar.objects.BattleSession;
 import com.gmail.goosius.siegewar.utils.PermissionUtil;
 import com.gmail.goosius.siegewar.TownOccupationController;
 import com.gmail.goosius.siegewar.metadata.TownMetaDataController;
-import com.gmail.goosius.siegewar.objects.Siege;
 import com.gmail.goosius.siegewar.settings.SiegeWarSettings;
 import com.gmail.goosius.siegewar.utils.SiegeWarDistanceUtil;
+import com.gmail.goosius.siegewar.utils.SiegeWarHomeBlockIndex;
+import com.gmail.goosius.siegewar.utils.SiegeWarNotificationUtil;
 import com.gmail.goosius.siegewar.utils.SiegeWarTownPeacefulnessUtil;
 import com.palmergames.bukkit.towny.TownyAPI;
 import com.palmergames.bukkit.towny.TownyMessaging;
 import com.palmergames.bukkit.towny.event.DeleteTownEvent;
 import com.palmergames.bukkit.towny.event.NewTownEvent;
+import com.palmergames.bukkit.towny.event.RenameTownEvent;
+import com.palmergames.bukkit.towny.event.TownAddResidentEvent;
 import com.palmergames.bukkit.towny.event.TownAddResidentRankEvent;
+import com.palmergames.bukkit.towny.event.TownClaimEvent;
 import com.palmergames.bukkit.towny.event.TownPreAddResidentEvent;
 import com.palmergames.bukkit.towny.event.TownPreClaimEvent;
 import com.palmergames.bukkit.towny.event.TownSpawnEvent;
 import com.palmergames.bukkit.towny.event.time.dailytaxes.PreTownPaysNationTaxEvent;
+import com.palmergames.bukkit.towny.event.town.TownMergeEvent;
 import com.palmergames.bukkit.towny.event.town.TownPreMergeEvent;
 import com.palmergames.bukkit.towny.event.town.TownPreUnclaimCmdEvent;
 import com.palmergames.bukkit.towny.event.town.TownRuinedEvent;
@@ -84,6 +89,7 @@ public class SiegeWarTownEventListener implements Listener {
 	 */
 	@EventHandler(ignoreCancelled = true)
 	public void onCreateNewTown(NewTownEvent event) {
+		SiegeWarHomeBlockIndex.indexTown(event.getTown());
 		if (SiegeWarSettings.getWarSiegeEnabled()) {
 			Town town = event.getTown();
 			town.setNeutral(false);
@@ -113,29 +119,24 @@ public class SiegeWarTownEventListener implements Listener {
 			}
 
 			//If the land is too near any active siege zone, it cannot be claimed.
-			if(SiegeWarSettings.getWarSiegeClaimingDisabledNearSiegeZones()) {
-				for(Siege siege: SiegeController.getSieges()) {
-					try {
-						if (siege.getStatus().isActive()
-							&& SiegeWarDistanceUtil.isInSiegeZone(event.getPlayer(), siege)) {
-							event.setCancelled(true);
-							event.setCancelMessage(Translation.of("siegewar_plugin_prefix") + Translation.of("msg_err_siege_claim_too_near_siege_zone"));
-							break;
-						}
-					} catch (Exception e) {
-						//Problem with this particular siegezone. Ignore siegezone
-						try {
-							SiegeWar.severe("Problem with verifying claim against the following siege zone" + siege.getTown().getName() + ". Claim allowed.");
-						} catch (Exception e2) {
-							SiegeWar.severe("Problem with verifying claim against a siege zone (name could not be read). Claim allowed");
-						}
-						e.printStackTrace();
-					}
-				}
+			if(SiegeWarSettings.getWarSiegeClaimingDisabledNearSiegeZones()
+					&& SiegeWarDistanceUtil.isTownBlockInActiveSiegeZoneForClaiming(event.getTownBlock())) {
+				event.setCancelled(true);
+				event.setCancelMessage(Translation.of("siegewar_plugin_prefix") + Translation.of("msg_err_siege_claim_too_near_siege_zone"));
 			}
 		}
 	}
 	
+	/*
+	 * A besieged town's new claim must be added to the siege chunk grid.
+	 */
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	public void onTownClaimed(TownClaimEvent event) {
+		Town town = event.getTownBlock().getTownOrNull();
+		if (town != null && SiegeController.hasSiege(town))
+			SiegeWarDistanceUtil.markSiegeZonesChanged();
+	}
+
 	/*
 	 * Siege War will prevent unclaiming land in some situations.
 	 */
@@ -200,11 +201,23 @@ public class SiegeWarTownEventListener implements Listener {
 		}
 	}
 
+	/*
+	 * Once a homeblock move has gone ahead, re-index the town at its new homeblock.
+	 * The move is applied after this event, so the re-index waits a tick.
+	 */
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	public void onHomeBlockMoved(TownPreSetHomeBlockEvent event) {
+		Town town = event.getTown();
+		SiegeWar.getSiegeWar().getScheduler().runLater(() -> SiegeWarHomeBlockIndex.indexTown(town), 1L);
+	}
+
 	/*
 	 * A town being deleted with a siege means the siege ends.
 	 */
 	@EventHandler(ignoreCancelled = true)
 	public void onDeleteTown(DeleteTownEvent event) {
+		SiegeWarNotificationUtil.invalidateSiegeParticipantAudiences();
+		SiegeWarHomeBlockIndex.removeTown(event.getTownUUID());
 		if (SiegeController.hasSiege(event.getTownUUID()))
 			SiegeController.removeSiege(SiegeController.getSiegeByTownUUID(event.getTownUUID()));
 	}
@@ -217,6 +230,19 @@ public class SiegeWarTownEventListener implements Listener {
 		}
 	}
 
+	/*
+	 * Once towns have merged, the succumbing town is gone.
+	 * Re-index the remaining town too, in case its homeblock changed during the merge.
+	 * If the remaining town is besieged, the claims it gained must be added to the siege chunk grid.
+	 */
+	@EventHandler
+	public void onTownMerged(TownMergeEvent event) {
+		SiegeWarHomeBlockIndex.removeTown(event.getSuccumbingTownUUID());
+		SiegeWarHomeBlockIndex.indexTown(event.getRemainingTown());
+		if (SiegeController.hasSiege(event.getRemainingTown()))
+			SiegeWarDistanceUtil.markSiegeZonesChanged();
+	}
+
 	/**
 	 * Prevents towns using /t toggle neutral
 	 * - Because in SW this is not supported
@@ -309,4 +335,19 @@ public class SiegeWarTownEventListener implements Listener {
 			}
 		}
 	}
+
+	/*
+	 * Town residency and names feed into who is informed about a siege,
+	 * so the cached siege participant audiences are discarded when they change.
+	 */
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	public void onTownAddResident(TownAddResidentEvent event) {
+		SiegeWarNotificationUtil.invalidateSiegeParticipantAudiences();
+		SiegeController.markSiegeParticipantsChanged();
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	public void onTownRename(RenameTownEvent event) {
+		SiegeWarNotificationUtil.invalidateSiegeParticipantAudiences();
+	}
 }
@@ -1,7 +1,7 @@
 package com.gmail.goosius.siegewar.listeners;
 
 import com.gmail.goosius.siegewar.objects.BattleSession;
-import com.gmail.goosius.siegewar.settings.SiegeWarSettings;
+import com.gmail.goosius.siegewar.objects.BattleSessionChatRestriction;
 import com.gmail.goosius.siegewar.utils.SiegeWarNotificationUtil;
 import com.palmergames.bukkit.TownyChat.events.AsyncChatHookEvent;
 import org.bukkit.event.EventHandler;
@@ -14,19 +14,20 @@ public class SiegeWarTownyChatEventListener  implements Listener {
      * 1. No local chat in Siege Zones
      * 2. No general chat if a BattleSession is in progress (and for 10 mins after)
      *
+     * This runs on the async chat thread, so it reads only the published chat restriction.
+     *
      * @param event the AsyncChatHook event from TownyChat
      */
     @EventHandler(ignoreCancelled = true)
     public void on(AsyncChatHookEvent event) {
-        if(!SiegeWarSettings.getWarSiegeEnabled()
-                || !SiegeWarSettings.isToxicityReductionEnabled()
-                || !BattleSession.getBattleSession().isChatDisabled())
+        BattleSessionChatRestriction chatRestriction = BattleSession.getChatRestriction();
+        if(!chatRestriction.isChatRestricted())
             return;
 
         String channelName = event.getChannel().getName();
-        if(channelName.equalsIgnoreCase("local") || channelName.equalsIgnoreCase("general")) {
+        if(chatRestriction.isChannelRestricted(channelName)) {
             event.setCancelled(true);
-            SiegeWarNotificationUtil.notifyPlayerOfBattleSessionChatRestriction(event.getPlayer(), channelName);
+            SiegeWarNotificationUtil.notifyPlayerOfBattleSessionChatRestriction(event.getPlayer(), channelName.toLowerCase(), chatRestriction);
         }
     }
 
@@ -2,24 +2,29 @@ package com.gmail.goosius.siegewar.listeners;
 
 import com.gmail.goosius.siegewar.SiegeController;
 import com.gmail.goosius.siegewar.SiegeWar;
-import com.gmail.goosius.siegewar.SiegeWarAPI;
 import com.gmail.goosius.siegewar.TownOccupationController;
 import com.gmail.goosius.siegewar.enums.SiegeSide;
 import com.gmail.goosius.siegewar.hud.SiegeHUDManager;
 import com.gmail.goosius.siegewar.objects.BattleSession;
 import com.gmail.goosius.siegewar.objects.Siege;
+import com.gmail.goosius.siegewar.objects.SiegeDeathContext;
+import com.gmail.goosius.siegewar.playeractions.PlayerDeath;
 import com.gmail.goosius.siegewar.settings.SiegeWarSettings;
 import com.gmail.goosius.siegewar.tasks.SiegeWarTimerTaskController;
-import com.gmail.goosius.siegewar.utils.SiegeWarBattleSessionUtil;
+import com.gmail.goosius.siegewar.utils.SiegeCampUtil;
 import com.gmail.goosius.siegewar.utils.SiegeWarBlockProtectionUtil;
 import com.gmail.goosius.siegewar.utils.SiegeWarBlockUtil;
 import com.gmail.goosius.siegewar.utils.SiegeWarDistanceUtil;
+import com.gmail.goosius.siegewar.utils.SiegeWarHomeBlockIndex;
 import com.gmail.goosius.siegewar.utils.SiegeWarImmunityUtil;
 import com.gmail.goosius.siegewar.utils.SiegeWarInventoryUtil;
 import com.gmail.goosius.siegewar.utils.SiegeWarMoneyUtil;
 import com.gmail.goosius.siegewar.utils.SiegeWarNationUtil;
 import com.gmail.goosius.siegewar.utils.SiegeWarTownPeacefulnessUtil;
 import com.gmail.goosius.siegewar.utils.SiegeWarNotificationUtil;
+import com.gmail.goosius.siegewar.utils.SiegeWarScoringUtil;
+import com.gmail.goosius.siegewar.utils.SiegeWarSnapshotUtil;
+import com.gmail.goosius.siegewar.utils.SiegeWarTimingsUtil;
 import com.palmergames.bukkit.towny.TownyAPI;
 import com.palmergames.bukkit.towny.event.NationRemoveAllyEvent;
 import com.palmergames.bukkit.towny.event.NationRemoveTownEvent;
@@ -107,16 +112,16 @@ public class SiegeWarTownyEventListener implements Listener {
     public void onNewDay(NewDayEvent event) {
         if (SiegeWarSettings.getWarSiegeEnabled()) {
             if (SiegeWarSettings.isPlunderPaidOutOverDays()) {
-                SiegeWarMoneyUtil.payDailyPlunderDebt();
+                SiegeWarTimingsUtil.time("new_day.plunder_debt", SiegeWarMoneyUtil::payDailyPlunderDebt);
             }
             if(SiegeWarSettings.getWarCommonPeacefulTownsEnabled()) {
-                SiegeWarTownPeacefulnessUtil.updateTownPeacefulnessCounters();
+                SiegeWarTimingsUtil.time("new_day.peacefulness_counters", SiegeWarTownPeacefulnessUtil::updateTownPeacefulnessCounters);
             }
             if(SiegeWarSettings.getMaxOccupationTaxPerPlot() > 0) {
-                TownOccupationController.collectNationOccupationTax();
+                SiegeWarTimingsUtil.time("new_day.occupation_tax", TownOccupationController::collectNationOccupationTax);
             }
-            SiegeWarNationUtil.updateNationDemoralizationCounters();
-            SiegeWarMoneyUtil.calculateEstimatedTotalMoneyInEconomy(false);
+            SiegeWarTimingsUtil.time("new_day.demoralization_counters", SiegeWarNationUtil::updateNationDemoralizationCounters);
+            SiegeWarTimingsUtil.time("new_day.money_estimate", () -> SiegeWarMoneyUtil.calculateEstimatedTotalMoneyInEconomy(false));
         }
     }
 
@@ -126,8 +131,9 @@ public class SiegeWarTownyEventListener implements Listener {
     @EventHandler(ignoreCancelled = true)
     public void onNewHour(NewHourEvent event) {
         if(SiegeWarSettings.getWarSiegeEnabled()) {
-            SiegeWarImmunityUtil.evaluateExpiredImmunities();
-            SiegeWarNotificationUtil.clearSiegeZoneProximityWarningsReceived();
+            SiegeWarTimingsUtil.time("new_hour.expired_immunities", SiegeWarImmunityUtil::evaluateExpiredImmunities);
+            SiegeWarTimingsUtil.time("new_hour.failed_camps", SiegeCampUtil::pruneExpiredFailedCamps);
+            SiegeWarTimingsUtil.time("new_hour.homeblock_index", SiegeWarHomeBlockIndex::rebuild);
         }
     }
 
@@ -137,14 +143,17 @@ public class SiegeWarTownyEventListener implements Listener {
     @EventHandler(ignoreCancelled = true)
     public void onShortTime(NewShortTimeEvent event) {
         if (SiegeWarSettings.getWarSiegeEnabled()) {
-            SiegeWarNotificationUtil.sendSiegeZoneProximityWarnings();
-            SiegeWarTimerTaskController.evaluateBattleSessions();
-            SiegeWarDistanceUtil.recalculatePlayersRegisteredToActiveSiegeZones();
-            SiegeWarTimerTaskController.evaluateWarSickness();
-            SiegeWarTimerTaskController.evaluateBannerControl();
-            SiegeWarTimerTaskController.evaluateTimedSiegeOutcomes();
-            SiegeHUDManager.updateHUDs();
-            SiegeWarTimerTaskController.evaluateBeacons();
+            SiegeWarTimingsUtil.time("short_time.penalty_points", SiegeWarScoringUtil::applyPendingPenaltyPoints);
+            SiegeWarTimingsUtil.time("short_time.player_chunk_buckets", SiegeWarDistanceUtil::recalculatePlayerChunkBuckets);
+            SiegeWarTimingsUtil.time("short_time.proximity_warnings", SiegeWarNotificationUtil::sendSiegeZoneProximityWarnings);
+            SiegeWarTimingsUtil.time("short_time.battle_sessions", SiegeWarTimerTaskController::evaluateBattleSessions);
+            SiegeWarTimingsUtil.time("short_time.siege_zone_registration", SiegeWarDistanceUtil::recalculatePlayersRegisteredToActiveSiegeZones);
+            SiegeWarTimingsUtil.time("short_time.war_sickness", SiegeWarTimerTaskController::evaluateWarSickness);
+            SiegeWarTimingsUtil.time("short_time.banner_control", SiegeWarTimerTaskController::evaluateBannerControl);
+            SiegeWarTimingsUtil.time("short_time.timed_siege_outcomes", SiegeWarTimerTaskController::evaluateTimedSiegeOutcomes);
+            SiegeWarTimingsUtil.time("short_time.huds", SiegeHUDManager::updateHUDs);
+            SiegeWarTimingsUtil.time("short_time.beacons", SiegeWarTimerTaskController::evaluateBeacons);
+            SiegeWarTimingsUtil.time("short_time.api_snapshot", SiegeWarSnapshotUtil::publish);
         }
     }
 
@@ -160,10 +169,12 @@ public class SiegeWarTownyEventListener implements Listener {
             return;
         if (event.getEntity() != null && !TownyAPI.getInstance().getTownyWorld(event.getEntity().getWorld()).isWarAllowed())
             return;    
+        long startTime = System.nanoTime();
         List<Block> filteredExplodeList = event.getTownyFilteredBlockList();
         filteredExplodeList = filterExplodeListBySiegeBannerProtection(filteredExplodeList);
         filteredExplodeList = filterExplodeListByTrapWarfareMitigation(filteredExplodeList);
         event.setBlockList(filteredExplodeList);
+        SiegeWarTimingsUtil.record("listener.towny_exploding_blocks", startTime);
     }
 
     /**
@@ -316,6 +327,8 @@ public class SiegeWarTownyEventListener implements Listener {
      */
     @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
     public void on(TownRemoveResidentEvent event) {
+        SiegeWarNotificationUtil.invalidateSiegeParticipantAudiences();
+        SiegeController.markSiegeParticipantsChanged();
         tryBroadCastTownRemoval(event.getResident(), event.getTown());
     }
 
@@ -326,6 +339,8 @@ public class SiegeWarTownyEventListener implements Listener {
      */
     @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
     public void on(NationRemoveTownEvent event) {
+        SiegeWarNotificationUtil.invalidateSiegeParticipantAudiences();
+        SiegeController.markSiegeParticipantsChanged();
         tryBroadCastNationRemoval(event.getTown(), event.getNation());
     }
 
@@ -336,6 +351,7 @@ public class SiegeWarTownyEventListener implements Listener {
      */
     @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
     public void on(NationRemoveAllyEvent event) {
+        SiegeWarNotificationUtil.invalidateSiegeParticipantAudiences();
         tryBroadCastNationAllyRemoval(event.getRemovedNation(), event.getNation());
     }
 
@@ -458,8 +474,13 @@ public class SiegeWarTownyEventListener implements Listener {
 	 */
 	@EventHandler(priority = EventPriority.HIGHEST)
 	public void onTownyKeepInventoryEvent(PlayerKeepsInventoryEvent event) {
-		if (!SiegeWarDistanceUtil.isLocationInActiveSiegeZone(event.getPlayer().getLocation()))
+		SiegeDeathContext deathContext = PlayerDeath.getDeathContext(event.getPlayer());
+		if (!deathContext.isInActiveSiegeZone())
 			return;
+		// Defenders who are losing too greatly drop their inventories.
+		boolean defenderLosingBadly = SiegeWarSettings.isDefendersDropInventoryWhenLosingEnabled()
+			&& deathContext.getZoneSiegeSide() == SiegeSide.DEFENDERS
+			&& deathContext.getZoneSiegeBalanceIfSessionEndedNow() >= SiegeWarSettings.getDefendersDropInventoryWhenLosingThreshold();
 
 		// Towny is already going to keep the inventory.
 		if (!event.isCancelled()) {
@@ -469,27 +490,15 @@ public class SiegeWarTownyEventListener implements Listener {
 				return;
 			}
 			// But we don't want defenders that are losing too greatly to keep their inventories.
-			if (SiegeWarSettings.isDefendersDropInventoryWhenLosingEnabled()) {
-				Siege siege = SiegeWarAPI.getActiveSiegeAtLocation(event.getLocation());
-				if (!SiegeSide.isDefender(siege, event.getPlayer()))
-					return;
-				if (SiegeWarBattleSessionUtil.getSiegeBalanceIfSessionEndedNow(siege)
-					< SiegeWarSettings.getDefendersDropInventoryWhenLosingThreshold())
-					return;
-
+			if (defenderLosingBadly)
 				event.setCancelled(true);
-				return;
-			}
+			return;
 		}
 
 		// Towny is going to drop the inventory, but we want inventories saved.
 		if (event.isCancelled() && SiegeWarSettings.isKeepInventoryOnSiegeZoneDeathEnabled()) {
-
-			Siege siege = SiegeWarAPI.getActiveSiegeAtLocation(event.getLocation());
 			// But we don't want defenders that are losing too greatly to keep their inventories.
-			if (SiegeWarSettings.isDefendersDropInventoryWhenLosingEnabled()
-				&& SiegeSide.isDefender(siege, event.getPlayer())
-				&& SiegeWarBattleSessionUtil.getSiegeBalanceIfSessionEndedNow(siege) >= SiegeWarSettings.getDefendersDropInventoryWhenLosingThreshold())
+			if (defenderLosingBadly)
 				return;
 
 			SiegeWarInventoryUtil.degradeInventory(event.getPlayer());
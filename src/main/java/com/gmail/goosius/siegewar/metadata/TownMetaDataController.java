@@ -25,6 +25,7 @@ public class TownMetaDataController {
 	private static LongDataField revoltImmunityEndTime = new LongDataField("siegewar_revoltImmunityEndTime", 0l);
 	private static LongDataField siegeImmunityEndTime = new LongDataField("siegewar_siegeImmunityEndTime", 0l);
 	private static StringDataField failedCampList = new StringDataField("siegewar_failedCampList", "");
+	private static StringDataField activeSiegeCamp = new StringDataField("siegewar_activeSiegeCamp", "");
 	private static IntegerDataField plunderDebtDays = new IntegerDataField("siegewar_plunderDays", 0);
 	private static DecimalDataField dailyPlunderCost = new DecimalDataField("siegewar_dailyPlunderCost", 0.0);
 	
@@ -62,6 +63,27 @@ public class TownMetaDataController {
 		town.removeMetaData((StringDataField) failedCampList.clone());
 	}
 	
+	@Nullable
+	public static String getActiveSiegeCamp(Town town) {
+		StringDataField sdf = (StringDataField) activeSiegeCamp.clone();
+		if (town.hasMeta(sdf.getKey())) {
+			return MetaDataUtil.getString(town, sdf);
+		}
+		return null;
+	}
+
+	public static void setActiveSiegeCamp(Town town, String camp) {
+		StringDataField sdf = (StringDataField) activeSiegeCamp.clone();
+		if (town.hasMeta(sdf.getKey()))
+			MetaDataUtil.setString(town, sdf, camp, true);
+		else
+			town.addMetaData(new StringDataField("siegewar_activeSiegeCamp", camp));
+	}
+
+	public static void removeActiveSiegeCamp(Town town) {
+		town.removeMetaData((StringDataField) activeSiegeCamp.clone());
+	}
+
 	public static int getPeacefulnessChangeCountdownDays(Town town) {
 		IntegerDataField idf = (IntegerDataField) peacefulnessChangeConfirmationCounterDays.clone();
 		if (town.hasMeta(idf.getKey())) {
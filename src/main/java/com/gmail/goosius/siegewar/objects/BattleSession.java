@@ -1,6 +1,7 @@
 package com.gmail.goosius.siegewar.objects;
 
 
+import com.gmail.goosius.siegewar.settings.SiegeWarSettings;
 import com.palmergames.util.TimeMgmt;
 import org.jetbrains.annotations.Nullable;
 
@@ -33,6 +34,8 @@ import org.jetbrains.annotations.Nullable;
 public class BattleSession {
 
 	private static BattleSession battleSession = null;  //The singleton instance
+	//Read by async chat handlers, so it is published as an immutable record rather than read from this object.
+	private static volatile BattleSessionChatRestriction chatRestriction = BattleSessionChatRestriction.NONE;
 	private boolean active; 			//Is the session active, or is it on break ?
 	private long scheduledEndTime;	//The time this battle session is scheduled to end
 	private Long scheduledStartTime;  //The time this battle session is scheduled to start
@@ -62,6 +65,7 @@ public class BattleSession {
 
 	public void setActive(boolean active) {
 		this.active = active;
+		publishChatRestriction();
 	}
 
 	public long getScheduledEndTime() {
@@ -108,6 +112,26 @@ public class BattleSession {
 
 	public void setChatDisabled(boolean chatDisabled) {
 		this.chatDisabled = chatDisabled;
+		publishChatRestriction();
+	}
+
+	/**
+	 * @return the latest published chat restriction. Safe to call from any thread.
+	 */
+	public static BattleSessionChatRestriction getChatRestriction() {
+		return chatRestriction;
+	}
+
+	/**
+	 * Publish the chat restriction state of this session.
+	 * Called when the session changes, and after the settings are reloaded.
+	 */
+	public void publishChatRestriction() {
+		chatRestriction = new BattleSessionChatRestriction(
+				active,
+				chatDisabled && SiegeWarSettings.getWarSiegeEnabled() && SiegeWarSettings.isToxicityReductionEnabled(),
+				TimeMgmt.getFormattedTimeValue(SiegeWarSettings.getToxicityReductionChatRestorationAfterBattleSessionMillis()),
+				SiegeWarSettings.getToxicityReductionServerDiscordLink());
 	}
 
 	public long getScheduledGeneralChatRestorationTime() {
@@ -0,0 +1,64 @@
+package com.gmail.goosius.siegewar.objects;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * This class represents the chat restriction state of the battle session
+ *
+ * An instance is immutable, and is published by BattleSession whenever the session or the settings change.
+ * Async chat handlers read only the published instance,
+ * so they never touch the battle session or settings which the main thread mutates.
+ */
+public class BattleSessionChatRestriction {
+
+	public static final BattleSessionChatRestriction NONE = new BattleSessionChatRestriction(false, false, "", "");
+
+	//Channels which are closed while chat is restricted. Lower case.
+	private static final Set<String> RESTRICTED_CHANNELS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList("local", "general")));
+
+	private final boolean battleSessionActive;
+	private final boolean chatRestricted;
+	private final String formattedRestrictionDuration;
+	private final String discordLink;
+
+	/**
+	 * @param battleSessionActive true if a battle session is active
+	 * @param chatRestricted true if chat is restricted, i.e. toxicity reduction is enabled and chat is disabled
+	 * @param formattedRestrictionDuration how long chat stays restricted after the session, for messages
+	 * @param discordLink the server discord link, for messages. Empty if none.
+	 */
+	public BattleSessionChatRestriction(boolean battleSessionActive, boolean chatRestricted, String formattedRestrictionDuration, String discordLink) {
+		this.battleSessionActive = battleSessionActive;
+		this.chatRestricted = chatRestricted;
+		this.formattedRestrictionDuration = formattedRestrictionDuration;
+		this.discordLink = discordLink;
+	}
+
+	public boolean isBattleSessionActive() {
+		return battleSessionActive;
+	}
+
+	public boolean isChatRestricted() {
+		return chatRestricted;
+	}
+
+	/**
+	 * @param channelName the channel name
+	 * @return true if chat is restricted and the given channel is closed
+	 */
+	public boolean isChannelRestricted(String channelName) {
+		return chatRestricted && RESTRICTED_CHANNELS.contains(channelName.toLowerCase(Locale.ROOT));
+	}
+
+	public String getFormattedRestrictionDuration() {
+		return formattedRestrictionDuration;
+	}
+
+	public String getDiscordLink() {
+		return discordLink;
+	}
+}
@@ -1,9 +1,11 @@
 package com.gmail.goosius.siegewar.objects;
 
+import com.gmail.goosius.siegewar.SiegeController;
 import com.gmail.goosius.siegewar.enums.SiegeSide;
 import com.gmail.goosius.siegewar.enums.SiegeStatus;
 import com.gmail.goosius.siegewar.enums.SiegeType;
 import com.gmail.goosius.siegewar.settings.SiegeWarSettings;
+import com.gmail.goosius.siegewar.utils.SiegeWarNotificationUtil;
 import com.palmergames.adventure.text.serializer.legacy.LegacyComponentSerializer;
 import com.palmergames.adventure.text.serializer.plain.PlainTextComponentSerializer;
 import com.palmergames.bukkit.towny.TownyAPI;
@@ -61,6 +63,7 @@ public class Siege {
 	private Resident attackingCommander;
 	private Resident defendingCommander;
 	private String endMessage;
+	private int slotId;  //Stable index while the siege is loaded. Used to key compact per-player records. Not saved.
 
 	public Siege(Town town) {
 		this.town = town;
@@ -83,14 +86,33 @@ public class Siege {
 		attackingCommander = null;
 		defendingCommander = null;
 		endMessage = "";
+		slotId = -1;
     }
 
+	/**
+	 * Create a siege which exists only inside a load simulation (see SiegeWarLoadSimulator in the tests).
+	 * Unlike the setters, this does not mark the live sieges changed.
+	 *
+	 * @param status the status
+	 * @param flagLocation the banner location
+	 * @param bannerControllingSide the side controlling the banner
+	 */
+	public Siege(SiegeStatus status, Location flagLocation, SiegeSide bannerControllingSide) {
+		this(null);
+		this.status = status;
+		this.siegeBannerLocation = flagLocation;
+		this.bannerControllingSide = bannerControllingSide;
+	}
+
     public Town getTown() {
         return town;
     }
 	
 	public void setStatus(SiegeStatus status) {
+		SiegeStatus previousStatus = this.status;
         this.status = status;
+		if (previousStatus != status)
+			SiegeController.markSiegesChanged();
     }
 
     public void setTownPlundered(boolean townPlundered) {
@@ -139,6 +161,8 @@ public class Siege {
 
 	public void setAttacker(Government attacker) {
 		this.attacker = attacker;
+		SiegeController.markSiegeParticipantsChanged();
+		SiegeWarNotificationUtil.invalidateSiegeParticipantAudience(this);
 	}
 
 	public Government getDefender() {
@@ -189,6 +213,8 @@ public class Siege {
 
 	public void setDefender(Government defender) {
 		this.defender = defender;
+		SiegeController.markSiegeParticipantsChanged();
+		SiegeWarNotificationUtil.invalidateSiegeParticipantAudience(this);
 	}
 
 	public void setTown(Town town) {
@@ -205,6 +231,7 @@ public class Siege {
 
 	public void setFlagLocation(Location location) {
 		this.siegeBannerLocation = location;
+		SiegeController.markSiegesChanged();
 	}
 	
 	public boolean isFlagBannerOrBlockBelow(Block block) {
@@ -436,4 +463,12 @@ public class Siege {
 	public void setEndMessage(String message) {
 		this.endMessage = message;
 	}
+
+	public int getSlotId() {
+		return slotId;
+	}
+
+	public void setSlotId(int slotId) {
+		this.slotId = slotId;
+	}
 }
\ No newline at end of file
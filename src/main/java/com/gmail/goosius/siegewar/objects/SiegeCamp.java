@@ -3,6 +3,7 @@ package com.gmail.goosius.siegewar.objects;
 import org.bukkit.Bukkit;
 import org.bukkit.block.Block;
 import org.bukkit.entity.Player;
+import org.jetbrains.annotations.Nullable;
 
 import com.gmail.goosius.siegewar.Messaging;
 import com.gmail.goosius.siegewar.SiegeController;
@@ -19,8 +20,10 @@ import com.palmergames.bukkit.towny.object.TownBlock;
 import com.palmergames.bukkit.towny.object.Translatable;
 import com.palmergames.util.TimeTools;
 
+import java.util.UUID;
+
 public class SiegeCamp {
-	private final Player player;
+	private final UUID playerUUID;
 	private final Block bannerBlock;
 	private final SiegeType siegeType;
 	private final Town targetTown;
@@ -30,10 +33,20 @@ public class SiegeCamp {
 	private final TownBlock townBlock;
 	private int attackerPoints = 0;
 	private final long endTime;
+	private long nextEvaluationTime;
 
 	public SiegeCamp(Player player, Block bannerBlock, SiegeType siegeType, Town targetTown, Government attacker,
 			Government defender, Town townOfSiegeStarter,TownBlock townBlock) {
-		this.player = player;
+		this(player.getUniqueId(), bannerBlock, siegeType, targetTown, attacker, defender, townOfSiegeStarter, townBlock, 0,
+				System.currentTimeMillis() + TimeTools.getMillis(SiegeWarSettings.getSiegeCampDurationInMinutes() + "m"));
+	}
+
+	/**
+	 * Used when loading a SiegeCamp which was saved before a restart.
+	 */
+	public SiegeCamp(UUID playerUUID, Block bannerBlock, SiegeType siegeType, Town targetTown, Government attacker,
+			Government defender, Town townOfSiegeStarter, TownBlock townBlock, int attackerPoints, long endTime) {
+		this.playerUUID = playerUUID;
 		this.bannerBlock = bannerBlock;
 		this.siegeType = siegeType;
 		this.targetTown = targetTown;
@@ -41,14 +54,23 @@ public class SiegeCamp {
 		this.defender = defender;
 		this.townOfSiegeStarter = townOfSiegeStarter;
 		this.townBlock = townBlock;
-		this.endTime = System.currentTimeMillis() + TimeTools.getMillis(SiegeWarSettings.getSiegeCampDurationInMinutes() + "m");
+		this.attackerPoints = attackerPoints;
+		this.endTime = endTime;
 	}
 
 	/**
-	 * @return the player
+	 * @return the player, or null if the player is offline
 	 */
+	@Nullable
 	public Player getPlayer() {
-		return player;
+		return Bukkit.getPlayer(playerUUID);
+	}
+
+	/**
+	 * @return the UUID of the player who started the SiegeCamp
+	 */
+	public UUID getPlayerUUID() {
+		return playerUUID;
 	}
 
 	/**
@@ -121,6 +143,20 @@ public class SiegeCamp {
 		this.attackerPoints = attackerPoints;
 	}
 
+	/**
+	 * @return the time at which the SiegeCamp is next due to be evaluated
+	 */
+	public long getNextEvaluationTime() {
+		return nextEvaluationTime;
+	}
+
+	/**
+	 * @param nextEvaluationTime the time at which the SiegeCamp is next due to be evaluated
+	 */
+	public void setNextEvaluationTime(long nextEvaluationTime) {
+		this.nextEvaluationTime = nextEvaluationTime;
+	}
+
 	/**
 	 * Starts the Siege after the success of the SiegeCamp.
 	 */
@@ -152,7 +188,9 @@ public class SiegeCamp {
 					townOfSiegeStarter, 
 					!siegeType.equals(SiegeType.REVOLT));
 		} else {
-			Messaging.sendErrorMsg(player, preSiegeWarStartEvent.getCancellationMsg());
+			Player player = getPlayer();
+			if (player != null)
+				Messaging.sendErrorMsg(player, preSiegeWarStartEvent.getCancellationMsg());
 		}
 	}
 
@@ -0,0 +1,77 @@
+package com.gmail.goosius.siegewar.objects;
+
+import com.gmail.goosius.siegewar.enums.SiegeSide;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * This class represents the siege-related facts about one player death
+ *
+ * It is computed once per death by PlayerDeath.getDeathContext,
+ * and shared by the keep-inventory, inventory degradation, penalty point and firework logic.
+ */
+public class SiegeDeathContext {
+
+	private final boolean inActiveSiegeZone;
+	private final Siege zoneSiege;
+	private final SiegeSide zoneSiegeSide;
+	private final Integer zoneSiegeBalanceIfSessionEndedNow;
+	private final Siege participantSiege;
+	private final SiegeSide participantSiegeSide;
+
+	public SiegeDeathContext(boolean inActiveSiegeZone,
+							 @Nullable Siege zoneSiege, SiegeSide zoneSiegeSide, @Nullable Integer zoneSiegeBalanceIfSessionEndedNow,
+							 @Nullable Siege participantSiege, SiegeSide participantSiegeSide) {
+		this.inActiveSiegeZone = inActiveSiegeZone;
+		this.zoneSiege = zoneSiege;
+		this.zoneSiegeSide = zoneSiegeSide;
+		this.zoneSiegeBalanceIfSessionEndedNow = zoneSiegeBalanceIfSessionEndedNow;
+		this.participantSiege = participantSiege;
+		this.participantSiegeSide = participantSiegeSide;
+	}
+
+	/**
+	 * @return true if the player died in the zone of any active siege
+	 */
+	public boolean isInActiveSiegeZone() {
+		return inActiveSiegeZone;
+	}
+
+	/**
+	 * @return the nearest active siege to the death location, whether or not the player is a participant
+	 */
+	@Nullable
+	public Siege getZoneSiege() {
+		return zoneSiege;
+	}
+
+	/**
+	 * @return the player's side in the zone siege. NOBODY if there is no zone siege.
+	 */
+	public SiegeSide getZoneSiegeSide() {
+		return zoneSiegeSide;
+	}
+
+	/**
+	 * @return the balance of the zone siege if the battle session ended now.
+	 * Only computed if the player is a defender in the zone siege, otherwise null.
+	 */
+	@Nullable
+	public Integer getZoneSiegeBalanceIfSessionEndedNow() {
+		return zoneSiegeBalanceIfSessionEndedNow;
+	}
+
+	/**
+	 * @return the nearest active siege, in whose zone the player died, in which the player is an attacker or defender
+	 */
+	@Nullable
+	public Siege getParticipantSiege() {
+		return participantSiege;
+	}
+
+	/**
+	 * @return the player's side in the participant siege. NOBODY if there is no participant siege.
+	 */
+	public SiegeSide getParticipantSiegeSide() {
+		return participantSiegeSide;
+	}
+}
@@ -0,0 +1,86 @@
+package com.gmail.goosius.siegewar.objects;
+
+import com.gmail.goosius.siegewar.enums.SiegeJournalEventType;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.UUID;
+
+/**
+ * This class represents one entry in the siege journal
+ *
+ * Each record has a fixed size on disk:
+ * time (long), event type (byte), siege town uuid (2 longs), side (byte), value (int).
+ *
+ * This class deliberately has no Bukkit or Towny dependencies,
+ * so that the journal can be replayed offline.
+ */
+public class SiegeJournalRecord {
+
+	public static final int FILE_HEADER = 0x53574A01; //"SWJ", format version 1
+	public static final int RECORD_SIZE = 30;
+	public static final UUID NO_SIEGE = new UUID(0, 0);
+
+	public static final byte SIDE_NOBODY = 0;
+	public static final byte SIDE_ATTACKERS = 1;
+	public static final byte SIDE_DEFENDERS = 2;
+
+	private final long time;
+	private final SiegeJournalEventType type;
+	private final UUID siegeId;
+	private final byte side;
+	private final int value;
+
+	public SiegeJournalRecord(long time, SiegeJournalEventType type, UUID siegeId, byte side, int value) {
+		this.time = time;
+		this.type = type;
+		this.siegeId = siegeId;
+		this.side = side;
+		this.value = value;
+	}
+
+	public void writeTo(DataOutput output) throws IOException {
+		output.writeLong(time);
+		output.writeByte(type.getCode());
+		output.writeLong(siegeId.getMostSignificantBits());
+		output.writeLong(siegeId.getLeastSignificantBits());
+		output.writeByte(side);
+		output.writeInt(value);
+	}
+
+	public static SiegeJournalRecord readFrom(DataInput input) throws IOException {
+		long time = input.readLong();
+		SiegeJournalEventType type = SiegeJournalEventType.fromCode(input.readByte());
+		UUID siegeId = new UUID(input.readLong(), input.readLong());
+		byte side = input.readByte();
+		int value = input.readInt();
+		return new SiegeJournalRecord(time, type, siegeId, side, value);
+	}
+
+	public long getTime() {
+		return time;
+	}
+
+	/**
+	 * @return the event type, or null if the record was written by a newer format
+	 */
+	public SiegeJournalEventType getType() {
+		return type;
+	}
+
+	/**
+	 * @return the uuid of the besieged town, or NO_SIEGE for global events
+	 */
+	public UUID getSiegeId() {
+		return siegeId;
+	}
+
+	public byte getSide() {
+		return side;
+	}
+
+	public int getValue() {
+		return value;
+	}
+}
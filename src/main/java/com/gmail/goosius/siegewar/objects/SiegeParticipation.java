@@ -0,0 +1,32 @@
+package com.gmail.goosius.siegewar.objects;
+
+import com.gmail.goosius.siegewar.enums.SiegeSide;
+
+/**
+ * This class represents a resident's participation in the siege on their own town
+ *
+ * The side is the side of the resident's town:
+ * ATTACKERS if the town is revolting against its occupier, otherwise DEFENDERS.
+ * It does not depend on the resident's permissions,
+ * so it is not the same as SiegeSide.getPlayerSiegeSide.
+ *
+ * Instances are immutable, and are rebuilt by SiegeController when sieges or town membership change.
+ */
+public class SiegeParticipation {
+
+	private final Siege siege;
+	private final SiegeSide side;
+
+	public SiegeParticipation(Siege siege, SiegeSide side) {
+		this.siege = siege;
+		this.side = side;
+	}
+
+	public Siege getSiege() {
+		return siege;
+	}
+
+	public SiegeSide getSide() {
+		return side;
+	}
+}
@@ -0,0 +1,213 @@
+package com.gmail.goosius.siegewar.objects;
+
+import com.gmail.goosius.siegewar.enums.SiegeSide;
+import com.gmail.goosius.siegewar.enums.SiegeStatus;
+import com.gmail.goosius.siegewar.enums.SiegeType;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * This class represents a frozen, read-only view of all sieges
+ *
+ * A view is built on the main thread and then published by SiegeWarSnapshotUtil.
+ * It never changes after publication, and holds no Siege, Town or Nation objects,
+ * so it is safe to read from any thread, e.g. from async chat events.
+ *
+ * A view may be stale. See SiegeWarAPI.snapshot() for the staleness bounds.
+ */
+public class SiegeWorldView {
+
+	public static final SiegeWorldView EMPTY = new SiegeWorldView(0, false, Collections.emptyList(), Collections.emptyMap());
+
+	private final long publishedAtMillis;
+	private final boolean battleSessionActive;
+	private final List<SiegeSnapshot> sieges;
+	private final Map<UUID, SiegeSnapshot> siegesByTown;
+	private final Map<UUID, SiegeSnapshot> siegesByResident;
+	private final Set<String> namesOfSiegedTowns;
+
+	/**
+	 * @param publishedAtMillis the time the view was built
+	 * @param battleSessionActive true if a battle session was active
+	 * @param sieges the siege snapshots
+	 * @param residentTowns map of resident uuid to the uuid of their besieged town
+	 */
+	public SiegeWorldView(long publishedAtMillis, boolean battleSessionActive, Collection<SiegeSnapshot> sieges, Map<UUID, UUID> residentTowns) {
+		this.publishedAtMillis = publishedAtMillis;
+		this.battleSessionActive = battleSessionActive;
+		Map<UUID, SiegeSnapshot> byTown = new HashMap<>();
+		Set<String> townNames = new HashSet<>();
+		for (SiegeSnapshot siege : sieges) {
+			byTown.put(siege.getTownUUID(), siege);
+			townNames.add(siege.getTownName());
+		}
+		Map<UUID, SiegeSnapshot> byResident = new HashMap<>();
+		for (Map.Entry<UUID, UUID> residentTown : residentTowns.entrySet()) {
+			SiegeSnapshot siege = byTown.get(residentTown.getValue());
+			if (siege != null)
+				byResident.put(residentTown.getKey(), siege);
+		}
+		this.sieges = Collections.unmodifiableList(new ArrayList<>(sieges));
+		this.siegesByTown = Collections.unmodifiableMap(byTown);
+		this.siegesByResident = Collections.unmodifiableMap(byResident);
+		this.namesOfSiegedTowns = Collections.unmodifiableSet(townNames);
+	}
+
+	/**
+	 * @return the time this view was built, in epoch millis. 0 if nothing has been published yet.
+	 */
+	public long getPublishedAtMillis() {
+		return publishedAtMillis;
+	}
+
+	public boolean isBattleSessionActive() {
+		return battleSessionActive;
+	}
+
+	public List<SiegeSnapshot> getSieges() {
+		return sieges;
+	}
+
+	@Nullable
+	public SiegeSnapshot getSiegeOfTown(UUID townUUID) {
+		return siegesByTown.get(townUUID);
+	}
+
+	/**
+	 * @param residentUUID the resident uuid
+	 * @return the siege on the resident's town, or null if their town was not besieged
+	 */
+	@Nullable
+	public SiegeSnapshot getSiegeOfResident(UUID residentUUID) {
+		return siegesByResident.get(residentUUID);
+	}
+
+	public Set<String> getNamesOfSiegedTowns() {
+		return namesOfSiegedTowns;
+	}
+
+	/**
+	 * The state of one siege at the time the view was built.
+	 */
+	public static class SiegeSnapshot {
+		private final UUID townUUID;
+		private final String townName;
+		private final SiegeType siegeType;
+		private final SiegeStatus status;
+		private final UUID attackerUUID;
+		private final String attackerName;
+		private final UUID defenderUUID;
+		private final String defenderName;
+		private final int siegeBalance;
+		private final int attackerBattlePoints;
+		private final int defenderBattlePoints;
+		private final SiegeSide bannerControllingSide;
+		private final String worldName;
+		private final int flagX;
+		private final int flagY;
+		private final int flagZ;
+
+		public SiegeSnapshot(UUID townUUID, String townName, SiegeType siegeType, SiegeStatus status,
+							 UUID attackerUUID, String attackerName, UUID defenderUUID, String defenderName,
+							 int siegeBalance, int attackerBattlePoints, int defenderBattlePoints, SiegeSide bannerControllingSide,
+							 String worldName, int flagX, int flagY, int flagZ) {
+			this.townUUID = townUUID;
+			this.townName = townName;
+			this.siegeType = siegeType;
+			this.status = status;
+			this.attackerUUID = attackerUUID;
+			this.attackerName = attackerName;
+			this.defenderUUID = defenderUUID;
+			this.defenderName = defenderName;
+			this.siegeBalance = siegeBalance;
+			this.attackerBattlePoints = attackerBattlePoints;
+			this.defenderBattlePoints = defenderBattlePoints;
+			this.bannerControllingSide = bannerControllingSide;
+			this.worldName = worldName;
+			this.flagX = flagX;
+			this.flagY = flagY;
+			this.flagZ = flagZ;
+		}
+
+		public UUID getTownUUID() {
+			return townUUID;
+		}
+
+		public String getTownName() {
+			return townName;
+		}
+
+		public SiegeType getSiegeType() {
+			return siegeType;
+		}
+
+		public SiegeStatus getStatus() {
+			return status;
+		}
+
+		public boolean isActive() {
+			return status.isActive();
+		}
+
+		public UUID getAttackerUUID() {
+			return attackerUUID;
+		}
+
+		public String getAttackerName() {
+			return attackerName;
+		}
+
+		public UUID getDefenderUUID() {
+			return defenderUUID;
+		}
+
+		public String getDefenderName() {
+			return defenderName;
+		}
+
+		public int getSiegeBalance() {
+			return siegeBalance;
+		}
+
+		public int getAttackerBattlePoints() {
+			return attackerBattlePoints;
+		}
+
+		public int getDefenderBattlePoints() {
+			return defenderBattlePoints;
+		}
+
+		public SiegeSide getBannerControllingSide() {
+			return bannerControllingSide;
+		}
+
+		/**
+		 * @return the name of the world of the siege banner, or null if it was not loaded
+		 */
+		@Nullable
+		public String getWorldName() {
+			return worldName;
+		}
+
+		public int getFlagX() {
+			return flagX;
+		}
+
+		public int getFlagY() {
+			return flagY;
+		}
+
+		public int getFlagZ() {
+			return flagZ;
+		}
+	}
+}
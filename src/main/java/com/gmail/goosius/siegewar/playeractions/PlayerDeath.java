@@ -8,16 +8,18 @@ import com.gmail.goosius.siegewar.enums.SiegeStatus;
 import com.gmail.goosius.siegewar.enums.SiegeWarPermissionNodes;
 import com.gmail.goosius.siegewar.objects.BattleSession;
 import com.gmail.goosius.siegewar.objects.Siege;
+import com.gmail.goosius.siegewar.objects.SiegeDeathContext;
 import com.gmail.goosius.siegewar.settings.SiegeWarSettings;
 import com.gmail.goosius.siegewar.utils.CosmeticUtil;
+import com.gmail.goosius.siegewar.utils.SiegeWarBattleSessionUtil;
 import com.gmail.goosius.siegewar.utils.SiegeWarBlockUtil;
 import com.gmail.goosius.siegewar.utils.SiegeWarDistanceUtil;
 import com.gmail.goosius.siegewar.utils.SiegeWarScoringUtil;
 import com.palmergames.bukkit.towny.TownyUniverse;
 import com.palmergames.bukkit.towny.object.Resident;
-import com.palmergames.bukkit.towny.object.Town;
 import com.palmergames.bukkit.towny.object.Translatable;
 import org.bukkit.Color;
+import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.Tag;
 import org.bukkit.block.Banner;
@@ -26,6 +28,11 @@ import org.bukkit.block.BlockFace;
 import org.bukkit.entity.Player;
 import org.bukkit.event.entity.PlayerDeathEvent;
 
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * This class intercepts 'player death' events coming from the SiegeWarBukkitEventListener class.
  *
@@ -38,6 +45,66 @@ public class PlayerDeath {
 
 	private static final String NATION_POINTS_NODE = SiegeWarPermissionNodes.SIEGEWAR_NATION_SIEGE_BATTLE_POINTS.getNode();
 	private static final String TOWN_POINTS_NODE = SiegeWarPermissionNodes.SIEGEWAR_TOWN_SIEGE_BATTLE_POINTS.getNode();
+	//Death contexts computed this tick. Key is the player uuid.
+	private static final Map<UUID, SiegeDeathContext> deathContexts = new ConcurrentHashMap<>();
+
+	/**
+	 * Get the siege death context of the given player, who has just died.
+	 *
+	 * The context is computed by the first listener which asks for it,
+	 * and is then shared by the other death listeners until the end of the tick.
+	 *
+	 * @param deadPlayer the player who died
+	 * @return the death context
+	 */
+	public static SiegeDeathContext getDeathContext(Player deadPlayer) {
+		UUID playerUUID = deadPlayer.getUniqueId();
+		SiegeDeathContext deathContext = deathContexts.get(playerUUID);
+		if (deathContext == null) {
+			deathContext = computeDeathContext(deadPlayer);
+			deathContexts.put(playerUUID, deathContext);
+			SiegeWar.getSiegeWar().getScheduler().runLater(() -> deathContexts.remove(playerUUID), 1L);
+		}
+		return deathContext;
+	}
+
+	private static SiegeDeathContext computeDeathContext(Player deadPlayer) {
+		Location deathLocation = deadPlayer.getLocation();
+		List<Siege> candidateSieges = SiegeWarDistanceUtil.getCandidateSiegesAt(deathLocation);
+
+		//Nearest active siege at the death location, for the keep-inventory rules
+		boolean inActiveSiegeZone = false;
+		for (Siege candidateSiege : candidateSieges) {
+			if (candidateSiege.getStatus().isActive() && SiegeWarDistanceUtil.isInSiegeZone(deathLocation, candidateSiege)) {
+				inActiveSiegeZone = true;
+				break;
+			}
+		}
+		Siege zoneSiege = SiegeController.getActiveSiegeAtLocation(deathLocation, candidateSieges);
+		SiegeSide zoneSiegeSide = zoneSiege != null ? SiegeSide.getPlayerSiegeSide(zoneSiege, deadPlayer) : SiegeSide.NOBODY;
+		Integer zoneSiegeBalance = zoneSiegeSide == SiegeSide.DEFENDERS ? SiegeWarBattleSessionUtil.getSiegeBalanceIfSessionEndedNow(zoneSiege) : null;
+
+		//Nearest active siege in which the player is an official participant, for the penalty points
+		Siege participantSiege = null;
+		SiegeSide participantSiegeSide = SiegeSide.NOBODY;
+		double smallestDistanceToSiege = 0;
+		for (Siege candidateSiege : candidateSieges) {
+			if (!candidateSiege.getStatus().isActive() || !SiegeWarDistanceUtil.isInSiegeZone(deathLocation, candidateSiege))
+				continue;
+
+			SiegeSide candidateSiegeSide = candidateSiege == zoneSiege ? zoneSiegeSide : SiegeSide.getPlayerSiegeSide(candidateSiege, deadPlayer);
+			if (candidateSiegeSide == SiegeSide.NOBODY)
+				continue;
+
+			double candidateSiegeDistanceToPlayer = deathLocation.distance(candidateSiege.getFlagLocation());
+			if (participantSiege == null || candidateSiegeDistanceToPlayer < smallestDistanceToSiege) {
+				participantSiege = candidateSiege;
+				participantSiegeSide = candidateSiegeSide;
+				smallestDistanceToSiege = candidateSiegeDistanceToPlayer;
+			}
+		}
+		return new SiegeDeathContext(inActiveSiegeZone, zoneSiege, zoneSiegeSide, zoneSiegeBalance, participantSiege, participantSiegeSide);
+	}
 
 	/**
 	 * Evaluates a siege death event.
@@ -65,8 +132,8 @@ public class PlayerDeath {
 			if (deadResident == null || !deadResident.hasTown() || playerIsMissingSiegePointsNodes(deadPlayer))
 				return;
 
-			Town deadResidentTown = deadResident.getTownOrNull();
-			Siege siege = findNearbyActiveSiegeWherePlayerIsParticipant(deadPlayer, deadResidentTown);
+			SiegeDeathContext deathContext = getDeathContext(deadPlayer);
+			Siege siege = deathContext.getParticipantSiege();
 
 			// If player is confirmed as close to one or more sieges in which they are
 			// eligible to be involved, apply siege point penalty for the nearest one
@@ -74,7 +141,7 @@ public class PlayerDeath {
 				//Award penalty points w/ notification if siege is in progress
 				if(siege.getStatus() == SiegeStatus.IN_PROGRESS) {
 					spawnFireWork(deadPlayer, siege);
-					tryAwardingPoints(deadPlayer, deadResidentTown, siege);
+					tryAwardingPoints(deadPlayer, deathContext.getParticipantSiegeSide(), siege);
 				}
 				// This might be outside of the IN_PROGRESS if statement because players could
 				// be in a BCS and the SiegeStatus changes.
@@ -95,41 +162,15 @@ public class PlayerDeath {
 			&& !TownyUniverse.getInstance().getPermissionSource().testPermission(deadPlayer, NATION_POINTS_NODE);
 	}
 
-	private static Siege findNearbyActiveSiegeWherePlayerIsParticipant(Player deadPlayer, Town deadResidentTown) {
-		Siege nearestSiege = null;
-		double smallestDistanceToSiege = 0;
-
-		//Find nearest eligible siege
-		for (Siege candidateSiege : SiegeController.getSieges()) {
-
-			//Skip if siege is not active
-			if (!candidateSiege.getStatus().isActive())
-				continue;
-
-			//Skip if player is not is siege-zone
-			if(!SiegeWarDistanceUtil.isInSiegeZone(deadPlayer, candidateSiege))
-				continue;
-
-			//Skip if player is not an official attacker or defender in siege
-			if(SiegeSide.getPlayerSiegeSide(candidateSiege, deadPlayer) == SiegeSide.NOBODY)
-				continue;
-
-			//Set nearestSiege if it is 1st viable one OR closer than smallestDistanceToSiege.
-			double candidateSiegeDistanceToPlayer = deadPlayer.getLocation().distance(candidateSiege.getFlagLocation());
-			if (nearestSiege == null || candidateSiegeDistanceToPlayer < smallestDistanceToSiege) {
-				nearestSiege = candidateSiege;
-				smallestDistanceToSiege = candidateSiegeDistanceToPlayer;
-			}
-		}
-		return nearestSiege;
-	}
-
 	private static void spawnFireWork(Player deadPlayer, Siege siege) {
 		if (SiegeWarSettings.getWarSiegeDeathSpawnFireworkEnabled()) {
+			Location fireworkLocation = deadPlayer.getLocation().add(0, 2, 0);
+			if (!CosmeticUtil.tryReserveDeathFirework(deadPlayer, siege, fireworkLocation))
+				return;
 			if (isBannerMissing(siege.getFlagBlock()))
 				replaceMissingBanner(siege.getFlagBlock());
 			Color bannerColor = ((Banner) siege.getFlagBlock().getState()).getBaseColor().getColor();
-			CosmeticUtil.spawnFirework(deadPlayer.getLocation().add(0, 2, 0), Color.RED, bannerColor, true);
+			CosmeticUtil.spawnFirework(fireworkLocation, Color.RED, bannerColor, true);
 		}
 	}
 
@@ -144,13 +185,10 @@ public class PlayerDeath {
 		block.setType(Material.BLACK_BANNER);
 	}
 
-	private static void tryAwardingPoints(Player deadPlayer, Town deadResidentTown, Siege siege) {
+	private static void tryAwardingPoints(Player deadPlayer, SiegeSide deadPlayerSide, Siege siege) {
 		//No penalty points without an active battle session
 		if (BattleSession.getBattleSession().isActive()) {
-			SiegeWarScoringUtil.awardPenaltyPoints(
-					SiegeSide.getPlayerSiegeSide(siege, deadPlayer) == SiegeSide.ATTACKERS,
-					deadPlayer,
-					siege);
+			SiegeWarScoringUtil.awardPenaltyPoints(deadPlayerSide == SiegeSide.ATTACKERS, siege);
 		}
 	}
 
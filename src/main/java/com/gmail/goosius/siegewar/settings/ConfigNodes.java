@@ -355,6 +355,13 @@ public enum ConfigNodes {
 			"# The radius of the 'siege zone'.",
 			"# This radius applies only horizontally, so players can never get above a siegezone (e.g. to place lava there or something).",
 			"# Various siege related effects can apply in this zone e.g. lose points on death, cannot TP in, cannot claim."),
+	WAR_SIEGE_ZONE_PROXIMITY_WARNING_BUFFER_BLOCKS(
+			"war.siege.distances.siegezone_proximity_warning_buffer_blocks",
+			"32",
+			"",
+			"# The width of the warning ring around the 'siege zone'.",
+			"# Players get a siege-zone warning when they enter this ring, i.e. when they come within (siegezone radius + this value) of a siege banner.",
+			"# A player is warned only once per siege, until they leave the ring and come back."),
 	WAR_SIEGE_BANNER_CONTROL_SESSION_RADIUS_BLOCKS(
 			"war.siege.distances.banner_control_session_radius_blocks",
 			"-1",
@@ -551,6 +558,27 @@ public enum ConfigNodes {
 			"true",
 			"",
 			"# If enabled, a firework will get spawned whenever a player dies inside a siege zone."),
+	WAR_SIEGE_DEATH_FIREWORK_COALESCE_RADIUS_BLOCKS(
+			"war.siege.death.firework_coalesce_radius_blocks",
+			"8",
+			"",
+			"# Deaths within this many blocks of a death which already spawned a firework in the same tick do not spawn another one.",
+			"# This stops a mass death (e.g. from TNT) from spawning dozens of fireworks in one place."),
+	WAR_SIEGE_DEATH_FIREWORK_MAX_PER_SIEGE_PER_TICK(
+			"war.siege.death.firework_max_per_siege_per_tick",
+			"3",
+			"",
+			"# The maximum number of death fireworks spawned for each siege in one tick."),
+	WAR_SIEGE_DEATH_FIREWORK_MAX_PER_CHUNK_PER_TICK(
+			"war.siege.death.firework_max_per_chunk_per_tick",
+			"1",
+			"",
+			"# The maximum number of death fireworks spawned in each chunk in one tick."),
+	WAR_SIEGE_DEATH_FIREWORK_REQUIRES_NEARBY_VIEWER(
+			"war.siege.death.firework_requires_nearby_viewer",
+			"true",
+			"",
+			"# If enabled, a death firework is only spawned if another player, who is not vanished, is within the server view distance at the time of the death."),
 	PEACEFUL_TOWNS(
 			"peaceful_towns",
 			"",
@@ -1195,7 +1223,82 @@ public enum ConfigNodes {
 			"# If this value is true, then the Siege Lore feature is enabled.",
 			"# When a banner is broken after a siege has ended, it will drop with a name and lore set to display info about the siege.",
 			"# Banners dropped from this feature can be placed and broken without losing lore, but can not be used to begin a new siege.",
-			"# Shields can be crafted from the lore banners and will inherit the lore and name from the banner.");
+			"# Shields can be crafted from the lore banners and will inherit the lore and name from the banner."),
+	PERFORMANCE_TIMINGS(
+			"performance_timings",
+			"",
+			"",
+			"",
+			"############################################################",
+			"# +------------------------------------------------------+ #",
+			"# |                 PERFORMANCE TIMINGS                  | #",
+			"# +------------------------------------------------------+ #",
+			"############################################################",
+			""),
+	PERFORMANCE_TIMINGS_EXPORT_ENABLED(
+			"performance_timings.export_enabled",
+			"false",
+			"",
+			"# SiegeWar always records how long each of its timer-task stages and heavy listeners take.",
+			"# The timings can be viewed with /swa perf.",
+			"# If this value is true, the timings are also written to plugins/SiegeWar/siegewar_timings.prom,",
+			"# in Prometheus text format, e.g. for the node exporter textfile collector."),
+	PERFORMANCE_TIMINGS_EXPORT_INTERVAL_SECONDS(
+			"performance_timings.export_interval_seconds",
+			"60",
+			"",
+			"# How often the timings file is written.",
+			"# A change to this value takes effect after a server restart."),
+	SIEGE_JOURNAL(
+			"siege_journal",
+			"",
+			"",
+			"",
+			"############################################################",
+			"# +------------------------------------------------------+ #",
+			"# |                    SIEGE JOURNAL                     | #",
+			"# +------------------------------------------------------+ #",
+			"############################################################",
+			""),
+	SIEGE_JOURNAL_ENABLED(
+			"siege_journal.enabled",
+			"true",
+			"",
+			"# If this value is true, siege events are written to an append-only binary journal in plugins/SiegeWar/journal.",
+			"# Events journalled: battle session start and end, banner control gained and lost, banner control points,",
+			"# death penalty points, battle results, and siege outcomes.",
+			"# The journal can be checked against the live sieges with /swa journal verify,",
+			"# or replayed offline with: java -cp SiegeWar.jar com.gmail.goosius.siegewar.utils.SiegeWarJournalReplayer plugins/SiegeWar/journal",
+			"# A change to the journal settings takes effect after a server restart."),
+	SIEGE_JOURNAL_MAX_FILE_SIZE_KB(
+			"siege_journal.max_file_size_kb",
+			"8192",
+			"",
+			"# When the active journal file reaches this size, it is rotated."),
+	SIEGE_JOURNAL_MAX_ROTATED_FILES(
+			"siege_journal.max_rotated_files",
+			"4",
+			"",
+			"# The number of rotated journal files to keep. Older files are deleted."),
+	SIEGE_HISTORY(
+			"siege_history",
+			"",
+			"",
+			"",
+			"############################################################",
+			"# +------------------------------------------------------+ #",
+			"# |                    SIEGE HISTORY                     | #",
+			"# +------------------------------------------------------+ #",
+			"############################################################",
+			""),
+	SIEGE_HISTORY_ENABLED(
+			"siege_history.enabled",
+			"true",
+			"",
+			"# If this value is true, completed sieges and the result of each battle are stored",
+			"# in a local SQLite database, plugins/SiegeWar/siege_history.db.",
+			"# Players can view the history with /sw history.",
+			"# A change to this value takes effect after a server restart.");
 	private final String Root;
 	private final String Default;
 	private String[] comments;
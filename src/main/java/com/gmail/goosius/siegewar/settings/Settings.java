@@ -12,6 +12,7 @@ import java.util.regex.Pattern;
 import org.bukkit.plugin.Plugin;
 
 import com.gmail.goosius.siegewar.SiegeWar;
+import com.gmail.goosius.siegewar.objects.BattleSession;
 import com.gmail.goosius.siegewar.utils.FileMgmt;
 import com.gmail.goosius.siegewar.utils.SiegeWarBattleSessionUtil;
 import com.gmail.goosius.siegewar.utils.SiegeWarBlockProtectionUtil;
@@ -45,6 +46,7 @@ public class Settings {
 		
 		// Some list variables do not reload upon loadConfig.
 		SiegeWarSettings.resetCachedSettings();
+		BattleSession.getBattleSession().publishChatRestriction();
 		
 		try {
 			Plugin plugin = SiegeWar.getSiegeWar(); 
@@ -128,6 +128,10 @@ public class SiegeWarSettings {
 		return Settings.getInt(ConfigNodes.WAR_SIEGE_ZONE_RADIUS_BLOCKS);
 	}
 
+	public static int getWarSiegeZoneProximityWarningRadiusBlocks() {
+		return getWarSiegeZoneRadiusBlocks() + Math.max(0, Settings.getInt(ConfigNodes.WAR_SIEGE_ZONE_PROXIMITY_WARNING_BUFFER_BLOCKS));
+	}
+
 	public static int getWarSiegeBannerControlSessionRadiusBlocks() {
 		int radius = Settings.getInt(ConfigNodes.WAR_SIEGE_BANNER_CONTROL_SESSION_RADIUS_BLOCKS);
 		return radius < 0 ? TownySettings.getTownBlockSize() : radius;
@@ -291,6 +295,22 @@ public class SiegeWarSettings {
 		return Settings.getBoolean(ConfigNodes.WAR_SIEGE_DEATH_SPAWN_FIREWORK);
 	}
 
+	public static int getWarSiegeDeathFireworkCoalesceRadiusBlocks() {
+		return Settings.getInt(ConfigNodes.WAR_SIEGE_DEATH_FIREWORK_COALESCE_RADIUS_BLOCKS);
+	}
+
+	public static int getWarSiegeDeathFireworkMaxPerSiegePerTick() {
+		return Settings.getInt(ConfigNodes.WAR_SIEGE_DEATH_FIREWORK_MAX_PER_SIEGE_PER_TICK);
+	}
+
+	public static int getWarSiegeDeathFireworkMaxPerChunkPerTick() {
+		return Settings.getInt(ConfigNodes.WAR_SIEGE_DEATH_FIREWORK_MAX_PER_CHUNK_PER_TICK);
+	}
+
+	public static boolean isWarSiegeDeathFireworkRequiresNearbyViewer() {
+		return Settings.getBoolean(ConfigNodes.WAR_SIEGE_DEATH_FIREWORK_REQUIRES_NEARBY_VIEWER);
+	}
+
 	public static boolean getBeaconsEnabled() {
 		return Settings.getBoolean(ConfigNodes.BEACON_MARKERS_ENABLED);
 	}
@@ -632,6 +652,30 @@ public class SiegeWarSettings {
 		return Settings.getBoolean(ConfigNodes.SIEGE_LORE_ENABLED);
 	}
 
+	public static boolean isPerformanceTimingsExportEnabled() {
+		return Settings.getBoolean(ConfigNodes.PERFORMANCE_TIMINGS_EXPORT_ENABLED);
+	}
+
+	public static int getPerformanceTimingsExportIntervalSeconds() {
+		return Settings.getInt(ConfigNodes.PERFORMANCE_TIMINGS_EXPORT_INTERVAL_SECONDS);
+	}
+
+	public static boolean isSiegeJournalEnabled() {
+		return Settings.getBoolean(ConfigNodes.SIEGE_JOURNAL_ENABLED);
+	}
+
+	public static int getSiegeJournalMaxFileSizeKb() {
+		return Settings.getInt(ConfigNodes.SIEGE_JOURNAL_MAX_FILE_SIZE_KB);
+	}
+
+	public static int getSiegeJournalMaxRotatedFiles() {
+		return Settings.getInt(ConfigNodes.SIEGE_JOURNAL_MAX_ROTATED_FILES);
+	}
+
+	public static boolean isSiegeHistoryEnabled() {
+		return Settings.getBoolean(ConfigNodes.SIEGE_HISTORY_ENABLED);
+	}
+
 	public static String getDynmapLayerName() {
 		return Settings.getString(ConfigNodes.WAR_SIEGE_DYNMAP_LAYER_NAME);
 	}
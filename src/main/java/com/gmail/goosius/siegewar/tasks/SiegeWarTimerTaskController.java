@@ -1,6 +1,7 @@
 package com.gmail.goosius.siegewar.tasks;
 
 import com.gmail.goosius.siegewar.SiegeController;
+import com.gmail.goosius.siegewar.SiegeWar;
 import com.gmail.goosius.siegewar.metadata.TownMetaDataController;
 import com.gmail.goosius.siegewar.objects.Siege;
 import com.gmail.goosius.siegewar.playeractions.AbandonAttack;
@@ -10,15 +11,26 @@ import com.gmail.goosius.siegewar.utils.SiegeWarBannerControlUtil;
 import com.gmail.goosius.siegewar.utils.SiegeWarBattleSessionUtil;
 import com.gmail.goosius.siegewar.utils.SiegeWarSicknessUtil;
 import com.gmail.goosius.siegewar.utils.CosmeticUtil;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * This class intercepts siege related instructions coming from timer tasks.
  * and takes action as appropriate
  *
+ * On Folia, per-siege work is dispatched to the region which owns the siege banner,
+ * and per-player work is dispatched to the player's own scheduler.
+ * On Bukkit, all work runs inline on the main thread, as before.
+ *
  * @author Goosius
  */
 public class SiegeWarTimerTaskController {
 
+	private static final boolean FOLIA = SiegeWar.isFoliaClassPresent();
+
 	/**
 	 * Evaluate timed siege outcomes
 	 * e.g. who wins if siege victory timer runs out ?
@@ -77,7 +89,7 @@ public class SiegeWarTimerTaskController {
 	 */
 	public static void evaluateBannerControl() {
 		for (Siege siege : SiegeController.getSieges()) {
-			SiegeWarBannerControlUtil.evaluateBannerControl(siege);
+			runForSiege(siege, () -> SiegeWarBannerControlUtil.evaluateBannerControl(siege));
 		}
 	}
 
@@ -87,11 +99,62 @@ public class SiegeWarTimerTaskController {
 
 
 	public static void evaluateWarSickness() {
-		SiegeWarSicknessUtil.evaluateWarSickness();
+		boolean nonOfficialLimiterEnabled = SiegeWarSettings.getPunishingNonSiegeParticipantsInSiegeZone();
+		for (Player player : Bukkit.getOnlinePlayers()) {
+			runForPlayer(player, () -> SiegeWarSicknessUtil.evaluateWarSickness(player, nonOfficialLimiterEnabled));
+		}
 	}
 
 	public static void evaluateBeacons() {
-		if (SiegeWarSettings.getBeaconsEnabled())
-			CosmeticUtil.evaluateBeacons();
+		if (!SiegeWarSettings.getBeaconsEnabled())
+			return;
+		List<Siege> activeSieges = new ArrayList<>();
+		for (Siege siege : SiegeController.getSieges()) {
+			if (siege.getStatus().isActive())
+				activeSieges.add(siege);
+		}
+		if (activeSieges.isEmpty())
+			return;
+		for (Player player : Bukkit.getOnlinePlayers()) {
+			runForPlayer(player, () -> CosmeticUtil.evaluateBeacons(player, activeSieges));
+		}
+	}
+
+	/**
+	 * Run work which touches the blocks and players around a siege banner.
+	 *
+	 * @param siege the siege
+	 * @param task the work
+	 */
+	public static void runForSiege(Siege siege, Runnable task) {
+		if (FOLIA)
+			SiegeWar.getSiegeWar().getScheduler().run(siege.getFlagLocation(), task);
+		else
+			task.run();
+	}
+
+	/**
+	 * Run work which touches a single player.
+	 *
+	 * @param player the player
+	 * @param task the work
+	 */
+	public static void runForPlayer(Player player, Runnable task) {
+		if (FOLIA)
+			SiegeWar.getSiegeWar().getScheduler().run(player, task);
+		else
+			task.run();
+	}
+
+	/**
+	 * Run work which touches cross-siege state, e.g. merging the results of many sieges.
+	 *
+	 * @param task the work
+	 */
+	public static void runGlobal(Runnable task) {
+		if (FOLIA)
+			SiegeWar.getSiegeWar().getScheduler().run(task);
+		else
+			task.run();
 	}
 }
@@ -19,6 +19,13 @@ import org.bukkit.entity.Entity;
 import org.bukkit.entity.Firework;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.meta.FireworkMeta;
+import org.bukkit.metadata.MetadataValue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
 /**
  * Util class for everything fancy.
@@ -26,16 +33,27 @@ import org.bukkit.inventory.meta.FireworkMeta;
  * @author Warriorrrr
  */
 public class CosmeticUtil {
-	public static void evaluateBeacons() {
-		for (Player player : Bukkit.getOnlinePlayers()) {
-            for (Siege siege : SiegeController.getSieges()) {
-				if (!siege.getStatus().isActive())
-					continue;
-				
-                if (SiegeWarDistanceUtil.isInSiegeZone((Entity) player, siege))
-                    evaluateBeacon(player, siege);
-            }
-        }
+	/*
+	 * Death fireworks reserved in the current tick.
+	 * Cleared at the start of the next tick.
+	 */
+	private static final List<Location> deathFireworksThisTick = new ArrayList<>();
+	private static final Map<Siege, Integer> deathFireworksThisTickBySiege = new HashMap<>();
+	//Key of outer map is the world UUID. Key of inner map is the packed chunk coordinate.
+	private static final Map<UUID, Map<Long, Integer>> deathFireworksThisTickByChunk = new HashMap<>();
+	private static boolean deathFireworkResetScheduled = false;
+
+	/**
+	 * Evaluate the beacons shown to one player
+	 *
+	 * @param player the player
+	 * @param activeSieges the currently active sieges
+	 */
+	public static void evaluateBeacons(Player player, List<Siege> activeSieges) {
+		for (Siege siege : activeSieges) {
+			if (SiegeWarDistanceUtil.isInSiegeZone((Entity) player, siege))
+				evaluateBeacon(player, siege);
+		}
 	}
 
 	public static void removeFakeBeacons(Siege siege) {
@@ -144,6 +162,79 @@ public class CosmeticUtil {
 		});
     }
 
+	/**
+	 * Reserve a death firework at the given location, if the per-tick effect budget allows it.
+	 *
+	 * The firework is refused if:
+	 * - Another death firework was reserved nearby in this tick (the deaths are coalesced into one firework).
+	 * - The siege or the chunk has used up its fireworks for this tick.
+	 * - Nobody who is not vanished, other than the dead player, is within view distance right now.
+	 *
+	 * @param deadPlayer the player who died
+	 * @param siege the siege
+	 * @param location the firework location
+	 * @return true if the firework should be spawned
+	 */
+	public static synchronized boolean tryReserveDeathFirework(Player deadPlayer, Siege siege, Location location) {
+		if (!deathFireworkResetScheduled) {
+			deathFireworkResetScheduled = true;
+			SiegeWar.getSiegeWar().getScheduler().runLater(CosmeticUtil::resetDeathFireworkBudget, 1L);
+		}
+
+		int coalesceRadius = SiegeWarSettings.getWarSiegeDeathFireworkCoalesceRadiusBlocks();
+		for (Location reservedLocation : deathFireworksThisTick) {
+			if (reservedLocation.getWorld().equals(location.getWorld())
+					&& reservedLocation.distanceSquared(location) <= (double) coalesceRadius * coalesceRadius)
+				return false;
+		}
+
+		if (deathFireworksThisTickBySiege.getOrDefault(siege, 0) >= SiegeWarSettings.getWarSiegeDeathFireworkMaxPerSiegePerTick())
+			return false;
+
+		Map<Long, Integer> worldFireworks = deathFireworksThisTickByChunk.computeIfAbsent(location.getWorld().getUID(), k -> new HashMap<>());
+		long chunkKey = SiegeWarDistanceUtil.getChunkKey(location.getBlockX() >> 4, location.getBlockZ() >> 4);
+		if (worldFireworks.getOrDefault(chunkKey, 0) >= SiegeWarSettings.getWarSiegeDeathFireworkMaxPerChunkPerTick())
+			return false;
+
+		if (SiegeWarSettings.isWarSiegeDeathFireworkRequiresNearbyViewer() && !hasViewerNear(deadPlayer, location))
+			return false;
+
+		deathFireworksThisTick.add(location);
+		deathFireworksThisTickBySiege.merge(siege, 1, Integer::sum);
+		worldFireworks.merge(chunkKey, 1, Integer::sum);
+		return true;
+	}
+
+	private static synchronized void resetDeathFireworkBudget() {
+		deathFireworksThisTick.clear();
+		deathFireworksThisTickBySiege.clear();
+		deathFireworksThisTickByChunk.clear();
+		deathFireworkResetScheduled = false;
+	}
+
+	/*
+	 * View distance is a square of chunk columns, so the search box is view distance wide and covers the full world height.
+	 * This is a live query of the world around the death, which runs on the thread owning that location.
+	 * On Folia, the world query only returns entities owned by the current region,
+	 * so the metadata of the players it finds is safe to read here.
+	 */
+	private static boolean hasViewerNear(Player deadPlayer, Location location) {
+		double horizontalRadius = Bukkit.getViewDistance() * 16;
+		return !location.getWorld().getNearbyEntities(location, horizontalRadius, location.getWorld().getMaxHeight(), horizontalRadius,
+				entity -> entity instanceof Player && entity != deadPlayer && !isVanished((Player) entity)).isEmpty();
+	}
+
+	/*
+	 * Vanish plugins (e.g. Essentials, SuperVanish) mark vanished players with "vanished" metadata.
+	 */
+	private static boolean isVanished(Player player) {
+		for (MetadataValue value : player.getMetadata("vanished")) {
+			if (value.asBoolean())
+				return true;
+		}
+		return false;
+	}
+
     /*
 	public static SiegeSide getSiegeSide(Resident resident, Siege siege) {
 		if (!resident.hasTown())
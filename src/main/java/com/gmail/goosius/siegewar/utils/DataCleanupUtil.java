@@ -75,6 +75,7 @@ public class DataCleanupUtil {
             int numBattlesUpdated = 0;
             for(Siege siege: siegesWithUnresolvedBattles) {
                 siege.adjustSiegeBalance(siege.getAttackerBattlePoints() - siege.getDefenderBattlePoints());
+                SiegeWarJournal.logBattleResult(siege, siege.getAttackerBattlePoints() - siege.getDefenderBattlePoints());
                 siege.setAttackerBattlePoints(0);
                 siege.setDefenderBattlePoints(0);
                 SiegeController.saveSiege(siege);
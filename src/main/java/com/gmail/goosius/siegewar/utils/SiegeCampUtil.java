@@ -1,10 +1,15 @@
 package com.gmail.goosius.siegewar.utils;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
 import org.bukkit.Bukkit;
 import org.bukkit.GameMode;
+import org.bukkit.World;
+import org.bukkit.block.Block;
 import org.bukkit.entity.Player;
 
 import com.gmail.goosius.siegewar.Messaging;
@@ -20,29 +25,68 @@ import com.palmergames.bukkit.towny.object.Government;
 import com.palmergames.bukkit.towny.object.Nation;
 import com.palmergames.bukkit.towny.object.Resident;
 import com.palmergames.bukkit.towny.object.Town;
+import com.palmergames.bukkit.towny.object.TownBlock;
 import com.palmergames.bukkit.towny.object.Translatable;
-import com.palmergames.util.StringMgmt;
+import com.palmergames.bukkit.towny.object.WorldCoord;
 import com.palmergames.util.TimeMgmt;
+import org.jetbrains.annotations.Nullable;
 
 public class SiegeCampUtil {
 
+	public static final long CAMP_EVALUATION_INTERVAL_MILLIS = 60000;
+	private static final long CAMP_TASK_PERIOD_TICKS = 20;
+	private static final long CAMP_SAVE_INTERVAL_MILLIS = 300000;
+
+	//Key is the target town UUID. Value maps the UUID of each town with a failed camp to the end of its cooldown.
+	//Camps fail on region threads when running on Folia, so the inner maps are concurrent too.
+	private static final Map<UUID, Map<UUID, Long>> failedCampRegistry = new ConcurrentHashMap<>();
+	//Camps whose points changed since they were last saved
+	private static final Set<SiegeCamp> unsavedCamps = ConcurrentHashMap.newKeySet();
+	private static long nextCampSaveTime = 0;
+
+	/**
+	 * Start the single repeating task which evaluates all {@link SiegeCamp}s.
+	 * 
+	 * The task runs every second, and evaluates each camp which is due,
+	 * so every camp is still evaluated once a minute from the time it began.
+	 * Every 5 minutes it also saves the camps whose points have changed.
+	 */
+	public static void startSiegeCampTask() {
+		SiegeWar.getSiegeWar().getScheduler().runRepeating(SiegeCampUtil::evaluateDueCamps, CAMP_TASK_PERIOD_TICKS, CAMP_TASK_PERIOD_TICKS);
+	}
+
+	private static void evaluateDueCamps() {
+		long now = System.currentTimeMillis();
+		if (now >= nextCampSaveTime) {
+			nextCampSaveTime = now + CAMP_SAVE_INTERVAL_MILLIS;
+			saveUnsavedSiegeCamps();
+		}
+		for (SiegeCamp camp : SiegeController.getSiegeCamps()) {
+			if (camp.getNextEvaluationTime() > now)
+				continue;
+			camp.setNextEvaluationTime(now + CAMP_EVALUATION_INTERVAL_MILLIS);
+			// Evaluate on the thread which owns the camp's location (matters on Folia).
+			SiegeWar.getSiegeWar().getScheduler().run(camp.getBannerBlock().getLocation(), () -> evaluateCamp(camp));
+		}
+	}
+
 	/**
 	 * Evaluates a {@link SiegeCamp}.
 	 * @param camp SiegeCamp to evaluate.
-	 * @param firstRun true causes it to skip scoring points. 
 	 */
-	public static void evaluateCamp(SiegeCamp camp, boolean firstRun) {
-		if (SiegeWarDistanceUtil.isLocationInActiveSiegeZone(camp.getBannerBlock().getLocation())) {
+	public static void evaluateCamp(SiegeCamp camp) {
+		if (!SiegeController.getSiegeCamps().contains(camp)) {
+			// The camp was removed after this evaluation was scheduled.
+			return;
+		} else if (SiegeWarDistanceUtil.isLocationInActiveSiegeZone(camp.getBannerBlock().getLocation())) {
 			// Stop if a Siege has begun in the area, shouldn't happen but you never know.
 			SiegeController.removeSiegeCamp(camp);
 		} else if (camp.getEndTime() < System.currentTimeMillis()) {
 			// If the time duration of a SiegeCamp has passed, finish the SiegeCamp by evaluating the attacker's points.
 			finishSiegeCamp(camp);
 		} else {
-			// SiegeCamp is ongoing, evaluate players around the SiegeCamp and reschedule the next evaluation in one minute.
-			if (!firstRun)
-				evaluatePlayers(camp);
-			SiegeWar.getSiegeWar().getScheduler().runLater(camp.getBannerBlock().getLocation(), ()-> evaluateCamp(camp, false), 1200l);
+			// SiegeCamp is ongoing, evaluate players around the SiegeCamp.
+			evaluatePlayers(camp);
 		}	
 	}
 
@@ -78,6 +122,7 @@ public class SiegeCampUtil {
 
 			// At least one attacker is present, give attacker points and break out of the loop.
 			camp.setAttackerPoints(camp.getAttackerPoints() + SiegeWarSettings.getSiegeCampPointsPerMinute());
+			unsavedCamps.add(camp);
 			Messaging.sendGlobalMessage(Translatable.of("attackers_scored_points_towards_siege_camp_x_of_x", camp.getTownOfSiegeStarter(), camp.getAttackerPoints(), SiegeWarSettings.getSiegeCampPointsForSuccess()));
 			break;
 		}
@@ -89,6 +134,8 @@ public class SiegeCampUtil {
 	 * @param camp {@link SiegeCamp} to finish.
 	 */
 	private static void finishSiegeCamp(SiegeCamp camp) {
+		// Remove the SiegeCamp.
+		SiegeController.removeSiegeCamp(camp);
 
 		if (camp.getAttackerPoints() >= SiegeWarSettings.getSiegeCampPointsForSuccess()) {
 
@@ -114,20 +161,8 @@ public class SiegeCampUtil {
 			else if (attacker instanceof Nation)
 				TownyMessaging.sendPrefixedNationMessage((Nation) attacker, Translatable.of("msg_err_your_siegecamp_failed_you_must_wait_x", TimeMgmt.formatCountdownTime(SiegeWarSettings.getFailedSiegeCampCooldown())));
 
-			String failedCamps = TownMetaDataController.getFailedSiegeCampList(camp.getTargetTown());
 			long endTime = (System.currentTimeMillis() + (SiegeWarSettings.getFailedSiegeCampCooldown() * 1000));
-			if (failedCamps == null || failedCamps.isEmpty()) {
-				// No metadata, start a new failedCamps string.
-				failedCamps = camp.getTargetTown().getUUID() + ":" + endTime;
-			} else {
-				// This target town already had at least one failed siegecamp.
-				failedCamps += "," + camp.getTargetTown().getUUID() + ":" + endTime;
-			}
-
-			// Set the metadata on the target town.
-			TownMetaDataController.setFailedCampSiegeList(camp.getTargetTown(), failedCamps);
-			// Remove the SiegeCamp.
-			SiegeController.removeSiegeCamp(camp);
+			addFailedCamp(camp.getTargetTown(), camp.getTownOfSiegeStarter(), endTime);
 		}
 	}
 	
@@ -135,42 +170,198 @@ public class SiegeCampUtil {
 	 * Does this {@link Town} have a failed {@link SiegeCamp} from the given
 	 * siegeCandidate town?
 	 * 
-	 * Evaluates a town's metadata for failed SiegeCamps, creating new metadata
-	 * during the evaluation (clearing out any out-dated entries as it goes.)
+	 * Expired entries are ignored here, and removed later by {@link #pruneExpiredFailedCamps()}.
 	 * 
-	 * @param town           {@link Town} to check for failed SiegeCamp metas.
+	 * @param town           {@link Town} to check for failed SiegeCamps.
 	 * @param siegeCandidate {@link Town} which is trying to start a Siege via a
 	 *                       SiegeCamp.
 	 */
 	public static boolean hasFailedCamp(Town town, Town siegeCandidate) {
+		Long endTime = getFailedCamps(town).get(siegeCandidate.getUUID());
+		return endTime != null && endTime > System.currentTimeMillis();
+	}
+
+	/**
+	 * Record a failed {@link SiegeCamp} on the given town, and save it to the town metadata.
+	 * 
+	 * @param town           {@link Town} which was the target of the SiegeCamp.
+	 * @param siegeCandidate {@link Town} which started the SiegeCamp.
+	 * @param endTime        time at which the siegeCandidate may camp the town again.
+	 */
+	private static void addFailedCamp(Town town, Town siegeCandidate, long endTime) {
+		//Computed on the registry, so that pruning cannot drop the town's map while the camp is added
+		Map<UUID, Long> failedCamps = failedCampRegistry.compute(town.getUUID(), (uuid, camps) -> {
+			if (camps == null)
+				camps = loadFailedCamps(town);
+			camps.put(siegeCandidate.getUUID(), endTime);
+			return camps;
+		});
+		saveFailedCamps(town, failedCamps);
+	}
+
+	/**
+	 * Remove expired failed SiegeCamps from every town.
+	 * Only towns whose registry changed have their metadata rewritten.
+	 */
+	public static void pruneExpiredFailedCamps() {
+		long now = System.currentTimeMillis();
+		Iterator<Map.Entry<UUID, Map<UUID, Long>>> registryItr = failedCampRegistry.entrySet().iterator();
+		while (registryItr.hasNext()) {
+			Map.Entry<UUID, Map<UUID, Long>> entry = registryItr.next();
+			Town town = TownyAPI.getInstance().getTown(entry.getKey());
+			if (town == null) {
+				registryItr.remove();
+				continue;
+			}
+			Map<UUID, Long> failedCamps = entry.getValue();
+			if (failedCamps.values().removeIf(endTime -> endTime <= now))
+				saveFailedCamps(town, failedCamps);
+			failedCampRegistry.computeIfPresent(entry.getKey(), (uuid, camps) -> camps.isEmpty() ? null : camps);
+		}
+	}
+
+	public static void clearFailedCamps() {
+		failedCampRegistry.clear();
+	}
+
+	/*
+	 * Get the failed camps of the town, reading the town metadata on first access only.
+	 */
+	private static Map<UUID, Long> getFailedCamps(Town town) {
+		return failedCampRegistry.computeIfAbsent(town.getUUID(), uuid -> loadFailedCamps(town));
+	}
+
+	private static Map<UUID, Long> loadFailedCamps(Town town) {
+		Map<UUID, Long> failedCamps = new ConcurrentHashMap<>();
 		String failedSiegeCamps = TownMetaDataController.getFailedSiegeCampList(town);
 		// No metadata, so no failed camps.
 		if (failedSiegeCamps == null || failedSiegeCamps.isEmpty())
-			return false;
-		boolean hasFailedCamp = false;
-		List<String> validFailedSiegeCampList = new ArrayList<>();
+			return failedCamps;
 		// meta data is stored like so: townUUID:time,townUUID:time,townUUID:time 
-		String[] failedCamps = failedSiegeCamps.split(",");
-		for (String campString : failedCamps) {
+		for (String campString : failedSiegeCamps.split(",")) {
 			String[] UUIDAndTime = campString.split(":");
-			UUID uuid = getUUID(UUIDAndTime[0]);
-			long time = Long.parseLong(UUIDAndTime[1]);
-			// This campString is not expired, add it to the validFailedSiegeCampList and check if our siegeCandidate is here.
-			if (time > System.currentTimeMillis()) {
-				validFailedSiegeCampList.add(campString);
-				if (uuid.equals(siegeCandidate.getUUID()))
-					hasFailedCamp = true;
-			}
+			failedCamps.merge(getUUID(UUIDAndTime[0]), Long.parseLong(UUIDAndTime[1]), Math::max);
 		}
+		return failedCamps;
+	}
 
-		// Set the meta if we dont have an empty list, otherwise remove the now expired meta.
-		if (validFailedSiegeCampList.size() > 0)
-			TownMetaDataController.setFailedCampSiegeList(town, StringMgmt.join(validFailedSiegeCampList, ","));
-		else 
+	private static void saveFailedCamps(Town town, Map<UUID, Long> failedCamps) {
+		if (failedCamps.isEmpty()) {
 			TownMetaDataController.removeFailedCampSiegeList(town);
+			return;
+		}
+		StringBuilder campList = new StringBuilder();
+		for (Map.Entry<UUID, Long> entry : failedCamps.entrySet()) {
+			if (campList.length() > 0)
+				campList.append(',');
+			campList.append(entry.getKey()).append(':').append(entry.getValue());
+		}
+		TownMetaDataController.setFailedCampSiegeList(town, campList.toString());
+	}
+
+	/**
+	 * Save the camps whose points have changed since they were last saved.
+	 * Called every 5 minutes by the camp task, and on shutdown.
+	 * A camp which scores every minute is therefore saved once per 5 minutes, not once per point.
+	 */
+	public static void saveUnsavedSiegeCamps() {
+		Iterator<SiegeCamp> campItr = unsavedCamps.iterator();
+		while (campItr.hasNext()) {
+			SiegeCamp camp = campItr.next();
+			campItr.remove();
+			if (SiegeController.getSiegeCamps().contains(camp))
+				saveSiegeCamp(camp);
+		}
+	}
+
+	/**
+	 * Save the {@link SiegeCamp} to the metadata of its target town.
+	 * 
+	 * As with sieges, the town save is queued and written by Towny's database thread.
+	 * 
+	 * Stored like so: world!x!y!z!siegeType!attackerUUID!defenderUUID!townOfSiegeStarterUUID!playerUUID!townBlockX!townBlockZ!attackerPoints!endTime
+	 * 
+	 * @param camp {@link SiegeCamp} to save.
+	 */
+	public static void saveSiegeCamp(SiegeCamp camp) {
+		Block bannerBlock = camp.getBannerBlock();
+		String campString = bannerBlock.getWorld().getName()
+				+ "!" + bannerBlock.getX()
+				+ "!" + bannerBlock.getY()
+				+ "!" + bannerBlock.getZ()
+				+ "!" + camp.getSiegeType()
+				+ "!" + camp.getAttacker().getUUID()
+				+ "!" + camp.getDefender().getUUID()
+				+ "!" + camp.getTownOfSiegeStarter().getUUID()
+				+ "!" + camp.getPlayerUUID()
+				+ "!" + camp.getTownBlock().getX()
+				+ "!" + camp.getTownBlock().getZ()
+				+ "!" + camp.getAttackerPoints()
+				+ "!" + camp.getEndTime();
+		TownMetaDataController.setActiveSiegeCamp(camp.getTargetTown(), campString);
+		camp.getTargetTown().save();
+	}
+
+	public static void deleteSiegeCamp(SiegeCamp camp) {
+		unsavedCamps.remove(camp);
+		TownMetaDataController.removeActiveSiegeCamp(camp.getTargetTown());
+		camp.getTargetTown().save();
+	}
+
+	/**
+	 * Load the {@link SiegeCamp}s saved in town metadata.
+	 * 
+	 * Camps which can no longer be rebuilt, e.g. because a town or world is gone, are discarded.
+	 * Camps which expired while the server was down are kept, and finished on their first evaluation.
+	 */
+	public static void loadSiegeCamps() {
+		long now = System.currentTimeMillis();
+		for (Town town : TownyAPI.getInstance().getTowns()) {
+			String campString = TownMetaDataController.getActiveSiegeCamp(town);
+			if (campString == null || campString.isEmpty())
+				continue;
+			SiegeCamp camp = null;
+			try {
+				camp = parseSiegeCamp(town, campString);
+			} catch (Exception e) {
+				SiegeWar.severe("Siege Camp Data: Could not parse siege camp data for town '" + town.getName() + "': " + e.getMessage());
+			}
+			if (camp == null) {
+				SiegeWar.info("Siege Camp Data: Discarding siege camp on town '" + town.getName() + "'.");
+				TownMetaDataController.removeActiveSiegeCamp(town);
+				town.save();
+				continue;
+			}
+			camp.setNextEvaluationTime(now + CAMP_EVALUATION_INTERVAL_MILLIS);
+			SiegeController.addLoadedSiegeCamp(camp);
+		}
+	}
+
+	@Nullable
+	private static SiegeCamp parseSiegeCamp(Town targetTown, String campString) {
+		String[] data = campString.split("!");
+		World world = Bukkit.getWorld(data[0]);
+		if (world == null)
+			return null;
+		Block bannerBlock = world.getBlockAt(Integer.parseInt(data[1]), Integer.parseInt(data[2]), Integer.parseInt(data[3]));
+		SiegeType siegeType = SiegeType.parseString(data[4]);
+		Government attacker = getGovernment(UUID.fromString(data[5]));
+		Government defender = getGovernment(UUID.fromString(data[6]));
+		Town townOfSiegeStarter = TownyAPI.getInstance().getTown(UUID.fromString(data[7]));
+		UUID playerUUID = UUID.fromString(data[8]);
+		TownBlock townBlock = new WorldCoord(world.getName(), Integer.parseInt(data[9]), Integer.parseInt(data[10])).getTownBlockOrNull();
+		if (attacker == null || defender == null || townOfSiegeStarter == null || townBlock == null)
+			return null;
+		return new SiegeCamp(playerUUID, bannerBlock, siegeType, targetTown, attacker, defender, townOfSiegeStarter, townBlock,
+				Integer.parseInt(data[11]), Long.parseLong(data[12]));
+	}
 
-		// Return true if we found siegeCandidate in the metadata at any point.
-		return hasFailedCamp;
+	@Nullable
+	private static Government getGovernment(UUID uuid) {
+		Nation nation = TownyAPI.getInstance().getNation(uuid);
+		if (nation != null)
+			return nation;
+		return TownyAPI.getInstance().getTown(uuid);
 	}
 
 	// A bug in SiegeWar 1.2.0 and earlier resulted in the uuid's being prefixed
@@ -58,7 +58,11 @@ public class SiegeWarBannerControlUtil {
 			TownyUniverse universe = TownyUniverse.getInstance();
 			Resident resident;
 
-			for(Player player: Bukkit.getOnlinePlayers()) {
+			//Only players bucketed near the banner can be in the timed point zone
+			List<Player> candidatePlayers = SiegeWarDistanceUtil.getPlayersInChunksNear(
+				siege.getFlagLocation(), SiegeWarSettings.getWarSiegeBannerControlSessionRadiusBlocks());
+
+			for(Player player: candidatePlayers) {
 
 				resident = universe.getResident(player.getUniqueId());
 	            if (resident == null)
@@ -236,9 +240,12 @@ public class SiegeWarBannerControlUtil {
 								siege.setNumberOfBannerControlReversals(siege.getNumberOfBannerControlReversals()+1);
 							}
 						}
+						if(reversal)
+							SiegeWarJournal.logBannerControlLost(siege, siege.getBannerControllingSide());
 						siege.clearBannerControllingResidents();
 						siege.setBannerControllingSide(bannerControlSession.getSiegeSide());
 						siege.addBannerControllingResident(bannerControlSession.getResident());
+						SiegeWarJournal.logBannerControlGained(siege, bannerControlSession.getSiegeSide());
 
 						//Inform player
 						Messaging.sendMsg(bannerControlSession.getPlayer(), Translatable.of("msg_siege_war_banner_control_session_success"));
@@ -283,25 +290,40 @@ public class SiegeWarBannerControlUtil {
 			return;
 
 		//Award battle points
+		int battlePoints = awardBannerControlBattlePoints(siege, siege.getBannerControllingResidents().size());
+		if(battlePoints != 0)
+			SiegeWarJournal.logBannerControlPoints(siege, siege.getBannerControllingSide(), battlePoints);
+
+		//Save siege to db
+		SiegeController.saveSiege(siege);
+	}
+
+	/**
+	 * Award the battle points earned in one short tick by the banner controlling side.
+	 * This method does not save the siege.
+	 *
+	 * @param siege the siege
+	 * @param numBannerControllingResidents the number of residents on the banner control list
+	 * @return the battle points awarded
+	 */
+	public static int awardBannerControlBattlePoints(Siege siege, int numBannerControllingResidents) {
 		int battlePoints = 0;
 		switch(siege.getBannerControllingSide()) {
 			case ATTACKERS:
-				battlePoints = siege.getBannerControllingResidents().size() * SiegeWarSettings.getWarBattlePointsForAttackerOccupation();
+				battlePoints = numBannerControllingResidents * SiegeWarSettings.getWarBattlePointsForAttackerOccupation();
 				if(siege.getNumberOfBannerControlReversals() > 0)
 					battlePoints *= siege.getNumberOfBannerControlReversals() * SiegeWarSettings.getWarSiegeBannerControlReversalBonusFactor();
 				siege.adjustAttackerBattlePoints(battlePoints);
 			break;
 			case DEFENDERS:
-				battlePoints = siege.getBannerControllingResidents().size() * SiegeWarSettings.getWarBattlePointsForDefenderOccupation();
+				battlePoints = numBannerControllingResidents * SiegeWarSettings.getWarBattlePointsForDefenderOccupation();
 				if(siege.getNumberOfBannerControlReversals() > 0)
 					battlePoints *= siege.getNumberOfBannerControlReversals() * SiegeWarSettings.getWarSiegeBannerControlReversalBonusFactor();
 				siege.adjustDefenderBattlePoints(battlePoints);
 			break;
 			default:
 		}
-
-		//Save siege to db
-		SiegeController.saveSiege(siege);
+		return battlePoints;
 	}
 
 	/**
@@ -11,6 +11,7 @@ import com.gmail.goosius.siegewar.events.BattleSessionStartedEvent;
 import com.gmail.goosius.siegewar.objects.BattleSession;
 import com.gmail.goosius.siegewar.objects.Siege;
 import com.gmail.goosius.siegewar.settings.SiegeWarSettings;
+import com.gmail.goosius.siegewar.tasks.SiegeWarTimerTaskController;
 import com.palmergames.bukkit.towny.object.Nation;
 import com.palmergames.bukkit.towny.object.Town;
 import com.palmergames.bukkit.towny.object.Translatable;
@@ -24,13 +25,13 @@ import org.bukkit.potion.PotionEffectType;
 
 import java.time.*;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class SiegeWarBattleSessionUtil {
-	
-	private static Map<Siege, Integer> battleResults = new HashMap<>();
+
 
 	/**
 	 * Attempt to schedule the next battle session
@@ -48,6 +49,7 @@ public class SiegeWarBattleSessionUtil {
 		BattleSession battleSession = BattleSession.getBattleSession();
 		//Set active
 		battleSession.setActive(true);
+		SiegeWarJournal.logBattleSessionStart();
 		//Set the start time
 		battleSession.setStartTime(System.currentTimeMillis());
 		//Set the scheduled end time
@@ -78,15 +80,36 @@ public class SiegeWarBattleSessionUtil {
 	}
 
 	public static void endBattleSession() {
+		//Deaths from the last short tick count towards this battle
+		SiegeWarScoringUtil.applyPendingPenaltyPoints();
 		BattleSession battleSession = BattleSession.getBattleSession();
 		battleSession.setActive(false);
-		battleResults.clear();
 		/*
 		 * Gather the results of all battles
 		 * End any active battles
+		 * 
+		 * On Folia each siege is ended on the region thread which owns its banner,
+		 * and the results are merged once the last siege has reported in.
 		 */
-		for (Siege siege : SiegeController.getSieges())
-			endBattleSessionForSiege(siege);
+		List<Siege> sieges = SiegeController.getSieges();
+		Map<Siege, Integer> battleResults = new ConcurrentHashMap<>();
+		if (sieges.isEmpty()) {
+			finishBattleSession(battleResults);
+			return;
+		}
+		AtomicInteger siegesRemaining = new AtomicInteger(sieges.size());
+		for (Siege siege : sieges) {
+			SiegeWarTimerTaskController.runForSiege(siege, () -> {
+				endBattleSessionForSiege(siege, battleResults);
+				if (siegesRemaining.decrementAndGet() == 0)
+					SiegeWarTimerTaskController.runGlobal(() -> finishBattleSession(battleResults));
+			});
+		}
+	}
+
+	private static void finishBattleSession(Map<Siege, Integer> battleResults) {
+		BattleSession battleSession = BattleSession.getBattleSession();
+		SiegeWarJournal.logBattleSessionEnd();
 
 		StringBuilder message = new StringBuilder(getBattleSessionEndedMessageHeader(battleResults).defaultLocale());
 
@@ -104,7 +127,7 @@ public class SiegeWarBattleSessionUtil {
 		battleSession.setScheduledGeneralChatRestorationTime(System.currentTimeMillis() + SiegeWarSettings.getToxicityReductionChatRestorationAfterBattleSessionMillis());
 	}
 
-	public static void endBattleSessionForSiege(Siege siege) {
+	private static void endBattleSessionForSiege(Siege siege, Map<Siege, Integer> battleResults) {
 		try {
 			if (siege.getStatus() == SiegeStatus.IN_PROGRESS) {
 				//Adjust numBattleSessionsCompleted
@@ -112,8 +135,10 @@ public class SiegeWarBattleSessionUtil {
 
 				//If any battle points were gained, calculate a result
 				if(siege.hasBattlePointsScored()) {
-					tallyScoredPoints(siege);
+					tallyScoredPoints(siege, battleResults);
+					SiegeWarHistoryUtil.recordBattle(siege, battleResults.get(siege));
 				}
+				SiegeWarJournal.logBattleResult(siege, battleResults.getOrDefault(siege, 0));
 
 				//Remove glowing effects from players in bc sessions
 				for (Player player : siege.getBannerControlSessions().keySet()) {
@@ -155,7 +180,7 @@ public class SiegeWarBattleSessionUtil {
 		}
 	}
 
-	private static void tallyScoredPoints(Siege siege) {
+	private static void tallyScoredPoints(Siege siege, Map<Siege, Integer> battleResults) {
 		//Adjust the siege balance
 		int siegeBalanceAdjustment = calculateSiegeBalanceAdjustment(siege);
 
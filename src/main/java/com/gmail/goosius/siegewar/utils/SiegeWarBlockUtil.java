@@ -161,11 +161,7 @@ public class SiegeWarBlockUtil {
 			Location locationOfBlock = block.getLocation();
 			Location locationOfBlockAbove = block.getRelative(BlockFace.UP).getLocation();
 			Location locationOfSiegeBanner;
-			for (Siege siege : SiegeController.getSieges()) {
-
-				if (!siege.getStatus().isActive()) {
-					continue;
-				}
+			for (Siege siege : SiegeController.getActiveSieges()) {
 
 				locationOfSiegeBanner = siege.getFlagLocation();
 				if (locationOfBlock.equals(locationOfSiegeBanner) || locationOfBlockAbove.equals(locationOfSiegeBanner)) {
@@ -25,9 +25,13 @@ import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
 
 /**
  * This class contains utility functions related to calculating and validating distances
@@ -57,6 +61,50 @@ public class SiegeWarDistanceUtil {
 	 */
 	private static Map<Player, Siege> playersRegisteredToActiveSiegeZones = new HashMap<>();
 
+	/**
+	 * This is a per-tick record of online players, bucketed by world and then by chunk.
+	 *
+	 * The buckets are rebuilt once at the start of each short tick (20 secs),
+	 * so that tick stages which need to find players near a location
+	 * can skip whole chunks at a time, rather than measuring the distance to every online player.
+	 *
+	 * Key of the outer map is the world UUID.
+	 * Key of the inner map is the packed chunk coordinate (see getChunkKey).
+	 *
+	 * A new map is published on each rebuild, so that region threads on Folia never see a half-built map.
+	 */
+	private static volatile Map<UUID, Map<Long, List<Player>>> playerChunkBuckets = new HashMap<>();
+
+	/**
+	 * This is a grid of the chunks which are covered by a siege zone, or claimed by a besieged town.
+	 *
+	 * It lets frequent location checks (e.g. teleports) rule out most locations
+	 * with two map lookups, before any siege distance check or Towny lookup.
+	 * The value lists are candidates only. Callers must still do their own checks.
+	 *
+	 * Key of the outer map is the world UUID.
+	 * Key of the inner map is the packed chunk coordinate (see getChunkKey).
+	 *
+	 * The grid is rebuilt lazily, on the first query after it is marked dirty.
+	 * It is marked dirty when a siege is added, removed, moved or changes status, and when a besieged town claims land.
+	 */
+	private static volatile Map<UUID, Map<Long, List<Siege>>> siegeChunkGrid = new HashMap<>();
+	private static volatile boolean siegeChunkGridDirty = true;
+	private static int siegeChunkGridZoneRadius = -1;
+
+	/**
+	 * This is the set of townblock coordinates which overlap the siege zone of an active siege.
+	 * Such townblocks cannot be claimed, if claiming near siege zones is disabled.
+	 *
+	 * Key of the map is the world name.
+	 * Values are packed townblock coordinates (see getChunkKey).
+	 *
+	 * The set is rebuilt lazily, on the first query after a siege is added, removed, moved or changes status.
+	 */
+	private static volatile Map<String, Set<Long>> claimBlockedTownBlocks = new HashMap<>();
+	private static volatile boolean claimBlockedTownBlocksDirty = true;
+	private static int claimBlockedTownBlocksZoneRadius = -1;
+
 	public static void registerPlayerToActiveSiegeZone(Player player, Siege siege) {
 		playersRegisteredToActiveSiegeZones.put(player, siege);
 	}
@@ -69,6 +117,170 @@ public class SiegeWarDistanceUtil {
 		return playersRegisteredToActiveSiegeZones.get(player);
 	}
 	
+	public static void recalculatePlayerChunkBuckets() {
+		Map<UUID, Map<Long, List<Player>>> newPlayerChunkBuckets = new HashMap<>();
+		for(Player player: Bukkit.getOnlinePlayers()) {
+			Location location = player.getLocation();
+			newPlayerChunkBuckets
+				.computeIfAbsent(location.getWorld().getUID(), k -> new HashMap<>())
+				.computeIfAbsent(getChunkKey(location.getBlockX() >> 4, location.getBlockZ() >> 4), k -> new ArrayList<>())
+				.add(player);
+		}
+		playerChunkBuckets = newPlayerChunkBuckets;
+	}
+
+	/**
+	 * Get the players in the chunks which overlap the given radius around the given location,
+	 * as bucketed at the start of the current short tick.
+	 *
+	 * @param centre the centre location
+	 * @param radiusBlocks the radius
+	 * @return candidate players. The caller must still check the distance.
+	 */
+	public static List<Player> getPlayersInChunksNear(Location centre, int radiusBlocks) {
+		List<Player> result = new ArrayList<>();
+		Map<Long, List<Player>> worldBuckets = getPlayerChunkBuckets(centre.getWorld());
+		if (worldBuckets.isEmpty())
+			return result;
+		int minChunkX = (centre.getBlockX() - radiusBlocks) >> 4;
+		int maxChunkX = (centre.getBlockX() + radiusBlocks) >> 4;
+		int minChunkZ = (centre.getBlockZ() - radiusBlocks) >> 4;
+		int maxChunkZ = (centre.getBlockZ() + radiusBlocks) >> 4;
+		for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+			for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+				List<Player> bucket = worldBuckets.get(getChunkKey(chunkX, chunkZ));
+				if (bucket != null)
+					result.addAll(bucket);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Get the players in the given world, as bucketed at the start of the current short tick.
+	 *
+	 * @param world the world
+	 * @return map of packed chunk coordinate to the players in that chunk. Do not modify.
+	 */
+	public static Map<Long, List<Player>> getPlayerChunkBuckets(World world) {
+		return playerChunkBuckets.getOrDefault(world.getUID(), Collections.emptyMap());
+	}
+
+	public static void markSiegeZonesChanged() {
+		siegeChunkGridDirty = true;
+		claimBlockedTownBlocksDirty = true;
+	}
+
+	/**
+	 * @param townBlock the townblock
+	 * @return true if the townblock overlaps the siege zone of an active siege
+	 */
+	public static boolean isTownBlockInActiveSiegeZoneForClaiming(TownBlock townBlock) {
+		if (claimBlockedTownBlocksDirty || claimBlockedTownBlocksZoneRadius != SiegeWarSettings.getWarSiegeZoneRadiusBlocks())
+			rebuildClaimBlockedTownBlocks();
+		Set<Long> worldTownBlocks = claimBlockedTownBlocks.get(townBlock.getWorld().getName());
+		return worldTownBlocks != null && worldTownBlocks.contains(getChunkKey(townBlock.getX(), townBlock.getZ()));
+	}
+
+	private static synchronized void rebuildClaimBlockedTownBlocks() {
+		if (!claimBlockedTownBlocksDirty && claimBlockedTownBlocksZoneRadius == SiegeWarSettings.getWarSiegeZoneRadiusBlocks())
+			return; //Another thread rebuilt it first
+		claimBlockedTownBlocksDirty = false;
+		int zoneRadius = SiegeWarSettings.getWarSiegeZoneRadiusBlocks();
+		int townBlockSize = TownySettings.getTownBlockSize();
+		long zoneRadiusSquared = (long) zoneRadius * zoneRadius;
+		Map<String, Set<Long>> newClaimBlockedTownBlocks = new HashMap<>();
+		for (Siege siege : SiegeController.getActiveSieges()) {
+			Location flag = siege.getFlagLocation();
+			if (flag == null || flag.getWorld() == null)
+				continue;
+			Set<Long> worldTownBlocks = newClaimBlockedTownBlocks.computeIfAbsent(flag.getWorld().getName(), k -> new HashSet<>());
+			int flagX = flag.getBlockX();
+			int flagZ = flag.getBlockZ();
+			for (int townBlockX = Math.floorDiv(flagX - zoneRadius, townBlockSize); townBlockX <= Math.floorDiv(flagX + zoneRadius, townBlockSize); townBlockX++) {
+				for (int townBlockZ = Math.floorDiv(flagZ - zoneRadius, townBlockSize); townBlockZ <= Math.floorDiv(flagZ + zoneRadius, townBlockSize); townBlockZ++) {
+					//Distance from the flag to the nearest point of the townblock
+					long dx = Math.max(0, Math.max(townBlockX * townBlockSize - flagX, flagX - (townBlockX * townBlockSize + townBlockSize - 1)));
+					long dz = Math.max(0, Math.max(townBlockZ * townBlockSize - flagZ, flagZ - (townBlockZ * townBlockSize + townBlockSize - 1)));
+					if (dx * dx + dz * dz <= zoneRadiusSquared)
+						worldTownBlocks.add(getChunkKey(townBlockX, townBlockZ));
+				}
+			}
+		}
+		claimBlockedTownBlocks = newClaimBlockedTownBlocks;
+		claimBlockedTownBlocksZoneRadius = zoneRadius;
+	}
+
+	/**
+	 * Get the sieges whose zone, or besieged town, might cover the given location.
+	 * First the world is checked, then the chunk.
+	 *
+	 * @param location the location
+	 * @return candidate sieges, including inactive ones. Empty if no siege can cover the location. Do not modify.
+	 */
+	public static List<Siege> getCandidateSiegesAt(Location location) {
+		if (siegeChunkGridDirty || siegeChunkGridZoneRadius != SiegeWarSettings.getWarSiegeZoneRadiusBlocks())
+			rebuildSiegeChunkGrid();
+		Map<Long, List<Siege>> worldGrid = siegeChunkGrid.get(location.getWorld().getUID());
+		if (worldGrid == null)
+			return Collections.emptyList();
+		return worldGrid.getOrDefault(getChunkKey(location.getBlockX() >> 4, location.getBlockZ() >> 4), Collections.emptyList());
+	}
+
+	private static synchronized void rebuildSiegeChunkGrid() {
+		if (!siegeChunkGridDirty && siegeChunkGridZoneRadius == SiegeWarSettings.getWarSiegeZoneRadiusBlocks())
+			return; //Another thread rebuilt it first
+		siegeChunkGridDirty = false;
+		int zoneRadius = SiegeWarSettings.getWarSiegeZoneRadiusBlocks();
+		int townBlockSize = TownySettings.getTownBlockSize();
+		Map<UUID, Map<Long, List<Siege>>> newSiegeChunkGrid = new HashMap<>();
+		for (Siege siege : SiegeController.getSieges()) {
+			//Siege zone
+			Location flag = siege.getFlagLocation();
+			if (flag != null && flag.getWorld() != null) {
+				addToSiegeChunkGrid(newSiegeChunkGrid, flag.getWorld().getUID(), siege,
+						flag.getBlockX() - zoneRadius, flag.getBlockZ() - zoneRadius,
+						flag.getBlockX() + zoneRadius, flag.getBlockZ() + zoneRadius);
+			}
+			//Besieged town, which may extend beyond the siege zone
+			if (siege.getTown() == null)
+				continue;
+			for (TownBlock townBlock : siege.getTown().getTownBlocks()) {
+				World world = Bukkit.getWorld(townBlock.getWorld().getName());
+				if (world == null)
+					continue;
+				addToSiegeChunkGrid(newSiegeChunkGrid, world.getUID(), siege,
+						townBlock.getX() * townBlockSize, townBlock.getZ() * townBlockSize,
+						townBlock.getX() * townBlockSize + townBlockSize - 1, townBlock.getZ() * townBlockSize + townBlockSize - 1);
+			}
+		}
+		siegeChunkGrid = newSiegeChunkGrid;
+		siegeChunkGridZoneRadius = zoneRadius;
+	}
+
+	private static void addToSiegeChunkGrid(Map<UUID, Map<Long, List<Siege>>> grid, UUID worldUUID, Siege siege, int minX, int minZ, int maxX, int maxZ) {
+		Map<Long, List<Siege>> worldGrid = grid.computeIfAbsent(worldUUID, k -> new HashMap<>());
+		for (int chunkX = minX >> 4; chunkX <= maxX >> 4; chunkX++) {
+			for (int chunkZ = minZ >> 4; chunkZ <= maxZ >> 4; chunkZ++) {
+				List<Siege> cell = worldGrid.computeIfAbsent(getChunkKey(chunkX, chunkZ), k -> new ArrayList<>(1));
+				if (!cell.contains(siege))
+					cell.add(siege);
+			}
+		}
+	}
+
+	public static long getChunkKey(int chunkX, int chunkZ) {
+		return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+	}
+
+	public static int getChunkX(long chunkKey) {
+		return (int) (chunkKey >> 32);
+	}
+
+	public static int getChunkZ(long chunkKey) {
+		return (int) chunkKey;
+	}
+
 	public static void recalculatePlayersRegisteredToActiveSiegeZones() {
 		playersRegisteredToActiveSiegeZones.clear();
 		for(Player player: Bukkit.getOnlinePlayers()) {
@@ -85,7 +297,7 @@ public class SiegeWarDistanceUtil {
 	 * @return true if location is in an active siegezone
 	 */
 	public static boolean isLocationInActiveSiegeZone(Location location) {
-		for(Siege siege: SiegeController.getSieges()) {
+		for(Siege siege: getCandidateSiegesAt(location)) {
 			if(siege.getStatus().isActive()
 				&& SiegeWarDistanceUtil.isInSiegeZone(location, siege)) {
 				return true;
@@ -320,7 +532,7 @@ public class SiegeWarDistanceUtil {
 	public static List<Town> getNearbyTownsPeacefulTowns(@NotNull TownBlock townBlock, int radius) {
 		List<Town> result = new ArrayList<>();
 		int radiusInTownBlocks = radius / TownySettings.getTownBlockSize();
-		for(Town town: TownyAPI.getInstance().getTowns()) {
+		for(Town town: SiegeWarHomeBlockIndex.getCandidateTownsNear(townBlock, radiusInTownBlocks)) {
 			if(SiegeWarTownPeacefulnessUtil.isTownPeaceful(town)
 					&& town.hasHomeBlock() 
 					&& areTownBlocksClose(town.getHomeBlockOrNull(), townBlock, radiusInTownBlocks)) {
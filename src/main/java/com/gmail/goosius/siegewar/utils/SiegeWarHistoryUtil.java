@@ -0,0 +1,544 @@
+package com.gmail.goosius.siegewar.utils;
+
+import com.gmail.goosius.siegewar.SiegeWar;
+import com.gmail.goosius.siegewar.enums.SiegeStatus;
+import com.gmail.goosius.siegewar.objects.Siege;
+import com.gmail.goosius.siegewar.settings.SiegeWarSettings;
+import com.palmergames.bukkit.towny.object.Government;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+/**
+ * This class contains the siege history store
+ *
+ * Completed sieges, and the result of each battle, are kept in a local SQLite database,
+ * in plugins/SiegeWar/siege_history.db.
+ * The SQLite driver is shipped with the server, so no extra dependency is needed.
+ *
+ * All database access happens on async tasks, one statement at a time,
+ * except that start() opens the database and stop() writes any queued writes on the main thread,
+ * so that no siege ends between the database opening and closing without being written.
+ * Queries are paged by the database, so a page never loads more than PAGE_SIZE rows.
+ */
+public class SiegeWarHistoryUtil {
+
+	public static final int PAGE_SIZE = 10;
+	private static final String DATABASE_FILE_NAME = "siege_history.db";
+
+	private static Connection connection = null;
+	//Battles of the current battle session. Written when the session ends.
+	private static final List<BattleHistoryEntry> pendingBattles = new ArrayList<>();
+	//Writes which have not reached the database yet. Drained by async tasks, and by stop().
+	private static final Queue<Consumer<Connection>> pendingWrites = new ConcurrentLinkedQueue<>();
+
+	/**
+	 * Open the database, if the history store is enabled.
+	 * A change to this setting takes effect after a server restart.
+	 */
+	public static void start() {
+		if (!SiegeWarSettings.isSiegeHistoryEnabled())
+			return;
+		String url = "jdbc:sqlite:" + SiegeWar.getSiegeWar().getDataFolder().toPath().resolve(DATABASE_FILE_NAME);
+		openDatabase(url);
+	}
+
+	/**
+	 * Write the queued writes, including the battles of an unfinished battle session, then close the database.
+	 */
+	public static void stop() {
+		queuePendingBattles();
+		synchronized (SiegeWarHistoryUtil.class) {
+			drainPendingWrites();
+			if (connection == null)
+				return;
+			try {
+				connection.close();
+			} catch (SQLException e) {
+				SiegeWar.severe("Problem closing the siege history database: " + e.getMessage());
+			}
+			connection = null;
+		}
+	}
+
+	private static void openDatabase(String url) {
+		synchronized (SiegeWarHistoryUtil.class) {
+			try {
+				Class.forName("org.sqlite.JDBC");
+				connection = DriverManager.getConnection(url);
+				try (Statement statement = connection.createStatement()) {
+					statement.executeUpdate("CREATE TABLE IF NOT EXISTS siege_history ("
+							+ "id INTEGER PRIMARY KEY AUTOINCREMENT, "
+							+ "town_uuid TEXT NOT NULL, town_name TEXT NOT NULL, siege_type TEXT NOT NULL, "
+							+ "status TEXT NOT NULL, winner TEXT NOT NULL, "
+							+ "attacker_uuid TEXT, attacker_name TEXT NOT NULL, "
+							+ "defender_uuid TEXT, defender_name TEXT NOT NULL, "
+							+ "siege_balance INTEGER NOT NULL, battle_sessions_completed INTEGER NOT NULL, "
+							+ "town_plundered INTEGER NOT NULL, town_invaded INTEGER NOT NULL, "
+							+ "war_chest REAL NOT NULL, end_time INTEGER NOT NULL)");
+					statement.executeUpdate("CREATE INDEX IF NOT EXISTS siege_history_town ON siege_history (town_uuid, end_time)");
+					statement.executeUpdate("CREATE INDEX IF NOT EXISTS siege_history_attacker ON siege_history (attacker_uuid, end_time)");
+					statement.executeUpdate("CREATE INDEX IF NOT EXISTS siege_history_defender ON siege_history (defender_uuid, end_time)");
+					statement.executeUpdate("CREATE INDEX IF NOT EXISTS siege_history_time ON siege_history (end_time)");
+					statement.executeUpdate("CREATE TABLE IF NOT EXISTS battle_history ("
+							+ "id INTEGER PRIMARY KEY AUTOINCREMENT, "
+							+ "town_uuid TEXT NOT NULL, town_name TEXT NOT NULL, "
+							+ "attacker_uuid TEXT, defender_uuid TEXT, "
+							+ "attacker_battle_points INTEGER NOT NULL, defender_battle_points INTEGER NOT NULL, "
+							+ "balance_adjustment INTEGER NOT NULL, siege_balance INTEGER NOT NULL, "
+							+ "end_time INTEGER NOT NULL)");
+					statement.executeUpdate("CREATE INDEX IF NOT EXISTS battle_history_town ON battle_history (town_uuid, end_time)");
+					statement.executeUpdate("CREATE INDEX IF NOT EXISTS battle_history_time ON battle_history (end_time)");
+				}
+			} catch (ClassNotFoundException | SQLException e) {
+				SiegeWar.severe("Problem opening the siege history database. Siege history will not be recorded: " + e.getMessage());
+				connection = null;
+			}
+		}
+	}
+
+	/**
+	 * Record the result of a siege's battle. Must be called before the battle points are cleared.
+	 * The battle is written when the battle session ends.
+	 *
+	 * @param siege the siege
+	 * @param balanceAdjustment the siege balance adjustment which was applied for the battle
+	 */
+	public static void recordBattle(Siege siege, int balanceAdjustment) {
+		if (!SiegeWarSettings.isSiegeHistoryEnabled())
+			return;
+		BattleHistoryEntry entry = new BattleHistoryEntry(
+				siege.getTown().getUUID().toString(),
+				siege.getTown().getName(),
+				getUUIDOrNull(siege.getAttackingNationIfPossibleElseTown()),
+				getUUIDOrNull(siege.getDefendingNationIfPossibleElseTown()),
+				siege.getAttackerBattlePoints(),
+				siege.getDefenderBattlePoints(),
+				balanceAdjustment,
+				siege.getSiegeBalance(),
+				System.currentTimeMillis());
+		synchronized (pendingBattles) {
+			pendingBattles.add(entry);
+		}
+	}
+
+	/**
+	 * Write the battles of the battle session which just ended.
+	 */
+	public static void writePendingBattles() {
+		if (queuePendingBattles())
+			scheduleDrain();
+	}
+
+	/**
+	 * @return true if any battles were queued
+	 */
+	private static boolean queuePendingBattles() {
+		List<BattleHistoryEntry> battles;
+		synchronized (pendingBattles) {
+			battles = new ArrayList<>(pendingBattles);
+			pendingBattles.clear();
+		}
+		if (battles.isEmpty())
+			return false;
+		pendingWrites.add(connection -> writeBattles(connection, battles));
+		return true;
+	}
+
+	private static void writeBattles(Connection connection, List<BattleHistoryEntry> battles) {
+		try (PreparedStatement statement = connection.prepareStatement("INSERT INTO battle_history "
+				+ "(town_uuid, town_name, attacker_uuid, defender_uuid, attacker_battle_points, defender_battle_points, "
+				+ "balance_adjustment, siege_balance, end_time) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+			connection.setAutoCommit(false);
+			for (BattleHistoryEntry battle : battles) {
+				statement.setString(1, battle.townUUID);
+				statement.setString(2, battle.townName);
+				statement.setString(3, battle.attackerUUID);
+				statement.setString(4, battle.defenderUUID);
+				statement.setInt(5, battle.attackerBattlePoints);
+				statement.setInt(6, battle.defenderBattlePoints);
+				statement.setInt(7, battle.balanceAdjustment);
+				statement.setInt(8, battle.siegeBalance);
+				statement.setLong(9, battle.endTime);
+				statement.addBatch();
+			}
+			statement.executeBatch();
+			connection.commit();
+		} catch (SQLException e) {
+			SiegeWar.severe("Problem writing battles to the siege history database: " + e.getMessage());
+		} finally {
+			try {
+				connection.setAutoCommit(true);
+			} catch (SQLException ignored) {}
+		}
+	}
+
+	/**
+	 * Write a completed siege.
+	 * The siege is read on the calling thread, and written on an async task.
+	 *
+	 * @param siege the siege which has just ended
+	 */
+	public static void writeSiege(Siege siege) {
+		if (!SiegeWarSettings.isSiegeHistoryEnabled())
+			return;
+		SiegeHistoryEntry entry = new SiegeHistoryEntry(
+				siege.getTown().getUUID().toString(),
+				siege.getTown().getName(),
+				siege.getSiegeType().name(),
+				siege.getStatus().name(),
+				siege.getSiegeWinner().name(),
+				getUUIDOrNull(siege.getAttackingNationIfPossibleElseTown()),
+				siege.getAttackerName(),
+				getUUIDOrNull(siege.getDefendingNationIfPossibleElseTown()),
+				siege.getDefenderName(),
+				siege.getSiegeBalance(),
+				siege.getNumBattleSessionsCompleted(),
+				siege.getTownPlundered(),
+				siege.getTownInvaded(),
+				siege.getWarChestAmount(),
+				System.currentTimeMillis());
+		pendingWrites.add(connection -> writeSiege(connection, entry));
+		scheduleDrain();
+	}
+
+	private static void writeSiege(Connection connection, SiegeHistoryEntry entry) {
+		try (PreparedStatement statement = connection.prepareStatement("INSERT INTO siege_history "
+				+ "(town_uuid, town_name, siege_type, status, winner, attacker_uuid, attacker_name, defender_uuid, defender_name, "
+				+ "siege_balance, battle_sessions_completed, town_plundered, town_invaded, war_chest, end_time) "
+				+ "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+			statement.setString(1, entry.townUUID);
+			statement.setString(2, entry.townName);
+			statement.setString(3, entry.siegeType);
+			statement.setString(4, entry.status);
+			statement.setString(5, entry.winner);
+			statement.setString(6, entry.attackerUUID);
+			statement.setString(7, entry.attackerName);
+			statement.setString(8, entry.defenderUUID);
+			statement.setString(9, entry.defenderName);
+			statement.setInt(10, entry.siegeBalance);
+			statement.setInt(11, entry.battleSessionsCompleted);
+			statement.setInt(12, entry.townPlundered ? 1 : 0);
+			statement.setInt(13, entry.townInvaded ? 1 : 0);
+			statement.setDouble(14, entry.warChest);
+			statement.setLong(15, entry.endTime);
+			statement.executeUpdate();
+		} catch (SQLException e) {
+			SiegeWar.severe("Problem writing a siege to the siege history database: " + e.getMessage());
+		}
+	}
+
+	private static void scheduleDrain() {
+		SiegeWar.getSiegeWar().getScheduler().runAsync(() -> {
+			synchronized (SiegeWarHistoryUtil.class) {
+				drainPendingWrites();
+			}
+		});
+	}
+
+	/*
+	 * Must be called while holding the class lock. Writes are dropped if the database is not open.
+	 */
+	private static void drainPendingWrites() {
+		Consumer<Connection> write;
+		while ((write = pendingWrites.poll()) != null) {
+			if (connection != null)
+				write.accept(connection);
+		}
+	}
+
+	/**
+	 * Get a page of the sieges of the given town, newest first, on an async task.
+	 *
+	 * @param townUUID the uuid of the besieged town
+	 * @param page the page number, starting at 1
+	 * @param callback called on the async task with the page, or null if the history could not be read
+	 */
+	public static void getSiegesOfTown(UUID townUUID, int page, Consumer<List<SiegeHistoryEntry>> callback) {
+		querySieges("SELECT * FROM siege_history WHERE town_uuid = ? ORDER BY end_time DESC LIMIT ? OFFSET ?",
+				page, callback, townUUID.toString());
+	}
+
+	/**
+	 * Get a page of the sieges in which the given nation was the attacker or defender, newest first, on an async task.
+	 */
+	public static void getSiegesOfNation(UUID nationUUID, int page, Consumer<List<SiegeHistoryEntry>> callback) {
+		querySieges("SELECT * FROM siege_history WHERE attacker_uuid = ? OR defender_uuid = ? ORDER BY end_time DESC LIMIT ? OFFSET ?",
+				page, callback, nationUUID.toString(), nationUUID.toString());
+	}
+
+	/**
+	 * Get a page of the sieges which ended in the given time range, newest first, on an async task.
+	 */
+	public static void getSiegesEndedBetween(long fromTime, long toTime, int page, Consumer<List<SiegeHistoryEntry>> callback) {
+		querySieges("SELECT * FROM siege_history WHERE end_time >= ? AND end_time <= ? ORDER BY end_time DESC LIMIT ? OFFSET ?",
+				page, callback, fromTime, toTime);
+	}
+
+	/**
+	 * Get a page of the battles of the given town, newest first, on an async task.
+	 */
+	public static void getBattlesOfTown(UUID townUUID, int page, Consumer<List<BattleHistoryEntry>> callback) {
+		SiegeWar.getSiegeWar().getScheduler().runAsync(() -> {
+			List<BattleHistoryEntry> result = null;
+			synchronized (SiegeWarHistoryUtil.class) {
+				if (connection != null) {
+					try (PreparedStatement statement = connection.prepareStatement(
+							"SELECT * FROM battle_history WHERE town_uuid = ? ORDER BY end_time DESC LIMIT ? OFFSET ?")) {
+						statement.setString(1, townUUID.toString());
+						setPage(statement, 2, page);
+						try (ResultSet resultSet = statement.executeQuery()) {
+							result = new ArrayList<>();
+							while (resultSet.next())
+								result.add(readBattle(resultSet));
+						}
+					} catch (SQLException e) {
+						SiegeWar.severe("Problem reading the siege history database: " + e.getMessage());
+						result = null;
+					}
+				}
+			}
+			callback.accept(result);
+		});
+	}
+
+	private static void querySieges(String sql, int page, Consumer<List<SiegeHistoryEntry>> callback, Object... parameters) {
+		SiegeWar.getSiegeWar().getScheduler().runAsync(() -> {
+			List<SiegeHistoryEntry> result = null;
+			synchronized (SiegeWarHistoryUtil.class) {
+				if (connection != null) {
+					try (PreparedStatement statement = connection.prepareStatement(sql)) {
+						for (int i = 0; i < parameters.length; i++)
+							statement.setObject(i + 1, parameters[i]);
+						setPage(statement, parameters.length + 1, page);
+						try (ResultSet resultSet = statement.executeQuery()) {
+							result = new ArrayList<>();
+							while (resultSet.next())
+								result.add(readSiege(resultSet));
+						}
+					} catch (SQLException e) {
+						SiegeWar.severe("Problem reading the siege history database: " + e.getMessage());
+						result = null;
+					}
+				}
+			}
+			callback.accept(result);
+		});
+	}
+
+	private static void setPage(PreparedStatement statement, int firstParameterIndex, int page) throws SQLException {
+		statement.setInt(firstParameterIndex, PAGE_SIZE);
+		statement.setInt(firstParameterIndex + 1, (Math.max(1, page) - 1) * PAGE_SIZE);
+	}
+
+	private static SiegeHistoryEntry readSiege(ResultSet resultSet) throws SQLException {
+		return new SiegeHistoryEntry(
+				resultSet.getString("town_uuid"),
+				resultSet.getString("town_name"),
+				resultSet.getString("siege_type"),
+				resultSet.getString("status"),
+				resultSet.getString("winner"),
+				resultSet.getString("attacker_uuid"),
+				resultSet.getString("attacker_name"),
+				resultSet.getString("defender_uuid"),
+				resultSet.getString("defender_name"),
+				resultSet.getInt("siege_balance"),
+				resultSet.getInt("battle_sessions_completed"),
+				resultSet.getInt("town_plundered") != 0,
+				resultSet.getInt("town_invaded") != 0,
+				resultSet.getDouble("war_chest"),
+				resultSet.getLong("end_time"));
+	}
+
+	private static BattleHistoryEntry readBattle(ResultSet resultSet) throws SQLException {
+		return new BattleHistoryEntry(
+				resultSet.getString("town_uuid"),
+				resultSet.getString("town_name"),
+				resultSet.getString("attacker_uuid"),
+				resultSet.getString("defender_uuid"),
+				resultSet.getInt("attacker_battle_points"),
+				resultSet.getInt("defender_battle_points"),
+				resultSet.getInt("balance_adjustment"),
+				resultSet.getInt("siege_balance"),
+				resultSet.getLong("end_time"));
+	}
+
+	private static String getUUIDOrNull(Government government) {
+		return government == null ? null : government.getUUID().toString();
+	}
+
+	public static class SiegeHistoryEntry {
+		private final String townUUID;
+		private final String townName;
+		private final String siegeType;
+		private final String status;
+		private final String winner;
+		private final String attackerUUID;
+		private final String attackerName;
+		private final String defenderUUID;
+		private final String defenderName;
+		private final int siegeBalance;
+		private final int battleSessionsCompleted;
+		private final boolean townPlundered;
+		private final boolean townInvaded;
+		private final double warChest;
+		private final long endTime;
+
+		private SiegeHistoryEntry(String townUUID, String townName, String siegeType, String status, String winner,
+								  String attackerUUID, String attackerName, String defenderUUID, String defenderName,
+								  int siegeBalance, int battleSessionsCompleted, boolean townPlundered, boolean townInvaded,
+								  double warChest, long endTime) {
+			this.townUUID = townUUID;
+			this.townName = townName;
+			this.siegeType = siegeType;
+			this.status = status;
+			this.winner = winner;
+			this.attackerUUID = attackerUUID;
+			this.attackerName = attackerName;
+			this.defenderUUID = defenderUUID;
+			this.defenderName = defenderName;
+			this.siegeBalance = siegeBalance;
+			this.battleSessionsCompleted = battleSessionsCompleted;
+			this.townPlundered = townPlundered;
+			this.townInvaded = townInvaded;
+			this.warChest = warChest;
+			this.endTime = endTime;
+		}
+
+		public String getTownUUID() {
+			return townUUID;
+		}
+
+		public String getTownName() {
+			return townName;
+		}
+
+		public String getSiegeType() {
+			return siegeType;
+		}
+
+		public SiegeStatus getStatus() {
+			try {
+				return SiegeStatus.valueOf(status);
+			} catch (IllegalArgumentException e) {
+				return SiegeStatus.UNKNOWN;
+			}
+		}
+
+		public String getWinner() {
+			return winner;
+		}
+
+		public String getAttackerUUID() {
+			return attackerUUID;
+		}
+
+		public String getAttackerName() {
+			return attackerName;
+		}
+
+		public String getDefenderUUID() {
+			return defenderUUID;
+		}
+
+		public String getDefenderName() {
+			return defenderName;
+		}
+
+		public int getSiegeBalance() {
+			return siegeBalance;
+		}
+
+		public int getBattleSessionsCompleted() {
+			return battleSessionsCompleted;
+		}
+
+		public boolean isTownPlundered() {
+			return townPlundered;
+		}
+
+		public boolean isTownInvaded() {
+			return townInvaded;
+		}
+
+		public double getWarChest() {
+			return warChest;
+		}
+
+		public long getEndTime() {
+			return endTime;
+		}
+	}
+
+	public static class BattleHistoryEntry {
+		private final String townUUID;
+		private final String townName;
+		private final String attackerUUID;
+		private final String defenderUUID;
+		private final int attackerBattlePoints;
+		private final int defenderBattlePoints;
+		private final int balanceAdjustment;
+		private final int siegeBalance;
+		private final long endTime;
+
+		private BattleHistoryEntry(String townUUID, String townName, String attackerUUID, String defenderUUID,
+								   int attackerBattlePoints, int defenderBattlePoints, int balanceAdjustment,
+								   int siegeBalance, long endTime) {
+			this.townUUID = townUUID;
+			this.townName = townName;
+			this.attackerUUID = attackerUUID;
+			this.defenderUUID = defenderUUID;
+			this.attackerBattlePoints = attackerBattlePoints;
+			this.defenderBattlePoints = defenderBattlePoints;
+			this.balanceAdjustment = balanceAdjustment;
+			this.siegeBalance = siegeBalance;
+			this.endTime = endTime;
+		}
+
+		public String getTownUUID() {
+			return townUUID;
+		}
+
+		public String getTownName() {
+			return townName;
+		}
+
+		public String getAttackerUUID() {
+			return attackerUUID;
+		}
+
+		public String getDefenderUUID() {
+			return defenderUUID;
+		}
+
+		public int getAttackerBattlePoints() {
+			return attackerBattlePoints;
+		}
+
+		public int getDefenderBattlePoints() {
+			return defenderBattlePoints;
+		}
+
+		public int getBalanceAdjustment() {
+			return balanceAdjustment;
+		}
+
+		public int getSiegeBalance() {
+			return siegeBalance;
+		}
+
+		public long getEndTime() {
+			return endTime;
+		}
+	}
+}
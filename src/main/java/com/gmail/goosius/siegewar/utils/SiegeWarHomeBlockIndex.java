@@ -0,0 +1,164 @@
+package com.gmail.goosius.siegewar.utils;
+
+import com.gmail.goosius.siegewar.settings.SiegeWarSettings;
+import com.palmergames.bukkit.towny.TownyAPI;
+import com.palmergames.bukkit.towny.TownySettings;
+import com.palmergames.bukkit.towny.object.Town;
+import com.palmergames.bukkit.towny.object.TownBlock;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * This class contains a spatial index of town homeblocks
+ *
+ * The index is a per-world grid.
+ * Each grid cell is as wide as the peaceful-town guardian search radius,
+ * so a radius query at that radius only has to look at the 3x3 cells around the centre.
+ *
+ * The index is rebuilt when siege data loads and every hour,
+ * and is maintained on town creation, town deletion, town merges and player homeblock moves.
+ * Homeblock moves which fire no event, e.g. admin set-homeblock, are picked up by the hourly rebuild.
+ *
+ * Updates may come from any thread (e.g. Towny deletes towns during its async new day).
+ * Rebuilds build a new grid and swap it in through a volatile field, and queries never lock.
+ *
+ * Queries return candidates only. Callers must still do their own distance check.
+ * That check filters out towns which are indexed near the centre but are not close enough.
+ * It cannot find a town which is missing from the candidates,
+ * i.e. a town whose homeblock moved into range without an event, until the next rebuild.
+ */
+public class SiegeWarHomeBlockIndex {
+
+	private static volatile HomeBlockGrid grid = new HomeBlockGrid(1);
+
+	public static synchronized void rebuild() {
+		HomeBlockGrid newGrid = new HomeBlockGrid(calculateCellSizeInTownBlocks());
+		for (Town town : TownyAPI.getInstance().getTowns()) {
+			newGrid.indexTown(town);
+		}
+		grid = newGrid;
+	}
+
+	/**
+	 * Add the town to the index, or move it to the cell of its current homeblock.
+	 *
+	 * @param town the town
+	 */
+	public static synchronized void indexTown(Town town) {
+		grid.indexTown(town);
+	}
+
+	public static synchronized void removeTown(UUID townUUID) {
+		grid.removeTown(townUUID);
+	}
+
+	/**
+	 * Get the towns whose homeblocks are indexed in the grid cells
+	 * which overlap the given radius around the given townblock.
+	 *
+	 * @param centre the centre townblock
+	 * @param radiusInTownBlocks the radius
+	 * @return candidate towns. The caller must still check the distance.
+	 */
+	public static List<Town> getCandidateTownsNear(@NotNull TownBlock centre, int radiusInTownBlocks) {
+		HomeBlockGrid currentGrid = grid;
+		if (currentGrid.cellSizeInTownBlocks != calculateCellSizeInTownBlocks()) {
+			rebuild(); //Config was reloaded with a different search radius
+			currentGrid = grid;
+		}
+
+		List<Town> result = new ArrayList<>();
+		Map<Long, List<Town>> worldGrid = currentGrid.cellsByWorld.get(getWorldKey(centre));
+		if (worldGrid == null)
+			return result;
+		int cellSize = currentGrid.cellSizeInTownBlocks;
+		int minCellX = Math.floorDiv(centre.getX() - radiusInTownBlocks, cellSize);
+		int maxCellX = Math.floorDiv(centre.getX() + radiusInTownBlocks, cellSize);
+		int minCellZ = Math.floorDiv(centre.getZ() - radiusInTownBlocks, cellSize);
+		int maxCellZ = Math.floorDiv(centre.getZ() + radiusInTownBlocks, cellSize);
+		for (int cellX = minCellX; cellX <= maxCellX; cellX++) {
+			for (int cellZ = minCellZ; cellZ <= maxCellZ; cellZ++) {
+				List<Town> cell = worldGrid.get(getCellKey(cellX, cellZ));
+				if (cell != null)
+					result.addAll(cell);
+			}
+		}
+		return result;
+	}
+
+	private static int calculateCellSizeInTownBlocks() {
+		return Math.max(1, SiegeWarSettings.getPeacefulTownsGuardianTownSearchRadius() / TownySettings.getTownBlockSize());
+	}
+
+	private static String getWorldKey(TownBlock townBlock) {
+		return townBlock.getWorld().getName().toLowerCase(Locale.ROOT);
+	}
+
+	private static long getCellKey(int cellX, int cellZ) {
+		return ((long) cellX << 32) | (cellZ & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * A grid of homeblocks at one cell size.
+	 * Writers hold the index lock. Readers may iterate the cells at any time.
+	 */
+	private static class HomeBlockGrid {
+		private final int cellSizeInTownBlocks;
+		//Key of outer map is the lower-cased world name. Key of inner map is the packed cell coordinate.
+		private final Map<String, Map<Long, List<Town>>> cellsByWorld = new ConcurrentHashMap<>();
+		//Key is the town UUID. Value is the cell the town is currently indexed in.
+		private final Map<UUID, IndexedCell> indexedCells = new ConcurrentHashMap<>();
+
+		private HomeBlockGrid(int cellSizeInTownBlocks) {
+			this.cellSizeInTownBlocks = cellSizeInTownBlocks;
+		}
+
+		private void indexTown(Town town) {
+			removeTown(town.getUUID());
+			TownBlock homeBlock = town.getHomeBlockOrNull();
+			if (homeBlock == null)
+				return;
+			String worldKey = getWorldKey(homeBlock);
+			long cellKey = getCellKey(
+					Math.floorDiv(homeBlock.getX(), cellSizeInTownBlocks),
+					Math.floorDiv(homeBlock.getZ(), cellSizeInTownBlocks));
+			cellsByWorld
+					.computeIfAbsent(worldKey, k -> new ConcurrentHashMap<>())
+					.computeIfAbsent(cellKey, k -> new CopyOnWriteArrayList<>())
+					.add(town);
+			indexedCells.put(town.getUUID(), new IndexedCell(worldKey, cellKey));
+		}
+
+		private void removeTown(UUID townUUID) {
+			IndexedCell indexedCell = indexedCells.remove(townUUID);
+			if (indexedCell == null)
+				return;
+			Map<Long, List<Town>> worldGrid = cellsByWorld.get(indexedCell.worldKey);
+			if (worldGrid == null)
+				return;
+			List<Town> cell = worldGrid.get(indexedCell.cellKey);
+			if (cell == null)
+				return;
+			cell.removeIf(town -> town.getUUID().equals(townUUID));
+			if (cell.isEmpty())
+				worldGrid.remove(indexedCell.cellKey);
+		}
+	}
+
+	private static class IndexedCell {
+		private final String worldKey;
+		private final long cellKey;
+
+		private IndexedCell(String worldKey, long cellKey) {
+			this.worldKey = worldKey;
+			this.cellKey = cellKey;
+		}
+	}
+}
@@ -4,38 +4,71 @@ import com.gmail.goosius.siegewar.Messaging;
 import com.gmail.goosius.siegewar.settings.SiegeWarSettings;
 import com.palmergames.bukkit.towny.object.Translatable;
 
+import org.bukkit.Material;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.PlayerInventory;
 import org.bukkit.inventory.meta.Damageable;
+import org.bukkit.inventory.meta.ItemMeta;
 
 public class SiegeWarInventoryUtil {
 
+    //Max durability of each material, indexed by ordinal. 0 means the material cannot be damaged.
+    private static short[] maxDurabilityByMaterial = null;
+
+    /**
+     * Degrade the damageable items in the player's inventory.
+     *
+     * The contents are read once, only damageable stacks are touched,
+     * and the contents are written back in one call if anything changed.
+     *
+     * @param player the player
+     */
     public static void degradeInventory(Player player) {
-        Damageable damageable;
-        double maxDurability;
-        int currentDurability, damageToInflict, newDurability, durabilityWarning;
+        short[] maxDurabilities = getMaxDurabilityByMaterial();
+        double degradePercentage = SiegeWarSettings.getKeepInventoryOnSiegeZoneDeathToolsDegradePercentage();
+        PlayerInventory inventory = player.getInventory();
+        ItemStack[] contents = inventory.getContents();
+        boolean changed = false;
         boolean closeToBreaking = false;
-        for (ItemStack itemStack : player.getInventory().getContents()) {
-            if (itemStack != null && itemStack.getType().getMaxDurability() != 0 && !itemStack.getItemMeta().isUnbreakable()) {
-                damageable = ((Damageable) itemStack.getItemMeta());
-                maxDurability = itemStack.getType().getMaxDurability();
-                currentDurability = damageable.getDamage();
-                damageToInflict = (int)(maxDurability / 100 * SiegeWarSettings.getKeepInventoryOnSiegeZoneDeathToolsDegradePercentage());
-                newDurability = currentDurability + damageToInflict;
-                if (newDurability >= maxDurability) {
-                    damageable.setDamage(Math.max((int)maxDurability-25, currentDurability));
+        for (ItemStack itemStack : contents) {
+            if (itemStack == null)
+                continue;
+            int maxDurability = maxDurabilities[itemStack.getType().ordinal()];
+            if (maxDurability == 0)
+                continue;
+            ItemMeta itemMeta = itemStack.getItemMeta();
+            if (!(itemMeta instanceof Damageable) || itemMeta.isUnbreakable())
+                continue;
+            Damageable damageable = (Damageable) itemMeta;
+            int currentDurability = damageable.getDamage();
+            int damageToInflict = (int)((double) maxDurability / 100 * degradePercentage);
+            int newDurability = currentDurability + damageToInflict;
+            if (newDurability >= maxDurability) {
+                damageable.setDamage(Math.max(maxDurability - 25, currentDurability));
+                closeToBreaking = true;
+            } else {
+                damageable.setDamage(newDurability);
+                if (damageToInflict * 2 + currentDurability >= maxDurability)
                     closeToBreaking = true;
-                }
-                else {
-                    damageable.setDamage(newDurability);
-                    durabilityWarning = damageToInflict * 2 + currentDurability;
-                    if (durabilityWarning >= maxDurability)
-                        closeToBreaking = true;
-                }
-                itemStack.setItemMeta(damageable);
             }
+            itemStack.setItemMeta(itemMeta);
+            changed = true;
         }
+        if (changed)
+            inventory.setContents(contents);
         if (closeToBreaking) //One or more items are close to breaking, send warning.
             Messaging.sendMsg(player, Translatable.of("msg_inventory_degrade_warning"));
     }
+
+    private static short[] getMaxDurabilityByMaterial() {
+        if (maxDurabilityByMaterial == null) {
+            Material[] materials = Material.values();
+            short[] lookup = new short[materials.length];
+            for (Material material : materials)
+                lookup[material.ordinal()] = material.getMaxDurability();
+            maxDurabilityByMaterial = lookup;
+        }
+        return maxDurabilityByMaterial;
+    }
 }
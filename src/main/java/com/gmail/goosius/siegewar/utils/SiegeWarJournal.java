@@ -0,0 +1,296 @@
+package com.gmail.goosius.siegewar.utils;
+
+import com.gmail.goosius.siegewar.SiegeWar;
+import com.gmail.goosius.siegewar.enums.SiegeJournalEventType;
+import com.gmail.goosius.siegewar.enums.SiegeSide;
+import com.gmail.goosius.siegewar.objects.Siege;
+import com.gmail.goosius.siegewar.objects.SiegeJournalRecord;
+import com.gmail.goosius.siegewar.settings.SiegeWarSettings;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class contains the siege journal, an append-only binary log of siege events
+ *
+ * Events are queued by the caller and written by a dedicated writer thread,
+ * so that logging never blocks a tick on disk IO.
+ * The active file is rotated once it reaches the configured size,
+ * and the oldest rotated files are deleted.
+ *
+ * The journal can be replayed with SiegeWarJournalReplayer,
+ * either offline or with /swa journal verify.
+ */
+public class SiegeWarJournal {
+
+	private static final int QUEUE_CAPACITY = 65536;
+	private static final int OUTPUT_BUFFER_BYTES = 64 * 1024;
+
+	private static volatile BlockingQueue<SiegeJournalRecord> queue = null;
+	private static Thread writerThread = null;
+	private static final AtomicLong droppedRecords = new AtomicLong(0);
+
+	/**
+	 * Start the writer thread, if the journal is enabled.
+	 * A change to the journal settings takes effect after a server restart.
+	 */
+	public static void start() {
+		if (!SiegeWarSettings.isSiegeJournalEnabled() || writerThread != null)
+			return;
+		JournalWriter writer = new JournalWriter(
+				getJournalFolder(),
+				Math.max(1, SiegeWarSettings.getSiegeJournalMaxFileSizeKb()) * 1024L,
+				Math.max(0, SiegeWarSettings.getSiegeJournalMaxRotatedFiles()));
+		BlockingQueue<SiegeJournalRecord> newQueue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+		writerThread = new Thread(() -> runWriter(newQueue, writer), "SiegeWar-Journal");
+		writerThread.setDaemon(true);
+		writerThread.start();
+		queue = newQueue;
+	}
+
+	/**
+	 * Stop the writer thread, after it has written all queued records.
+	 */
+	public static void stop() {
+		BlockingQueue<SiegeJournalRecord> oldQueue = queue;
+		if (oldQueue == null)
+			return;
+		queue = null;
+		try {
+			oldQueue.put(new Marker(true));
+			writerThread.join(5000);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		writerThread = null;
+	}
+
+	/**
+	 * Wait until all records queued so far are on disk.
+	 * Must not be called from the main thread.
+	 *
+	 * @param timeoutMillis the maximum time to wait
+	 * @return true if the journal was flushed, false if it is not running or timed out
+	 */
+	public static boolean flush(long timeoutMillis) {
+		BlockingQueue<SiegeJournalRecord> currentQueue = queue;
+		if (currentQueue == null)
+			return false;
+		Marker marker = new Marker(false);
+		try {
+			return currentQueue.offer(marker, timeoutMillis, TimeUnit.MILLISECONDS)
+					&& marker.done.await(timeoutMillis, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	public static Path getJournalFolder() {
+		return SiegeWar.getSiegeWar().getDataFolder().toPath().resolve(SiegeWarJournalReplayer.JOURNAL_FOLDER_NAME);
+	}
+
+	public static void logBattleSessionStart() {
+		log(SiegeJournalEventType.SESSION_START, SiegeJournalRecord.NO_SIEGE, SiegeSide.NOBODY, 0);
+	}
+
+	public static void logBattleSessionEnd() {
+		log(SiegeJournalEventType.SESSION_END, SiegeJournalRecord.NO_SIEGE, SiegeSide.NOBODY, 0);
+	}
+
+	public static void logBannerControlGained(Siege siege, SiegeSide side) {
+		log(SiegeJournalEventType.BANNER_CONTROL_GAINED, siege.getTown().getUUID(), side, 0);
+	}
+
+	public static void logBannerControlLost(Siege siege, SiegeSide side) {
+		log(SiegeJournalEventType.BANNER_CONTROL_LOST, siege.getTown().getUUID(), side, 0);
+	}
+
+	public static void logBannerControlPoints(Siege siege, SiegeSide side, int points) {
+		log(SiegeJournalEventType.BANNER_CONTROL_POINTS, siege.getTown().getUUID(), side, points);
+	}
+
+	public static void logDeathPenaltyPoints(Siege siege, SiegeSide side, int points) {
+		log(SiegeJournalEventType.DEATH_PENALTY_POINTS, siege.getTown().getUUID(), side, points);
+	}
+
+	public static void logBattleResult(Siege siege, int siegeBalanceAdjustment) {
+		log(SiegeJournalEventType.BATTLE_RESULT, siege.getTown().getUUID(), SiegeSide.NOBODY, siegeBalanceAdjustment);
+	}
+
+	public static void logSiegeOutcome(Siege siege) {
+		log(SiegeJournalEventType.SIEGE_OUTCOME, siege.getTown().getUUID(), siege.getSiegeWinner(), siege.getSiegeBalance());
+	}
+
+	private static void log(SiegeJournalEventType type, UUID siegeId, SiegeSide side, int value) {
+		BlockingQueue<SiegeJournalRecord> currentQueue = queue;
+		if (currentQueue == null)
+			return;
+		SiegeJournalRecord record = new SiegeJournalRecord(System.currentTimeMillis(), type, siegeId, toSideCode(side), value);
+		if (!currentQueue.offer(record))
+			droppedRecords.incrementAndGet();
+	}
+
+	private static byte toSideCode(SiegeSide side) {
+		if (side == SiegeSide.ATTACKERS)
+			return SiegeJournalRecord.SIDE_ATTACKERS;
+		if (side == SiegeSide.DEFENDERS)
+			return SiegeJournalRecord.SIDE_DEFENDERS;
+		return SiegeJournalRecord.SIDE_NOBODY;
+	}
+
+	private static void runWriter(BlockingQueue<SiegeJournalRecord> writerQueue, JournalWriter writer) {
+		while (true) {
+			SiegeJournalRecord record;
+			try {
+				record = writerQueue.take();
+			} catch (InterruptedException e) {
+				writer.close();
+				return;
+			}
+			if (record instanceof Marker) {
+				Marker marker = (Marker) record;
+				try {
+					writer.flush();
+				} catch (IOException e) {
+					SiegeWar.severe("Problem flushing the siege journal: " + e.getMessage());
+				}
+				marker.done.countDown();
+				if (marker.stop) {
+					writer.close();
+					return;
+				}
+				continue;
+			}
+			try {
+				writer.write(record);
+				//Flush whenever the queue runs dry, so a crash loses as little as possible
+				if (writerQueue.isEmpty())
+					writer.flush();
+			} catch (IOException e) {
+				SiegeWar.severe("Problem writing to the siege journal: " + e.getMessage());
+				writer.close();
+			}
+			long dropped = droppedRecords.getAndSet(0);
+			if (dropped > 0)
+				SiegeWar.severe("The siege journal queue was full. " + dropped + " records were dropped.");
+		}
+	}
+
+	/**
+	 * Queued to flush or stop the writer.
+	 */
+	private static class Marker extends SiegeJournalRecord {
+		private final boolean stop;
+		private final CountDownLatch done = new CountDownLatch(1);
+
+		private Marker(boolean stop) {
+			super(0, null, SiegeJournalRecord.NO_SIEGE, SiegeJournalRecord.SIDE_NOBODY, 0);
+			this.stop = stop;
+		}
+	}
+
+	/**
+	 * Only used by the writer thread.
+	 */
+	private static class JournalWriter {
+		private final Path folder;
+		private final long maxFileBytes;
+		private final int maxRotatedFiles;
+		private DataOutputStream output = null;
+		private long fileBytes = 0;
+
+		private JournalWriter(Path folder, long maxFileBytes, int maxRotatedFiles) {
+			this.folder = folder;
+			this.maxFileBytes = maxFileBytes;
+			this.maxRotatedFiles = maxRotatedFiles;
+		}
+
+		private void write(SiegeJournalRecord record) throws IOException {
+			if (output == null)
+				open();
+			if (fileBytes + SiegeJournalRecord.RECORD_SIZE > maxFileBytes) {
+				rotate();
+				open();
+			}
+			record.writeTo(output);
+			fileBytes += SiegeJournalRecord.RECORD_SIZE;
+		}
+
+		private void flush() throws IOException {
+			if (output != null)
+				output.flush();
+		}
+
+		private void close() {
+			if (output == null)
+				return;
+			try {
+				output.close();
+			} catch (IOException e) {
+				SiegeWar.severe("Problem closing the siege journal: " + e.getMessage());
+			}
+			output = null;
+		}
+
+		/*
+		 * Open the active file for appending.
+		 * If the server crashed mid-record, the partial record is truncated,
+		 * so that the following records stay aligned.
+		 */
+		private void open() throws IOException {
+			Files.createDirectories(folder);
+			Path activeFile = SiegeWarJournalReplayer.getActiveFile(folder);
+			long existingBytes = Files.exists(activeFile) ? Files.size(activeFile) : 0;
+			if (existingBytes > 0) {
+				long alignedBytes = existingBytes < Integer.BYTES ? 0
+						: existingBytes - (existingBytes - Integer.BYTES) % SiegeJournalRecord.RECORD_SIZE;
+				if (alignedBytes != existingBytes) {
+					try (FileChannel channel = FileChannel.open(activeFile, StandardOpenOption.WRITE)) {
+						channel.truncate(alignedBytes);
+					}
+					existingBytes = alignedBytes;
+				}
+			}
+			output = new DataOutputStream(new BufferedOutputStream(
+					Files.newOutputStream(activeFile, StandardOpenOption.CREATE, StandardOpenOption.APPEND),
+					OUTPUT_BUFFER_BYTES));
+			fileBytes = existingBytes;
+			if (fileBytes == 0) {
+				output.writeInt(SiegeJournalRecord.FILE_HEADER);
+				fileBytes = Integer.BYTES;
+			}
+		}
+
+		/*
+		 * The active file becomes rotated file 1, file 1 becomes file 2, and so on.
+		 */
+		private void rotate() throws IOException {
+			close();
+			Path activeFile = SiegeWarJournalReplayer.getActiveFile(folder);
+			if (maxRotatedFiles == 0) {
+				Files.deleteIfExists(activeFile);
+				return;
+			}
+			Files.deleteIfExists(SiegeWarJournalReplayer.getRotatedFile(folder, maxRotatedFiles));
+			for (int i = maxRotatedFiles - 1; i >= 1; i--) {
+				Path rotatedFile = SiegeWarJournalReplayer.getRotatedFile(folder, i);
+				if (Files.exists(rotatedFile))
+					Files.move(rotatedFile, SiegeWarJournalReplayer.getRotatedFile(folder, i + 1), StandardCopyOption.REPLACE_EXISTING);
+			}
+			Files.move(activeFile, SiegeWarJournalReplayer.getRotatedFile(folder, 1), StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+}
@@ -0,0 +1,229 @@
+package com.gmail.goosius.siegewar.utils;
+
+import com.gmail.goosius.siegewar.enums.SiegeJournalEventType;
+import com.gmail.goosius.siegewar.objects.SiegeJournalRecord;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * This class replays the siege journal, recomputing the battle points of each siege
+ *
+ * It has no Bukkit or Towny dependencies, so it can be run offline against a copy of the journal folder:
+ * java -cp SiegeWar.jar com.gmail.goosius.siegewar.utils.SiegeWarJournalReplayer plugins/SiegeWar/journal [--winner-takes-all]
+ *
+ * The replayer recomputes each battle result from the journalled points,
+ * and counts any battle result which disagrees with the result which was actually applied.
+ */
+public class SiegeWarJournalReplayer {
+
+	public static final String JOURNAL_FOLDER_NAME = "journal";
+	private static final String FILE_PREFIX = "siege_journal";
+	private static final String FILE_SUFFIX = ".bin";
+	private static final int MAX_ROTATED_FILES_SEARCHED = 1000;
+
+	public static Path getActiveFile(Path folder) {
+		return folder.resolve(FILE_PREFIX + FILE_SUFFIX);
+	}
+
+	public static Path getRotatedFile(Path folder, int index) {
+		return folder.resolve(FILE_PREFIX + "." + index + FILE_SUFFIX);
+	}
+
+	/**
+	 * @param folder the journal folder
+	 * @return the journal files, oldest first
+	 */
+	public static List<Path> getJournalFiles(Path folder) {
+		List<Path> result = new ArrayList<>();
+		int numRotatedFiles = 0;
+		while (numRotatedFiles < MAX_ROTATED_FILES_SEARCHED && Files.exists(getRotatedFile(folder, numRotatedFiles + 1)))
+			numRotatedFiles++;
+		for (int i = numRotatedFiles; i >= 1; i--)
+			result.add(getRotatedFile(folder, i));
+		if (Files.exists(getActiveFile(folder)))
+			result.add(getActiveFile(folder));
+		return result;
+	}
+
+	/**
+	 * Replay the given journal files.
+	 *
+	 * @param files the journal files, oldest first
+	 * @param winnerTakesAll the value of the battle points winner-takes-all setting
+	 * @return the replayed sieges. Key is the besieged town uuid. If a town was besieged more than once, only the latest siege is returned.
+	 * @throws IOException if a file could not be read
+	 */
+	public static Map<UUID, ReplayedSiege> replay(List<Path> files, boolean winnerTakesAll) throws IOException {
+		Map<UUID, ReplayedSiege> sieges = new LinkedHashMap<>();
+		for (Path file : files) {
+			try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+				if (input.readInt() != SiegeJournalRecord.FILE_HEADER)
+					throw new IOException("Not a siege journal file: " + file);
+				while (true) {
+					SiegeJournalRecord record;
+					try {
+						record = SiegeJournalRecord.readFrom(input);
+					} catch (EOFException e) {
+						break; //A partial record at the end of the file is ignored
+					}
+					apply(sieges, record, winnerTakesAll);
+				}
+			} catch (EOFException e) {
+				//Empty file
+			}
+		}
+		return sieges;
+	}
+
+	private static void apply(Map<UUID, ReplayedSiege> sieges, SiegeJournalRecord record, boolean winnerTakesAll) {
+		if (record.getType() == null || record.getSiegeId().equals(SiegeJournalRecord.NO_SIEGE))
+			return;
+		ReplayedSiege siege = sieges.get(record.getSiegeId());
+		if (siege == null || siege.finished) {
+			//First event of a new siege on this town
+			siege = new ReplayedSiege(record.getSiegeId());
+			sieges.put(record.getSiegeId(), siege);
+		}
+		switch (record.getType()) {
+			case BANNER_CONTROL_GAINED:
+				siege.bannerControllingSide = record.getSide();
+				break;
+			case BANNER_CONTROL_LOST:
+				if (siege.bannerControllingSide == record.getSide())
+					siege.bannerControllingSide = SiegeJournalRecord.SIDE_NOBODY;
+				break;
+			case BANNER_CONTROL_POINTS:
+			case DEATH_PENALTY_POINTS:
+				if (record.getSide() == SiegeJournalRecord.SIDE_ATTACKERS)
+					siege.attackerBattlePoints += record.getValue();
+				else if (record.getSide() == SiegeJournalRecord.SIDE_DEFENDERS)
+					siege.defenderBattlePoints += record.getValue();
+				break;
+			case BATTLE_RESULT:
+				int recomputedAdjustment = calculateSiegeBalanceAdjustment(siege.attackerBattlePoints, siege.defenderBattlePoints, winnerTakesAll);
+				if (recomputedAdjustment != record.getValue())
+					siege.numMismatchedBattleResults++;
+				siege.siegeBalanceAdjustments += record.getValue();
+				siege.numBattles++;
+				siege.attackerBattlePoints = 0;
+				siege.defenderBattlePoints = 0;
+				siege.bannerControllingSide = SiegeJournalRecord.SIDE_NOBODY;
+				break;
+			case SIEGE_OUTCOME:
+				siege.finished = true;
+				siege.winner = record.getSide();
+				siege.finalSiegeBalance = record.getValue();
+				break;
+			default:
+		}
+	}
+
+	/**
+	 * Same calculation as SiegeWarBattleSessionUtil.calculateSiegeBalanceAdjustment.
+	 */
+	private static int calculateSiegeBalanceAdjustment(int attackerBattlePoints, int defenderBattlePoints, boolean winnerTakesAll) {
+		if (!winnerTakesAll)
+			return attackerBattlePoints - defenderBattlePoints;
+		if (attackerBattlePoints > defenderBattlePoints)
+			return attackerBattlePoints;
+		if (attackerBattlePoints < defenderBattlePoints)
+			return -defenderBattlePoints;
+		return 0;
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1) {
+			System.out.println("Usage: SiegeWarJournalReplayer <journal folder> [--winner-takes-all]");
+			return;
+		}
+		boolean winnerTakesAll = args.length > 1 && args[1].equalsIgnoreCase("--winner-takes-all");
+		Map<UUID, ReplayedSiege> sieges = replay(getJournalFiles(Paths.get(args[0])), winnerTakesAll);
+		for (ReplayedSiege siege : sieges.values()) {
+			System.out.println(siege.getSiegeId()
+					+ " finished=" + siege.isFinished()
+					+ " battles=" + siege.getNumBattles()
+					+ " balanceAdjustments=" + siege.getSiegeBalanceAdjustments()
+					+ " mismatchedBattleResults=" + siege.getNumMismatchedBattleResults()
+					+ " attackerBattlePoints=" + siege.getAttackerBattlePoints()
+					+ " defenderBattlePoints=" + siege.getDefenderBattlePoints()
+					+ (siege.isFinished() ? " winner=" + siege.getWinner() + " finalBalance=" + siege.getFinalSiegeBalance() : ""));
+		}
+	}
+
+	public static class ReplayedSiege {
+		private final UUID siegeId;
+		private int attackerBattlePoints = 0;
+		private int defenderBattlePoints = 0;
+		private byte bannerControllingSide = SiegeJournalRecord.SIDE_NOBODY;
+		private int numBattles = 0;
+		private int siegeBalanceAdjustments = 0;
+		private int numMismatchedBattleResults = 0;
+		private boolean finished = false;
+		private byte winner = SiegeJournalRecord.SIDE_NOBODY;
+		private int finalSiegeBalance = 0;
+
+		private ReplayedSiege(UUID siegeId) {
+			this.siegeId = siegeId;
+		}
+
+		public UUID getSiegeId() {
+			return siegeId;
+		}
+
+		/**
+		 * @return the attacker battle points of the current battle
+		 */
+		public int getAttackerBattlePoints() {
+			return attackerBattlePoints;
+		}
+
+		/**
+		 * @return the defender battle points of the current battle
+		 */
+		public int getDefenderBattlePoints() {
+			return defenderBattlePoints;
+		}
+
+		public byte getBannerControllingSide() {
+			return bannerControllingSide;
+		}
+
+		public int getNumBattles() {
+			return numBattles;
+		}
+
+		/**
+		 * @return the sum of the battle results, i.e. the siege balance gained from battles
+		 */
+		public int getSiegeBalanceAdjustments() {
+			return siegeBalanceAdjustments;
+		}
+
+		public int getNumMismatchedBattleResults() {
+			return numMismatchedBattleResults;
+		}
+
+		public boolean isFinished() {
+			return finished;
+		}
+
+		public byte getWinner() {
+			return winner;
+		}
+
+		public int getFinalSiegeBalance() {
+			return finalSiegeBalance;
+		}
+	}
+}
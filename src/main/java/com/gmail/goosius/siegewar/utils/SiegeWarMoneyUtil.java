@@ -19,18 +19,24 @@ import com.palmergames.bukkit.towny.object.Nation;
 import com.palmergames.bukkit.towny.object.Resident;
 import com.palmergames.bukkit.towny.object.Town;
 import com.palmergames.bukkit.towny.object.Translatable;
+import com.palmergames.bukkit.towny.object.economy.Account;
 import com.palmergames.bukkit.towny.utils.MoneyUtil;
 
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 
 public class SiegeWarMoneyUtil {
 
-	private static double estimatedTotalMoneyInEconomy = 0;
+	private static final int BALANCE_FETCH_SLICE_SIZE = 50;
+	private static volatile double estimatedTotalMoneyInEconomy = 0;
+	private static volatile long estimatedTotalMoneyInEconomyTime = 0;
+	//Only read and written on the main thread.
+	private static boolean moneySupplyEstimateInProgress = false;
 
 	/**
 	 * Give the war chest at the end of the siege, as long as it was a Conquest Siege.
@@ -426,6 +432,12 @@ public class SiegeWarMoneyUtil {
 	 * <p>
 	 * Result = (All money in town banks + All money in nation banks)
 	 * +10% (an estimate of how much else residents are carrying)
+	 * <p>
+	 * The calculation runs in phases, so that the economy plugin is only ever called from a safe thread:
+	 * 1. On the main thread, the bank accounts of qualifying towns and nations are snapshotted into an array.
+	 * 2. The balances are read in slices, one slice per tick, on the main thread.
+	 *    If Towny is configured to use the economy asynchronously, they are instead all read on an async thread.
+	 * 3. Back on the main thread, the estimate is calculated and published.
 	 *
 	 * @param siegeWarPluginError true if SW is in error.
 	 */
@@ -440,21 +452,70 @@ public class SiegeWarMoneyUtil {
 		if(!TownyEconomyHandler.isActive()) {
 			return;
 		}
-		SiegeWar.getSiegeWar().getScheduler().runAsync(SiegeWarMoneyUtil::calculateEstimatedTotalMoneyInEconomyNow);
+		SiegeWar.getSiegeWar().getScheduler().run(SiegeWarMoneyUtil::startMoneySupplyEstimate);
+	}
+
+	private static void startMoneySupplyEstimate() {
+		if (moneySupplyEstimateInProgress)
+			return;
+		MoneySupplyEstimate estimate = new MoneySupplyEstimate();
+		if (estimate.accounts.length == 0)
+			return;
+		moneySupplyEstimateInProgress = true;
+		if (TownySettings.isEconomyAsync()) {
+			SiegeWar.getSiegeWar().getScheduler().runAsync(() -> {
+				try {
+					estimate.fetchBalances(0, estimate.accounts.length);
+				} catch (RuntimeException e) {
+					SiegeWar.getSiegeWar().getScheduler().run(() -> abortMoneySupplyEstimate(e));
+					return;
+				}
+				SiegeWar.getSiegeWar().getScheduler().run(() -> finishMoneySupplyEstimate(estimate));
+			});
+		} else {
+			fetchMoneySupplySlice(estimate, 0);
+		}
+	}
+
+	private static void fetchMoneySupplySlice(MoneySupplyEstimate estimate, int from) {
+		int to = Math.min(from + BALANCE_FETCH_SLICE_SIZE, estimate.accounts.length);
+		try {
+			estimate.fetchBalances(from, to);
+		} catch (RuntimeException e) {
+			abortMoneySupplyEstimate(e);
+			return;
+		}
+		if (to < estimate.accounts.length)
+			SiegeWar.getSiegeWar().getScheduler().runLater(() -> fetchMoneySupplySlice(estimate, to), 1L);
+		else
+			finishMoneySupplyEstimate(estimate);
+	}
+
+	/*
+	 * Called when the economy plugin throws while balances are fetched,
+	 * so that a later estimate can still run.
+	 */
+	private static void abortMoneySupplyEstimate(RuntimeException e) {
+		moneySupplyEstimateInProgress = false;
+		SiegeWar.severe("Problem estimating the total money in the economy: " + e.getMessage());
+		e.printStackTrace();
 	}
 
-	private static void calculateEstimatedTotalMoneyInEconomyNow() {
+	private static void finishMoneySupplyEstimate(MoneySupplyEstimate estimate) {
+		moneySupplyEstimateInProgress = false;
+
 		//Calculate estimated total money in economy
 		double result = 0;
-		result += calculateEstimatedTotalMoneyInTowns();
-		result += calculateEstimatedTotalMoneyInNations();
+		result += estimate.calculateEstimatedTotalMoney(0, estimate.numTownAccounts);
+		result += estimate.calculateEstimatedTotalMoney(estimate.numTownAccounts, estimate.accounts.length);
 		result *= 1.1; //Add 10% as an estimate for what residents have 
 		estimatedTotalMoneyInEconomy = result;
+		estimatedTotalMoneyInEconomyTime = System.currentTimeMillis();
 
 		//Show useful info in console
 		SiegeWar.info("Estimated Total Money In Economy: " + estimatedTotalMoneyInEconomy);
-		SiegeWar.info("Total Number of Townblocks: " + TownyAPI.getInstance().getTownBlocks().size());
-		SiegeWar.info("Estimated Value Per Townblock: " + estimatedTotalMoneyInEconomy / TownyAPI.getInstance().getTownBlocks().size());
+		SiegeWar.info("Total Number of Townblocks: " + estimate.numTownBlocks);
+		SiegeWar.info("Estimated Value Per Townblock: " + estimatedTotalMoneyInEconomy / estimate.numTownBlocks);
 
 		//If warnings are enabled, show ideal/actual
 		if(SiegeWarSettings.isBadConfigWarningsEnabled()) {
@@ -480,69 +541,76 @@ public class SiegeWarMoneyUtil {
 		return estimatedTotalMoneyInEconomy;
 	}
 
-	private static double calculateEstimatedTotalMoneyInTowns() {
-		double result = 0;
-		
-		//Calculate the average.
-		double totalMoneyInAllTowns = 0;
-		for(Town town: TownyAPI.getInstance().getTowns()) {
-			if(town.hasMayor() && !town.getMayor().isNPC()) {
-				totalMoneyInAllTowns += town.getAccount().getHoldingBalance();
-			}
-		}
-		double averageMoneyPerTown = totalMoneyInAllTowns / TownyAPI.getInstance().getTowns().size();
+	/**
+	 * @return the time (in millis) when the last money estimate completed, or 0 if none has completed yet.
+	 */
+	public static long getEstimatedTotalMoneyInEconomyTime() {
+		return estimatedTotalMoneyInEconomyTime;
+	}
 
-		/*
-		 * Calculate the result, 
-		 * Some edge cases may be abnormally high. These could be admin towns or people who were cheating.
-		 * In these case, assign the average value.
-		 */
-		double edgeCaseThreshold = averageMoneyPerTown * 3;
-		double moneyInOneTown;
-		for(Town town: TownyAPI.getInstance().getTowns()) {
-			if(town.hasMayor() && !town.getMayor().isNPC()) {
-				moneyInOneTown = town.getAccount().getHoldingBalance();
-				if (moneyInOneTown < edgeCaseThreshold) {
-					result += moneyInOneTown;
-				} else {
-					result += averageMoneyPerTown;
+	/**
+	 * A snapshot of the bank accounts which go into the money estimate,
+	 * taken on the main thread, plus the balances as they are fetched.
+	 * <p>
+	 * Town accounts come first in the array, followed by nation accounts.
+	 */
+	private static class MoneySupplyEstimate {
+		private final Account[] accounts;
+		private final double[] balances;
+		private final int numTownAccounts;
+		private final int numTowns;
+		private final int numTownBlocks;
+
+		private MoneySupplyEstimate() {
+			List<Account> accountList = new ArrayList<>();
+			for(Town town: TownyAPI.getInstance().getTowns()) {
+				if(town.hasMayor() && !town.getMayor().isNPC()) {
+					accountList.add(town.getAccount());
 				}
 			}
+			numTownAccounts = accountList.size();
+			for(Nation nation: TownyAPI.getInstance().getNations()) {
+				if(nation.hasKing() && !nation.getKing().isNPC()) {
+					accountList.add(nation.getAccount());
+				}
+			}
+			accounts = accountList.toArray(new Account[0]);
+			balances = new double[accounts.length];
+			numTowns = TownyAPI.getInstance().getTowns().size();
+			numTownBlocks = TownyAPI.getInstance().getTownBlocks().size();
 		}
-		
-		return result;
-	}
-
-	private static double calculateEstimatedTotalMoneyInNations() {
-		double result = 0;
 
-		//Calculate the average.
-		double totalMoneyInAllNations = 0;
-		for(Nation nation: TownyAPI.getInstance().getNations()) {
-			if(nation.hasKing() && !nation.getKing().isNPC()) {
-				totalMoneyInAllNations += nation.getAccount().getHoldingBalance();
+		private void fetchBalances(int from, int to) {
+			for (int i = from; i < to; i++) {
+				balances[i] = accounts[i].getHoldingBalance();
 			}
 		}
-		double averageMoneyPerNation = totalMoneyInAllNations / TownyAPI.getInstance().getTowns().size();
 
-		/*
-		 * Calculate the result,
-		 * Some edge cases may be abnormally high. These could be admin nations or people who were cheating.
+		/**
+		 * Total the balances in the given range.
+		 * Some edge cases may be abnormally high. These could be admin towns/nations or people who were cheating.
 		 * In these case, assign the average value.
 		 */
-		double edgeCaseThreshold = averageMoneyPerNation * 3;
-		double moneyInOneNation;
-		for(Nation nation: TownyAPI.getInstance().getNations()) {
-			if(nation.hasKing() && !nation.getKing().isNPC()) {
-				moneyInOneNation = nation.getAccount().getHoldingBalance();
-				if (moneyInOneNation < edgeCaseThreshold) {
-					result += moneyInOneNation;
+		private double calculateEstimatedTotalMoney(int from, int to) {
+			double result = 0;
+
+			//Calculate the average.
+			double totalMoney = 0;
+			for (int i = from; i < to; i++) {
+				totalMoney += balances[i];
+			}
+			double averageMoney = totalMoney / numTowns;
+
+			//Calculate the result
+			double edgeCaseThreshold = averageMoney * 3;
+			for (int i = from; i < to; i++) {
+				if (balances[i] < edgeCaseThreshold) {
+					result += balances[i];
 				} else {
-					result += averageMoneyPerNation;
+					result += averageMoney;
 				}
 			}
+			return result;
 		}
-
-		return result;
 	}
 }
@@ -3,125 +3,154 @@ package com.gmail.goosius.siegewar.utils;
 import com.gmail.goosius.siegewar.Messaging;
 import com.gmail.goosius.siegewar.SiegeController;
 import com.gmail.goosius.siegewar.SiegeWar;
+import com.gmail.goosius.siegewar.objects.BattleSession;
+import com.gmail.goosius.siegewar.objects.BattleSessionChatRestriction;
 import com.gmail.goosius.siegewar.objects.Siege;
 import com.gmail.goosius.siegewar.settings.SiegeWarSettings;
-import com.palmergames.bukkit.towny.TownyMessaging;
+import com.palmergames.bukkit.towny.TownyAPI;
+import com.palmergames.bukkit.towny.exceptions.TownyException;
 import com.palmergames.bukkit.towny.object.Nation;
+import com.palmergames.bukkit.towny.object.Resident;
 import com.palmergames.bukkit.towny.object.Town;
 import com.palmergames.bukkit.towny.object.Translatable;
 
-import com.palmergames.util.TimeMgmt;
+import com.palmergames.util.StringMgmt;
 import org.bukkit.Bukkit;
+import org.bukkit.Location;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class SiegeWarNotificationUtil {
 
 	/**
-	 * This is a record of which players have received proximity siege zone warnings
+	 * This is a record of which siege warning-rings each online player was inside, as of the last evaluation.
+	 *
+	 * Key is the player UUID.
+	 * Each bit in the value is the slot id of a siege (see Siege.getSlotId()).
+	 *
+	 * A player is warned when a bit appears which was not there before i.e. on ring entry.
+	 * Bits disappear when the player leaves the ring, so re-entry generates a new warning.
 	 */
-	private static Map<Player, Set<Siege>> siegeZoneProximityWarningsReceivedMap = new HashMap<>();
+	private static Map<UUID, BitSet> siegeZoneProximityWarningsReceivedMap = new HashMap<>();
+
+	/**
+	 * This is a cache of the online participants of each siege, used to send siege messages.
+	 * Siege messages are sent from region threads when running on Folia, so this map must be safe to use from any thread.
+	 */
+	private static Map<Siege, SiegeParticipantAudience> siegeParticipantAudiences = new ConcurrentHashMap<>();
 
 	/**
 	 * Send all siegezone proximity warnings
 	 * 
-	 * Each player in an active siegezone gets a warning
-	 * 
-	 * A player is not warned if they are already on the warningsReceived map
-	 * The warningsReceived map is cleared every hour
-	 * 
+	 * Each player who has entered the warning-ring of an active siege since the last evaluation gets a warning.
+	 * The warning-ring is the siegezone, plus a configured buffer.
+	 *
+	 * Players are found via the per-tick chunk buckets,
+	 * so that whole chunks outside the ring are skipped without measuring individual players.
 	 */
 	public static void sendSiegeZoneProximityWarnings() {
-		for (Player player : Bukkit.getOnlinePlayers()) {
-			sendSiegeZoneProximityWarning(player);
+		int ringRadius = SiegeWarSettings.getWarSiegeZoneProximityWarningRadiusBlocks();
+		int ringRadiusChunks = (ringRadius >> 4) + 1;
+		Map<UUID, BitSet> ringsOccupiedNow = new HashMap<>();
+		Location scratchLocation = new Location(null, 0, 0, 0);
+
+		for (Siege siege : SiegeController.getSieges()) {
+			if (!siege.getStatus().isActive() || siege.getSlotId() < 0)
+				continue;
+			Location flagLocation = siege.getFlagLocation();
+			int flagChunkX = flagLocation.getBlockX() >> 4;
+			int flagChunkZ = flagLocation.getBlockZ() >> 4;
+			for (Map.Entry<Long, List<Player>> bucket : SiegeWarDistanceUtil.getPlayerChunkBuckets(flagLocation.getWorld()).entrySet()) {
+				if (Math.abs(SiegeWarDistanceUtil.getChunkX(bucket.getKey()) - flagChunkX) > ringRadiusChunks
+						|| Math.abs(SiegeWarDistanceUtil.getChunkZ(bucket.getKey()) - flagChunkZ) > ringRadiusChunks)
+					continue;
+				for (Player player : bucket.getValue()) {
+					if (SiegeWarDistanceUtil.areLocationsCloseHorizontally(player.getLocation(scratchLocation), flagLocation, ringRadius))
+						ringsOccupiedNow.computeIfAbsent(player.getUniqueId(), k -> new BitSet()).set(siege.getSlotId());
+				}
+			}
 		}
-	}
 
-	public static void sendSiegeZoneProximityWarning(Player player) {
-		Siege activeSiegeAtPlayerLocation = SiegeController.getActiveSiegeAtLocation(player);
-		if (activeSiegeAtPlayerLocation != null) {
-			sendSiegeZoneProximityWarning(player, activeSiegeAtPlayerLocation);
+		for (Map.Entry<UUID, BitSet> entry : ringsOccupiedNow.entrySet()) {
+			BitSet previouslyOccupied = siegeZoneProximityWarningsReceivedMap.get(entry.getKey());
+			if (previouslyOccupied != null) {
+				BitSet newlyEntered = (BitSet) entry.getValue().clone();
+				newlyEntered.andNot(previouslyOccupied);
+				if (newlyEntered.isEmpty())
+					continue;
+			}
+			Player player = Bukkit.getPlayer(entry.getKey());
+			if (player != null)
+				Messaging.sendErrorMsg(player, Translatable.of("msg_siege_zone_proximity_warning"));
 		}
+		siegeZoneProximityWarningsReceivedMap = ringsOccupiedNow;
 	}
 
 	public static void sendSiegeZoneProximityWarning(Player player, @NotNull Siege activeSiegeAtPlayerLocation) {
-		//Check if player is on warnings-received map
-		if (!siegeZoneProximityWarningsReceivedMap.containsKey(player)) {
-			//Player is not on the warnings-received map
-			Set<Siege> warningsReceivedSet = new HashSet<>();
-			warningsReceivedSet.add(activeSiegeAtPlayerLocation);
-			siegeZoneProximityWarningsReceivedMap.put(player, warningsReceivedSet);
+		if (activeSiegeAtPlayerLocation.getSlotId() < 0)
+			return;
+		BitSet warningsReceived = siegeZoneProximityWarningsReceivedMap.computeIfAbsent(player.getUniqueId(), k -> new BitSet());
+		if (!warningsReceived.get(activeSiegeAtPlayerLocation.getSlotId())) {
+			//Player has not received a warning for this siege
+			warningsReceived.set(activeSiegeAtPlayerLocation.getSlotId());
 			Messaging.sendErrorMsg(player, Translatable.of("msg_siege_zone_proximity_warning"));
-		} else {
-			//Player is already on the warnings-receieved map
-			Set<Siege> warningsReceivedSet = siegeZoneProximityWarningsReceivedMap.get(player);
-			if (!warningsReceivedSet.contains(activeSiegeAtPlayerLocation)) {
-				//Player has not received a warning for this siege
-				warningsReceivedSet.add(activeSiegeAtPlayerLocation);
-				Messaging.sendErrorMsg(player, Translatable.of("msg_siege_zone_proximity_warning"));
-			}
 		}
 	}
 
+	/**
+	 * Forget all warnings for the given siege slot,
+	 * so that a new siege which reuses the slot generates fresh warnings.
+	 *
+	 * @param slotId the slot id of the siege being removed
+	 */
+	public static void forgetSiegeSlot(int slotId) {
+		for (BitSet warningsReceived : siegeZoneProximityWarningsReceivedMap.values())
+			warningsReceived.clear(slotId);
+	}
+
+	public static void clearSiegeZoneProximityWarningsReceived(Player player) {
+		siegeZoneProximityWarningsReceivedMap.remove(player.getUniqueId());
+	}
+
 	public static void clearSiegeZoneProximityWarningsReceived() {
 		siegeZoneProximityWarningsReceivedMap.clear();
 	}
 
+	/**
+	 * Inform the participants of the given siege.
+	 *
+	 * Participants are the online residents of the attacking nation (or town) and its allies,
+	 * and the defending nation (or town) and its allies.
+	 * Each participant sees the message with their own town or nation prefix.
+	 *
+	 * The participant audience is cached per siege (see getSiegeParticipantAudience),
+	 * so sending a message is a single pass over a prebuilt list.
+	 *
+	 * @param siege the siege
+	 * @param message the message lines. Null lines are skipped.
+	 */
 	public static void informSiegeParticipants(Siege siege, Translatable... message) {
-
 		try {
-			//Build list of who to inform
-			Nation nation;
-			Set<Nation> nationsToInform = new HashSet<>();
-			Set<Town> townsToInform= new HashSet<>();
-
-			//Attackers
-			if(siege.getAttacker() instanceof Nation) {
-				//Attacker is a nation
-				nation = (Nation)siege.getAttacker();
-				nationsToInform.add(nation);
-				nationsToInform.addAll(nation.getMutualAllies());
-			} else if (((Town)siege.getAttacker()).hasNation()) {
-				//Attacker is a nation town
-				nation = ((Town)siege.getAttacker()).getNation();
-				nationsToInform.add(nation);
-				nationsToInform.addAll(nation.getMutualAllies());
-			} else {
-				//Attacker is a non-nation town
-				townsToInform.add((Town)siege.getAttacker());
-			}
+			for (Translatable line : message)
+				if (line != null)
+					SiegeWar.info("[Siege Msg] " + siege.getTown().getName() + ": " + line.defaultLocale());
 
-			//Defenders
-			if(siege.getDefender() instanceof Nation) {
-				//Defender is a nation
-				nation = (Nation)siege.getDefender();
-				nationsToInform.add(nation);
-				nationsToInform.addAll(nation.getMutualAllies());
-			} else if (((Town)siege.getDefender()).hasNation()) {
-				//Defender is a nation town
-				nation = ((Town)siege.getDefender()).getNation();
-				nationsToInform.add(nation);
-				nationsToInform.addAll(nation.getMutualAllies());
-			} else {
-				//Defender is a non-nation town
-				townsToInform.add((Town)siege.getDefender());
-			}
-
-			//Inform required towns and nations
-			for(Nation nationToInform: nationsToInform) {
-				for (Translatable line : message) 
-					if (line != null)
-						TownyMessaging.sendPrefixedNationMessage(nationToInform, line);
-			}
-			for(Town townToInform: townsToInform) {
+			for (SiegeParticipant participant : getSiegeParticipantAudience(siege).participants) {
+				String prefix = Translatable.of(participant.prefixKey, participant.prefixName).forLocale(participant.player);
 				for (Translatable line : message)
 					if (line != null)
-						TownyMessaging.sendPrefixedTownMessage(townToInform, line);
+						participant.player.sendMessage(prefix + line.forLocale(participant.player));
 			}
 
 		} catch (Exception e) {
@@ -131,11 +160,183 @@ public class SiegeWarNotificationUtil {
 		}
 	}
 
+	/**
+	 * Get the online participants of the given siege, building the list if it is not cached.
+	 *
+	 * The cache is invalidated whenever something could change the audience
+	 * i.e. attacker or defender changes, nation membership, alliances, town residency, renames and deletions.
+	 * Players joining or quitting only update the cached audiences they belong to.
+	 *
+	 * @param siege the siege
+	 * @return the online participants
+	 * @throws TownyException if a town's nation cannot be resolved
+	 */
+	private static SiegeParticipantAudience getSiegeParticipantAudience(Siege siege) throws TownyException {
+		SiegeParticipantAudience audience = siegeParticipantAudiences.get(siege);
+		if (audience == null) {
+			audience = buildSiegeParticipantAudience(siege);
+			SiegeParticipantAudience existingAudience = siegeParticipantAudiences.putIfAbsent(siege, audience);
+			if (existingAudience != null)
+				audience = existingAudience;
+		}
+		return audience;
+	}
+
+	private static SiegeParticipantAudience buildSiegeParticipantAudience(Siege siege) throws TownyException {
+		//Build list of who to inform
+		Nation nation;
+		Set<Nation> nationsToInform = new HashSet<>();
+		Set<Town> townsToInform= new HashSet<>();
+
+		//Attackers
+		if(siege.getAttacker() instanceof Nation) {
+			//Attacker is a nation
+			nation = (Nation)siege.getAttacker();
+			nationsToInform.add(nation);
+			nationsToInform.addAll(nation.getMutualAllies());
+		} else if (((Town)siege.getAttacker()).hasNation()) {
+			//Attacker is a nation town
+			nation = ((Town)siege.getAttacker()).getNation();
+			nationsToInform.add(nation);
+			nationsToInform.addAll(nation.getMutualAllies());
+		} else {
+			//Attacker is a non-nation town
+			townsToInform.add((Town)siege.getAttacker());
+		}
+
+		//Defenders
+		if(siege.getDefender() instanceof Nation) {
+			//Defender is a nation
+			nation = (Nation)siege.getDefender();
+			nationsToInform.add(nation);
+			nationsToInform.addAll(nation.getMutualAllies());
+		} else if (((Town)siege.getDefender()).hasNation()) {
+			//Defender is a nation town
+			nation = ((Town)siege.getDefender()).getNation();
+			nationsToInform.add(nation);
+			nationsToInform.addAll(nation.getMutualAllies());
+		} else {
+			//Defender is a non-nation town
+			townsToInform.add((Town)siege.getDefender());
+		}
+
+		//Resolve online residents
+		List<SiegeParticipant> participants = new ArrayList<>();
+		Set<UUID> nationUUIDs = new HashSet<>();
+		Set<UUID> townUUIDs = new HashSet<>();
+		for(Nation nationToInform: nationsToInform) {
+			nationUUIDs.add(nationToInform.getUUID());
+			String nationName = StringMgmt.remUnderscore(nationToInform.getName());
+			for (Player player : TownyAPI.getInstance().getOnlinePlayers(nationToInform))
+				participants.add(new SiegeParticipant(player, "default_nation_prefix", nationName));
+		}
+		for(Town townToInform: townsToInform) {
+			townUUIDs.add(townToInform.getUUID());
+			String townName = StringMgmt.remUnderscore(townToInform.getName());
+			for (Player player : TownyAPI.getInstance().getOnlinePlayers(townToInform))
+				participants.add(new SiegeParticipant(player, "default_town_prefix", townName));
+		}
+		return new SiegeParticipantAudience(nationUUIDs, townUUIDs, participants);
+	}
+
+	public static void invalidateSiegeParticipantAudiences() {
+		siegeParticipantAudiences.clear();
+	}
+
+	public static void invalidateSiegeParticipantAudience(Siege siege) {
+		siegeParticipantAudiences.remove(siege);
+	}
+
+	/**
+	 * Add the given player to the cached audiences of the sieges their town or nation is informed about.
+	 *
+	 * @param player the player who joined
+	 */
+	public static void addPlayerToSiegeParticipantAudiences(Player player) {
+		Resident resident = TownyAPI.getInstance().getResident(player);
+		Town town = resident != null ? resident.getTownOrNull() : null;
+		if (town == null)
+			return;
+		Nation nation = town.getNationOrNull();
+		siegeParticipantAudiences.replaceAll((siege, audience) -> audience.withPlayer(player, town, nation));
+	}
+
+	/**
+	 * Remove the given player from the cached audiences.
+	 *
+	 * @param player the player who quit
+	 */
+	public static void removePlayerFromSiegeParticipantAudiences(Player player) {
+		siegeParticipantAudiences.replaceAll((siege, audience) -> audience.withoutPlayer(player));
+	}
+
+	/**
+	 * The online participants of a siege,
+	 * with the nations and non-nation towns whose residents are informed.
+	 * Instances are immutable, so joins and quits replace them.
+	 */
+	private static class SiegeParticipantAudience {
+		private final Set<UUID> nationUUIDs;
+		private final Set<UUID> townUUIDs;
+		private final List<SiegeParticipant> participants;
+
+		private SiegeParticipantAudience(Set<UUID> nationUUIDs, Set<UUID> townUUIDs, List<SiegeParticipant> participants) {
+			this.nationUUIDs = nationUUIDs;
+			this.townUUIDs = townUUIDs;
+			this.participants = Collections.unmodifiableList(participants);
+		}
+
+		private SiegeParticipantAudience withPlayer(Player player, Town town, Nation nation) {
+			SiegeParticipant newParticipant;
+			if (nation != null && nationUUIDs.contains(nation.getUUID()))
+				newParticipant = new SiegeParticipant(player, "default_nation_prefix", StringMgmt.remUnderscore(nation.getName()));
+			else if (nation == null && townUUIDs.contains(town.getUUID()))
+				newParticipant = new SiegeParticipant(player, "default_town_prefix", StringMgmt.remUnderscore(town.getName()));
+			else
+				return this;
+			List<SiegeParticipant> newParticipants = new ArrayList<>(participants.size() + 1);
+			for (SiegeParticipant participant : participants)
+				if (!participant.player.getUniqueId().equals(player.getUniqueId()))
+					newParticipants.add(participant);
+			newParticipants.add(newParticipant);
+			return new SiegeParticipantAudience(nationUUIDs, townUUIDs, newParticipants);
+		}
+
+		private SiegeParticipantAudience withoutPlayer(Player player) {
+			List<SiegeParticipant> newParticipants = new ArrayList<>(participants.size());
+			for (SiegeParticipant participant : participants)
+				if (!participant.player.getUniqueId().equals(player.getUniqueId()))
+					newParticipants.add(participant);
+			if (newParticipants.size() == participants.size())
+				return this;
+			return new SiegeParticipantAudience(nationUUIDs, townUUIDs, newParticipants);
+		}
+	}
+
+	/**
+	 * An online player who should be informed about a siege,
+	 * with the government prefix they would see on a town or nation message.
+	 */
+	private static class SiegeParticipant {
+		private final Player player;
+		private final String prefixKey;
+		private final String prefixName;
+
+		private SiegeParticipant(Player player, String prefixKey, String prefixName) {
+			this.player = player;
+			this.prefixKey = prefixKey;
+			this.prefixName = prefixName;
+		}
+	}
+
 	public static void notifyPlayerOfBattleSessionChatRestriction(Player player, String channelName) {
-		String formattedDisableTime = TimeMgmt.getFormattedTimeValue(SiegeWarSettings.getToxicityReductionChatRestorationAfterBattleSessionMillis());
+		notifyPlayerOfBattleSessionChatRestriction(player, channelName, BattleSession.getChatRestriction());
+	}
+
+	public static void notifyPlayerOfBattleSessionChatRestriction(Player player, String channelName, BattleSessionChatRestriction chatRestriction) {
 		String langStringKey = "msg_err_no_"+ channelName + "_chat_in_battle_session";
-		Translatable message = Translatable.of(langStringKey, formattedDisableTime);
-		String discordLink = SiegeWarSettings.getToxicityReductionServerDiscordLink();
+		Translatable message = Translatable.of(langStringKey, chatRestriction.getFormattedRestrictionDuration());
+		String discordLink = chatRestriction.getDiscordLink();
 		if (!discordLink.isEmpty())
 			message.append(Translatable.of("msg_can_also_chat_in_discord", discordLink));
 		Messaging.sendMsg(player, message);
@@ -6,10 +6,11 @@ import com.gmail.goosius.siegewar.objects.Siege;
 import com.gmail.goosius.siegewar.settings.SiegeWarSettings;
 import com.palmergames.bukkit.towny.TownyAPI;
 import com.palmergames.bukkit.towny.object.Translatable;
-import org.bukkit.entity.Entity;
 import org.bukkit.entity.Player;
-import org.bukkit.entity.Projectile;
-import org.bukkit.event.entity.EntityDamageByEntityEvent;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * This class contains utility functions related to battle scoring - i.e. battle points and siege balance
@@ -18,6 +19,9 @@ import org.bukkit.event.entity.EntityDamageByEntityEvent;
  */
 public class SiegeWarScoringUtil {
 
+	//Death penalty points awarded since the last short tick, not yet applied to the sieges
+	private static final Map<Siege, PendingPenaltyPoints> pendingPenaltyPoints = new ConcurrentHashMap<>();
+
 	/**
 	 * This method determines if a players is in the 'timed point zone' of a siege
 	 * 
@@ -36,55 +40,69 @@ public class SiegeWarScoringUtil {
 	}
 
 	/**
-	 * This method applies penalty battle points to a player if they are in the given siegezone
+	 * This method awards penalty battle points to the opposing side of a player who died in the given siegezone
 	 * Offline players will also be punished
 	 *
+	 * The points are only accumulated here.
+	 * They are applied to the siege, saved, and announced once per short tick, by applyPendingPenaltyPoints.
+	 *
 	 * @param residentIsAttacker is the resident an attacker or defender?
-	 * @param player the player who the penalty relates to
 	 * @param siege the siege to apply the penalty to
 	 */
-	public static void awardPenaltyPoints(boolean residentIsAttacker,
-										  Player player,
-										  Siege siege) {
-
-		//Give battle points to opposing side
-		int battlePoints; 
+	public static void awardPenaltyPoints(boolean residentIsAttacker, Siege siege) {
+		PendingPenaltyPoints pending = pendingPenaltyPoints.computeIfAbsent(siege, k -> new PendingPenaltyPoints());
 		if (residentIsAttacker) {
-			battlePoints = SiegeWarSettings.getWarBattlePointsForAttackerDeath();
-			battlePoints = applyBattlePointsPenaltyForBannerControl(true, battlePoints, siege);
-			siege.adjustDefenderBattlePoints(battlePoints);
+			int battlePoints = applyBattlePointsPenaltyForBannerControl(true, SiegeWarSettings.getWarBattlePointsForAttackerDeath(), siege);
+			pending.defenderPoints.addAndGet(battlePoints);
+			pending.attackerDeaths.incrementAndGet();
 		} else {
-			battlePoints = SiegeWarSettings.getWarBattlePointsForDefenderDeath();
-			battlePoints = applyBattlePointsPenaltyForBannerControl(false, battlePoints, siege);
-			siege.adjustAttackerBattlePoints(battlePoints);
+			int battlePoints = applyBattlePointsPenaltyForBannerControl(false, SiegeWarSettings.getWarBattlePointsForDefenderDeath(), siege);
+			pending.attackerPoints.addAndGet(battlePoints);
+			pending.defenderDeaths.incrementAndGet();
 		}
+	}
 
-		//Save siege to db
-		SiegeController.saveSiege(siege);
+	/**
+	 * Apply the penalty points accumulated since the last call.
+	 * Each siege with new deaths is saved once, and its participants get one message per side.
+	 *
+	 * Called on each short tick, and before battle results are calculated.
+	 */
+	public static void applyPendingPenaltyPoints() {
+		for (Map.Entry<Siege, PendingPenaltyPoints> entry : pendingPenaltyPoints.entrySet()) {
+			Siege siege = entry.getKey();
+			PendingPenaltyPoints pending = entry.getValue();
+			int attackerDeaths = pending.attackerDeaths.getAndSet(0);
+			int defenderPoints = pending.defenderPoints.getAndSet(0);
+			int defenderDeaths = pending.defenderDeaths.getAndSet(0);
+			int attackerPoints = pending.attackerPoints.getAndSet(0);
 
-		//Generate message
-		String langKey;
-		Translatable message;
-		Player killer = getPlayerKiller(player);
-		if(killer != null) {
-			langKey = residentIsAttacker ? 	"msg_siege_war_attacker_killed_by_player" : "msg_siege_war_defender_killed_by_player";
-			message = Translatable.of(
-				langKey,
-				siege.getTown().getName(),
-				player.getName(),
-				killer.getName(),
-				Math.abs(battlePoints));
-		} else {
-			langKey = residentIsAttacker ? 	"msg_siege_war_attacker_death" : "msg_siege_war_defender_death";
-			message = Translatable.of(
-				langKey,
-				siege.getTown().getName(),
-				player.getName(),
-				Math.abs(battlePoints));
-		}
+			//Forget sieges which have been removed
+			if (SiegeController.getSiegeByTownUUID(siege.getTown().getUUID()) != siege) {
+				pendingPenaltyPoints.remove(siege);
+				continue;
+			}
+			//A death awarded mid-drain may have its points and its count split across two calls, so each is checked separately
+			if (attackerDeaths == 0 && defenderPoints == 0 && defenderDeaths == 0 && attackerPoints == 0)
+				continue;
+
+			if (defenderPoints != 0) {
+				siege.adjustDefenderBattlePoints(defenderPoints);
+				SiegeWarJournal.logDeathPenaltyPoints(siege, SiegeSide.DEFENDERS, defenderPoints);
+			}
+			if (attackerPoints != 0) {
+				siege.adjustAttackerBattlePoints(attackerPoints);
+				SiegeWarJournal.logDeathPenaltyPoints(siege, SiegeSide.ATTACKERS, attackerPoints);
+			}
+
+			//Save siege to db
+			SiegeController.saveSiege(siege);
 
-		//Send messages to siege participants
-		SiegeWarNotificationUtil.informSiegeParticipants(siege, message);
+			//Send messages to siege participants
+			SiegeWarNotificationUtil.informSiegeParticipants(siege,
+				attackerDeaths > 0 ? Translatable.of("msg_siege_war_attacker_deaths_summary", siege.getTown().getName(), attackerDeaths, Math.abs(defenderPoints)) : null,
+				defenderDeaths > 0 ? Translatable.of("msg_siege_war_defender_deaths_summary", siege.getTown().getName(), defenderDeaths, Math.abs(attackerPoints)) : null);
+		}
 	}
 
 	public static int applyBattlePointsPenaltyForBannerControl(boolean residentIsAttacker, int battlePoints, Siege siege) {
@@ -103,26 +121,13 @@ public class SiegeWarScoringUtil {
 	}
 
 	/**
-	 * If the given victim player was killed by another player, return the killer player.
-	 * Otherwise return null.
-     *
-	 * @return the player killer, if there was one
+	 * Death penalty counters of one siege.
+	 * Deaths can be evaluated on region threads when running on Folia, so the counters are atomic.
 	 */
-	public static Player getPlayerKiller(Player victim) {
-		if(victim.getLastDamageCause() instanceof EntityDamageByEntityEvent) {
-			EntityDamageByEntityEvent damageEvent = (EntityDamageByEntityEvent) victim.getLastDamageCause();
-			Entity attackerEntity = damageEvent.getDamager();
-
-			if (attackerEntity instanceof Projectile) { // Killed by projectile, try to narrow the true source of the kill.
-				Projectile projectile = (Projectile) attackerEntity;
-				if (projectile.getShooter() instanceof Player) { // Player shot a projectile.
-					return (Player) projectile.getShooter();
-				}
-			} else if (attackerEntity instanceof Player) {
-				// This was a player kill
-				return (Player) attackerEntity;
-			}
-		}
-		return null; //This was not a PVP death
+	private static class PendingPenaltyPoints {
+		private final AtomicInteger attackerDeaths = new AtomicInteger(0);
+		private final AtomicInteger defenderPoints = new AtomicInteger(0);
+		private final AtomicInteger defenderDeaths = new AtomicInteger(0);
+		private final AtomicInteger attackerPoints = new AtomicInteger(0);
 	}
 }
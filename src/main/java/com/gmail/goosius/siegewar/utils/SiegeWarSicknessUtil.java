@@ -14,57 +14,57 @@ import com.palmergames.bukkit.towny.object.Resident;
 import com.palmergames.bukkit.towny.object.Translatable;
 import com.palmergames.util.TimeTools;
 
-import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.entity.Player;
 import org.bukkit.potion.PotionEffect;
 import org.bukkit.potion.PotionEffectType;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class SiegeWarSicknessUtil {
 
-    public static Set<Player> playersWithFullWarSickness = new HashSet<>();
+    //Players are evaluated on their own region threads when running on Folia, so this set must be thread-safe.
+    public static Set<Player> playersWithFullWarSickness = ConcurrentHashMap.newKeySet();
 
     /**
-     * Evaluate all war sickness:
+     * Evaluate the war sickness of one player:
      * - Unofficial Siege-Participant effects
+     *
+     * @param player the player
+     * @param nonOfficialLimiterEnabled true if non-official participants in siege zones are punished
      */
-    public static void evaluateWarSickness() {
-        boolean nonOfficialLimiterEnabled = SiegeWarSettings.getPunishingNonSiegeParticipantsInSiegeZone();
-        
-        for (Player player : Bukkit.getOnlinePlayers()) {
-            Location location = player.getLocation();
-
-            // Players immune to war nausea won't be punished
-            if (player.isOp() || player.hasPermission(SiegeWarPermissionNodes.SIEGEWAR_IMMUNE_TO_WAR_NAUSEA.getNode()))
-                continue;
-
-            // check if in a siege zone
-            Siege siege = SiegeController.getActiveSiegeAtLocation(location);
-            if (siege == null)
-                continue;
-
-            Resident resident = TownyUniverse.getInstance().getResident(player.getUniqueId());
-            if (resident == null)
-                continue;
-
-            if (nonOfficialLimiterEnabled && !isOfficialSiegeParticipant(player, resident, siege)) {
-                //Give war sickness to players who are not official participants in the SiegeZone
-                if (TownyAPI.getInstance().isWilderness(location)) {
-                    //In Wilderness - Full war sickness
-                    int warningDurationInSeconds = SiegeWarSettings.getNonResidentSicknessWarningTimeSeconds();
-                    givePlayerFullWarSicknessWithWarning(
-                        player,
-                        resident,
-                        siege,
-                        warningDurationInSeconds,
-                        Translatable.of("msg_you_will_get_sickness", warningDurationInSeconds),
-                        Translatable.of("msg_you_received_war_sickness"));
-                } else {
-                    //In a town - Special war sickness
-                    givePlayerSpecialWarSicknessNow(player);
-                }
+    public static void evaluateWarSickness(Player player, boolean nonOfficialLimiterEnabled) {
+        Location location = player.getLocation();
+
+        // Players immune to war nausea won't be punished
+        if (player.isOp() || player.hasPermission(SiegeWarPermissionNodes.SIEGEWAR_IMMUNE_TO_WAR_NAUSEA.getNode()))
+            return;
+
+        // check if in a siege zone
+        Siege siege = SiegeController.getActiveSiegeAtLocation(location);
+        if (siege == null)
+            return;
+
+        Resident resident = TownyUniverse.getInstance().getResident(player.getUniqueId());
+        if (resident == null)
+            return;
+
+        if (nonOfficialLimiterEnabled && !isOfficialSiegeParticipant(player, resident, siege)) {
+            //Give war sickness to players who are not official participants in the SiegeZone
+            if (TownyAPI.getInstance().isWilderness(location)) {
+                //In Wilderness - Full war sickness
+                int warningDurationInSeconds = SiegeWarSettings.getNonResidentSicknessWarningTimeSeconds();
+                givePlayerFullWarSicknessWithWarning(
+                    player,
+                    resident,
+                    siege,
+                    warningDurationInSeconds,
+                    Translatable.of("msg_you_will_get_sickness", warningDurationInSeconds),
+                    Translatable.of("msg_you_received_war_sickness"));
+            } else {
+                //In a town - Special war sickness
+                givePlayerSpecialWarSicknessNow(player);
             }
         }
     }
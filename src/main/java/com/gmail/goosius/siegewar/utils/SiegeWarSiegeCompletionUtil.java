@@ -37,6 +37,7 @@ public class SiegeWarSiegeCompletionUtil {
 
 		//Save to db
 		SiegeController.saveSiege(siege);
+		SiegeWarJournal.logSiegeOutcome(siege);
 
 		//Fire SiegeEnded event
 		Bukkit.getPluginManager().callEvent(new SiegeEndEvent(siege));
@@ -0,0 +1,85 @@
+package com.gmail.goosius.siegewar.utils;
+
+import com.gmail.goosius.siegewar.SiegeController;
+import com.gmail.goosius.siegewar.SiegeWar;
+import com.gmail.goosius.siegewar.objects.BattleSession;
+import com.gmail.goosius.siegewar.objects.Siege;
+import com.gmail.goosius.siegewar.objects.SiegeWorldView;
+import com.gmail.goosius.siegewar.objects.SiegeWorldView.SiegeSnapshot;
+import com.palmergames.bukkit.towny.object.Resident;
+import org.bukkit.Location;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * This class publishes the frozen siege views returned by SiegeWarAPI.snapshot()
+ *
+ * A new view is built on the main thread:
+ * - On every Towny short-time tick, which picks up battle points and siege balance changes.
+ * - Whenever SiegeController rebuilds its siege views, which happens when a siege is added,
+ *   removed, moved or changes status, or when the nations or residents involved in sieges change.
+ *
+ * Readers on any thread get the latest published view with a single volatile read.
+ */
+public class SiegeWarSnapshotUtil {
+
+	private static volatile SiegeWorldView currentView = SiegeWorldView.EMPTY;
+
+	public static SiegeWorldView getCurrentView() {
+		return currentView;
+	}
+
+	/**
+	 * Build and publish a new view. Must be called on the main thread.
+	 */
+	public static void publish() {
+		List<SiegeSnapshot> snapshots = new ArrayList<>();
+		Map<UUID, UUID> residentTowns = new HashMap<>();
+		for (Siege siege : SiegeController.getSieges()) {
+			try {
+				snapshots.add(takeSnapshot(siege));
+				for (Resident resident : siege.getTown().getResidents())
+					residentTowns.put(resident.getUUID(), siege.getTown().getUUID());
+			} catch (Exception e) {
+				SiegeWar.severe("Problem taking a snapshot of the siege on " + siege.getTown().getName() + ". Siege left out of the snapshot.");
+				e.printStackTrace();
+			}
+		}
+		publish(new SiegeWorldView(System.currentTimeMillis(), BattleSession.getBattleSession().isActive(), snapshots, residentTowns));
+	}
+
+	/**
+	 * Publish a view which has already been fully built.
+	 *
+	 * @param view the view
+	 */
+	static void publish(SiegeWorldView view) {
+		currentView = view;
+	}
+
+	private static SiegeSnapshot takeSnapshot(Siege siege) {
+		Location flag = siege.getFlagLocation();
+		boolean flagLoaded = flag != null && flag.getWorld() != null;
+		return new SiegeSnapshot(
+				siege.getTown().getUUID(),
+				siege.getTown().getName(),
+				siege.getSiegeType(),
+				siege.getStatus(),
+				siege.getAttacker().getUUID(),
+				siege.getAttackerNameForDisplay(),
+				siege.getDefender().getUUID(),
+				siege.getDefenderNameForDisplay(),
+				siege.getSiegeBalance(),
+				siege.getAttackerBattlePoints(),
+				siege.getDefenderBattlePoints(),
+				siege.getBannerControllingSide(),
+				flagLoaded ? flag.getWorld().getName() : null,
+				flagLoaded ? flag.getBlockX() : 0,
+				flagLoaded ? flag.getBlockY() : 0,
+				flagLoaded ? flag.getBlockZ() : 0);
+	}
+}
@@ -0,0 +1,205 @@
+package com.gmail.goosius.siegewar.utils;
+
+import com.gmail.goosius.siegewar.SiegeWar;
+import com.gmail.goosius.siegewar.settings.SiegeWarSettings;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * This class records how long each SiegeWar tick stage and heavy listener takes
+ *
+ * Each stage keeps a rolling window of its most recent durations,
+ * from which p50/p95/max are calculated on demand,
+ * plus a lifetime call count and total duration.
+ *
+ * The timings can be viewed with /swa perf,
+ * and are periodically exported to the plugin folder in Prometheus text exposition format.
+ */
+public class SiegeWarTimingsUtil {
+
+	private static final int SAMPLES_PER_STAGE = 512;
+	private static final String EXPORT_FILE_NAME = "siegewar_timings.prom";
+
+	//Key is the stage name. Sorted, so that output is stable.
+	private static final Map<String, StageTimings> stageTimings = new ConcurrentSkipListMap<>();
+
+	/**
+	 * Run the task, and record how long it took.
+	 *
+	 * @param stage the stage name
+	 * @param task the task
+	 */
+	public static void time(String stage, Runnable task) {
+		long startTime = System.nanoTime();
+		try {
+			task.run();
+		} finally {
+			record(stage, startTime);
+		}
+	}
+
+	/**
+	 * Record a stage which started at the given time and has just finished.
+	 *
+	 * @param stage the stage name
+	 * @param startTime the result of System.nanoTime() when the stage started
+	 */
+	public static void record(String stage, long startTime) {
+		long durationNanos = System.nanoTime() - startTime;
+		stageTimings.computeIfAbsent(stage, k -> new StageTimings()).add(durationNanos);
+	}
+
+	public static List<StageSummary> getStageSummaries() {
+		List<StageSummary> result = new ArrayList<>();
+		for (Map.Entry<String, StageTimings> entry : stageTimings.entrySet()) {
+			result.add(entry.getValue().summarize(entry.getKey()));
+		}
+		return result;
+	}
+
+	public static void resetTimings() {
+		stageTimings.clear();
+	}
+
+	public static void startExportTask() {
+		long periodTicks = Math.max(1, SiegeWarSettings.getPerformanceTimingsExportIntervalSeconds()) * 20L;
+		SiegeWar.getSiegeWar().getScheduler().runAsyncRepeating(() -> {
+			if (SiegeWarSettings.isPerformanceTimingsExportEnabled())
+				exportTimings();
+		}, periodTicks, periodTicks);
+	}
+
+	/*
+	 * Write the timings to a temp file, then move it into place,
+	 * so that a scraper never reads a half-written file.
+	 */
+	private static void exportTimings() {
+		Path dataFolder = SiegeWar.getSiegeWar().getDataFolder().toPath();
+		Path exportFile = dataFolder.resolve(EXPORT_FILE_NAME);
+		Path tempFile = dataFolder.resolve(EXPORT_FILE_NAME + ".tmp");
+		try {
+			Files.write(tempFile, getPrometheusText().getBytes(StandardCharsets.UTF_8));
+			Files.move(tempFile, exportFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			SiegeWar.severe("Problem exporting SiegeWar timings to " + exportFile + ": " + e.getMessage());
+		}
+	}
+
+	private static String getPrometheusText() {
+		List<StageSummary> summaries = getStageSummaries();
+		StringBuilder text = new StringBuilder();
+		text.append("# HELP siegewar_stage_duration_seconds Duration of SiegeWar tick stages and listeners, over the most recent calls.\n");
+		text.append("# TYPE siegewar_stage_duration_seconds summary\n");
+		for (StageSummary summary : summaries) {
+			String label = "stage=\"" + summary.getStage() + "\"";
+			appendSample(text, "siegewar_stage_duration_seconds{" + label + ",quantile=\"0.5\"}", summary.getP50Nanos());
+			appendSample(text, "siegewar_stage_duration_seconds{" + label + ",quantile=\"0.95\"}", summary.getP95Nanos());
+			appendSample(text, "siegewar_stage_duration_seconds_sum{" + label + "}", summary.getTotalNanos());
+			text.append("siegewar_stage_duration_seconds_count{").append(label).append("} ").append(summary.getCount()).append('\n');
+		}
+		text.append("# HELP siegewar_stage_duration_max_seconds Longest duration of each SiegeWar stage, over the most recent calls.\n");
+		text.append("# TYPE siegewar_stage_duration_max_seconds gauge\n");
+		for (StageSummary summary : summaries) {
+			appendSample(text, "siegewar_stage_duration_max_seconds{stage=\"" + summary.getStage() + "\"}", summary.getMaxNanos());
+		}
+		return text.toString();
+	}
+
+	private static void appendSample(StringBuilder text, String name, long nanos) {
+		text.append(name).append(' ').append(String.format(Locale.ROOT, "%.9f", nanos / 1_000_000_000.0)).append('\n');
+	}
+
+	/**
+	 * The rolling timings of one stage.
+	 * Stages may be recorded from region threads on Folia, so access is synchronized.
+	 */
+	private static class StageTimings {
+		private final long[] samples = new long[SAMPLES_PER_STAGE];
+		private int nextSample = 0;
+		private int numSamples = 0;
+		private long count = 0;
+		private long totalNanos = 0;
+
+		private synchronized void add(long durationNanos) {
+			samples[nextSample] = durationNanos;
+			nextSample = (nextSample + 1) % SAMPLES_PER_STAGE;
+			numSamples = Math.min(numSamples + 1, SAMPLES_PER_STAGE);
+			count++;
+			totalNanos += durationNanos;
+		}
+
+		private StageSummary summarize(String stage) {
+			long[] sorted;
+			long summaryCount;
+			long summaryTotalNanos;
+			synchronized (this) {
+				sorted = Arrays.copyOf(samples, numSamples);
+				summaryCount = count;
+				summaryTotalNanos = totalNanos;
+			}
+			Arrays.sort(sorted);
+			return new StageSummary(stage, summaryCount, summaryTotalNanos,
+					getPercentile(sorted, 0.5), getPercentile(sorted, 0.95),
+					sorted.length == 0 ? 0 : sorted[sorted.length - 1]);
+		}
+
+		private static long getPercentile(long[] sorted, double percentile) {
+			if (sorted.length == 0)
+				return 0;
+			int index = (int) Math.ceil(percentile * sorted.length) - 1;
+			return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+		}
+	}
+
+	public static class StageSummary {
+		private final String stage;
+		private final long count;
+		private final long totalNanos;
+		private final long p50Nanos;
+		private final long p95Nanos;
+		private final long maxNanos;
+
+		private StageSummary(String stage, long count, long totalNanos, long p50Nanos, long p95Nanos, long maxNanos) {
+			this.stage = stage;
+			this.count = count;
+			this.totalNanos = totalNanos;
+			this.p50Nanos = p50Nanos;
+			this.p95Nanos = p95Nanos;
+			this.maxNanos = maxNanos;
+		}
+
+		public String getStage() {
+			return stage;
+		}
+
+		public long getCount() {
+			return count;
+		}
+
+		public long getTotalNanos() {
+			return totalNanos;
+		}
+
+		public long getP50Nanos() {
+			return p50Nanos;
+		}
+
+		public long getP95Nanos() {
+			return p95Nanos;
+		}
+
+		public long getMaxNanos() {
+			return maxNanos;
+		}
+	}
+}
@@ -1,13 +1,13 @@
 package com.gmail.goosius.siegewar.utils;
 
 import com.gmail.goosius.siegewar.SiegeController;
+import com.gmail.goosius.siegewar.SiegeWar;
 import com.gmail.goosius.siegewar.TownOccupationController;
 import com.gmail.goosius.siegewar.metadata.TownMetaDataController;
 import com.gmail.goosius.siegewar.settings.SiegeWarSettings;
 import com.palmergames.bukkit.towny.TownyAPI;
 import com.palmergames.bukkit.towny.TownyMessaging;
 import com.palmergames.bukkit.towny.TownySettings;
-import com.palmergames.bukkit.towny.TownyUniverse;
 import com.palmergames.bukkit.towny.object.Nation;
 import com.palmergames.bukkit.towny.object.Resident;
 import com.palmergames.bukkit.towny.object.Town;
@@ -18,11 +18,14 @@ import com.palmergames.util.TimeMgmt;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.ListIterator;
+import java.util.UUID;
 
 public class SiegeWarTownPeacefulnessUtil {
 
+	private static final int PEACEFULNESS_CHANGES_PER_TICK = 50;
+
 	public static boolean isTownPeaceful(Town town) {
 		return SiegeWarSettings.getWarCommonPeacefulTownsEnabled() && TownMetaDataController.getPeacefulness(town);
 	}
@@ -52,60 +55,170 @@ public class SiegeWarTownPeacefulnessUtil {
 	
 	/**
 	 * This method adjusts the peacefulness counters of all towns, where required
+	 *
+	 * It runs in 3 phases:
+	 * 1. On the main thread, take a snapshot of the peacefulness data of each town which needs a change.
+	 * 2. On an async thread, calculate the changes from the snapshot. No Towny objects are touched here.
+	 * 3. Back on the main thread, apply the changes in slices, one slice per tick.
+	 *
+	 * Towny fires the new day event async when the economy is active, so phase 1 is scheduled onto the main thread.
 	 */
 	public static void updateTownPeacefulnessCounters() {
+		SiegeWar.getSiegeWar().getScheduler().run(SiegeWarTownPeacefulnessUtil::snapshotAndCalculateTownPeacefulnessChanges);
+	}
 
-		List<Town> towns = TownyAPI.getInstance().getTowns();
-		ListIterator<Town> townItr = towns.listIterator();
-		Town town;
-
-		while (townItr.hasNext()) {
-			town = townItr.next();
-			/*
-			 * Only adjust counter for this town if it really still exists.
-			 * We are running in an Async thread so MUST verify all objects.
-			 */
-			if (TownyUniverse.getInstance().hasTown(town.getName()) 
-				&& !town.isRuined()
+	private static void snapshotAndCalculateTownPeacefulnessChanges() {
+		List<TownPeacefulnessSnapshot> snapshots = new ArrayList<>();
+		for (Town town : TownyAPI.getInstance().getTowns()) {
+			if (!town.isRuined()
 				&& SiegeWarTownPeacefulnessUtil.isTownPeaceful(town) != TownMetaDataController.getDesiredPeacefulness(town))
-				updateTownPeacefulnessCounters(town);
+				snapshots.add(new TownPeacefulnessSnapshot(
+						town.getUUID(),
+						TownMetaDataController.getPeacefulness(town),
+						town.isCapital(),
+						TownMetaDataController.getPeacefulnessChangeCountdownDays(town)));
 		}
+		if (snapshots.isEmpty())
+			return;
+
+		boolean capitalsAllowedPeacefulness = SiegeWarSettings.capitalsAllowedTownPeacefulness();
+		SiegeWar.getSiegeWar().getScheduler().runAsync(() -> {
+			List<TownPeacefulnessChange> changes = calculateTownPeacefulnessChanges(snapshots, capitalsAllowedPeacefulness);
+			SiegeWar.getSiegeWar().getScheduler().run(() -> applyTownPeacefulnessChanges(changes, 0));
+		});
 	}
 
 	/**
-	 * This method adjusts the peacefulness counter of a single town
+	 * Calculate the peacefulness changes for the given towns
+	 * 
+	 * This method is pure. It reads nothing but its arguments, so it is safe to run off the main thread.
+	 *
+	 * @param snapshots the peacefulness data of the towns whose peacefulness differs from their desired peacefulness
+	 * @param capitalsAllowedPeacefulness true if capitals are allowed to be peaceful
+	 * @return one change per snapshot, in the same order
 	 */
-	public static void updateTownPeacefulnessCounters(Town town) {
-		Translatable message;
+	public static List<TownPeacefulnessChange> calculateTownPeacefulnessChanges(List<TownPeacefulnessSnapshot> snapshots, boolean capitalsAllowedPeacefulness) {
+		List<TownPeacefulnessChange> result = new ArrayList<>(snapshots.size());
+		for (TownPeacefulnessSnapshot snapshot : snapshots) {
+			if (snapshot.countdownDays > 1) {
+				result.add(new TownPeacefulnessChange(snapshot, TownPeacefulnessOutcome.COUNTDOWN_DECREMENTED, snapshot.countdownDays - 1));
+			} else if (!capitalsAllowedPeacefulness && snapshot.capital && !snapshot.peaceful) {
+				// The Town would become a peaceful capital city, which is not allowed.
+				result.add(new TownPeacefulnessChange(snapshot, TownPeacefulnessOutcome.BLOCKED_BECAUSE_CAPITAL, 0));
+			} else if (snapshot.peaceful) {
+				result.add(new TownPeacefulnessChange(snapshot, TownPeacefulnessOutcome.BECAME_NON_PEACEFUL, 0));
+			} else {
+				result.add(new TownPeacefulnessChange(snapshot, TownPeacefulnessOutcome.BECAME_PEACEFUL, 0));
+			}
+		}
+		return result;
+	}
 
-		int days = TownMetaDataController.getPeacefulnessChangeCountdownDays(town); 
-		if (days > 1) {
-			SiegeWarTownPeacefulnessUtil.setTownPeacefulnessChangeCountdownDays(town, --days);
-			return;
+	private static void applyTownPeacefulnessChanges(List<TownPeacefulnessChange> changes, int from) {
+		int to = Math.min(from + PEACEFULNESS_CHANGES_PER_TICK, changes.size());
+		for (int i = from; i < to; i++) {
+			applyTownPeacefulnessChange(changes.get(i));
 		}
-		TownMetaDataController.setPeacefulnessChangeCountdownDays(town, 0);
-		
-		// The Town would become a peaceful capital city, which is not allowed.
-		if (!SiegeWarSettings.capitalsAllowedTownPeacefulness() && town.isCapital() && !TownMetaDataController.getPeacefulness(town)) {
-			TownyMessaging.sendPrefixedTownMessage(town, Translatable.of("msg_err_your_town_cannot_be_peaceful_while_a_capital_city"));
+		if (to < changes.size())
+			SiegeWar.getSiegeWar().getScheduler().runLater(() -> applyTownPeacefulnessChanges(changes, to), 1L);
+	}
+
+	/**
+	 * Apply a calculated change to a single town
+	 * 
+	 * The change is skipped if the town no longer exists,
+	 * or if its peacefulness data has changed since the snapshot was taken (e.g. the mayor cancelled the countdown).
+	 */
+	private static void applyTownPeacefulnessChange(TownPeacefulnessChange change) {
+		Town town = TownyAPI.getInstance().getTown(change.snapshot.townUUID);
+		if (town == null
+			|| town.isRuined()
+			|| TownMetaDataController.getPeacefulness(town) != change.snapshot.peaceful
+			|| TownMetaDataController.getDesiredPeacefulness(town) == change.snapshot.peaceful
+			|| TownMetaDataController.getPeacefulnessChangeCountdownDays(town) != change.snapshot.countdownDays)
 			return;
-		}
 
-		//Reverse the town peacefulness setting
-		TownMetaDataController.setPeacefulness(town, !TownMetaDataController.getPeacefulness(town));
-		
-		if (TownMetaDataController.getPeacefulness(town)) {
-			//Remove military ranks
-			SiegeWarMilitaryRanksUtil.removeMilitaryRanksFromTownResidents(town);
-			message = Translatable.of("msg_town_became_peaceful", town.getName());
-		} else {
-			message = Translatable.of("msg_town_became_non_peaceful", town.getName());
+		Translatable message;
+		switch (change.outcome) {
+			case COUNTDOWN_DECREMENTED:
+				SiegeWarTownPeacefulnessUtil.setTownPeacefulnessChangeCountdownDays(town, change.newCountdownDays);
+				return;
+
+			case BLOCKED_BECAUSE_CAPITAL:
+				TownMetaDataController.setPeacefulnessChangeCountdownDays(town, 0);
+				TownyMessaging.sendPrefixedTownMessage(town, Translatable.of("msg_err_your_town_cannot_be_peaceful_while_a_capital_city"));
+				return;
+
+			case BECAME_PEACEFUL:
+				TownMetaDataController.setPeacefulnessChangeCountdownDays(town, 0);
+				TownMetaDataController.setPeacefulness(town, true);
+				//Remove military ranks
+				SiegeWarMilitaryRanksUtil.removeMilitaryRanksFromTownResidents(town);
+				message = Translatable.of("msg_town_became_peaceful", town.getName());
+				break;
+
+			default:
+			case BECAME_NON_PEACEFUL:
+				TownMetaDataController.setPeacefulnessChangeCountdownDays(town, 0);
+				TownMetaDataController.setPeacefulness(town, false);
+				message = Translatable.of("msg_town_became_non_peaceful", town.getName());
+				break;
 		}
 
 		TownyMessaging.sendPrefixedTownMessage(town, message);
 		town.save();
 	}
 
+	/**
+	 * An immutable copy of the peacefulness data of one town, taken on the main thread.
+	 */
+	public static class TownPeacefulnessSnapshot {
+		private final UUID townUUID;
+		private final boolean peaceful;
+		private final boolean capital;
+		private final int countdownDays;
+
+		public TownPeacefulnessSnapshot(UUID townUUID, boolean peaceful, boolean capital, int countdownDays) {
+			this.townUUID = townUUID;
+			this.peaceful = peaceful;
+			this.capital = capital;
+			this.countdownDays = countdownDays;
+		}
+
+		public UUID getTownUUID() {
+			return townUUID;
+		}
+	}
+
+	public enum TownPeacefulnessOutcome {COUNTDOWN_DECREMENTED, BLOCKED_BECAUSE_CAPITAL, BECAME_PEACEFUL, BECAME_NON_PEACEFUL}
+
+	/**
+	 * A calculated peacefulness change for one town, waiting to be applied on the main thread.
+	 */
+	public static class TownPeacefulnessChange {
+		private final TownPeacefulnessSnapshot snapshot;
+		private final TownPeacefulnessOutcome outcome;
+		private final int newCountdownDays;
+
+		private TownPeacefulnessChange(TownPeacefulnessSnapshot snapshot, TownPeacefulnessOutcome outcome, int newCountdownDays) {
+			this.snapshot = snapshot;
+			this.outcome = outcome;
+			this.newCountdownDays = newCountdownDays;
+		}
+
+		public UUID getTownUUID() {
+			return snapshot.townUUID;
+		}
+
+		public TownPeacefulnessOutcome getOutcome() {
+			return outcome;
+		}
+
+		public int getNewCountdownDays() {
+			return newCountdownDays;
+		}
+	}
+
 	public static void toggleTownPeacefulness(Player player) {
 		Translator translator = Translator.locale(player);
 		if (!SiegeWarSettings.getWarSiegeEnabled()) {
@@ -170,11 +283,24 @@ public class SiegeWarTownPeacefulnessUtil {
 	public static @Nullable Town calculateGuardianTown(Town peacefulTown) {
 		if(!peacefulTown.hasHomeBlock())  //The peaceful town can't have a guardian town if it has no homeblock
 			return null;
+		int searchRadiusInTownBlocks = SiegeWarSettings.getPeacefulTownsGuardianTownSearchRadius() / TownySettings.getTownBlockSize();
+		List<Town> candidateGuardianTowns = SiegeWarHomeBlockIndex.getCandidateTownsNear(peacefulTown.getHomeBlockOrNull(), searchRadiusInTownBlocks);
+		return calculateGuardianTown(peacefulTown, candidateGuardianTowns, searchRadiusInTownBlocks);
+	}
+
+	/**
+	 * Calculate the guardian town of a given peaceful town, choosing from the given candidates
+	 *
+	 * @param peacefulTown given peaceful town
+	 * @param candidateGuardianTowns towns which may be the guardian town. Must include all towns near the peaceful town.
+	 * @param searchRadiusInTownBlocks guardian town search radius
+	 * @return guardian town
+	 */
+	private static @Nullable Town calculateGuardianTown(Town peacefulTown, List<Town> candidateGuardianTowns, int searchRadiusInTownBlocks) {
 		Town guardianTown = null;
 		int winningNumTownBlocks = 0;
-		int searchRadiusInTownBlocks = SiegeWarSettings.getPeacefulTownsGuardianTownSearchRadius() / TownySettings.getTownBlockSize();
-		for(Town candidateGuardianTown: TownyAPI.getInstance().getTowns()) {
-			//Search all towns to find the guardian town
+		for(Town candidateGuardianTown: candidateGuardianTowns) {
+			//Search the candidate towns to find the guardian town
 			if (!candidateGuardianTown.isRuined()
 					&& candidateGuardianTown.hasHomeBlock()
 					&& !SiegeWarTownPeacefulnessUtil.isTownPeaceful(candidateGuardianTown)
@@ -203,8 +329,16 @@ public class SiegeWarTownPeacefulnessUtil {
 		Nation nationOfTownMovingHomeBlock = townMovingHomeBlock.getNationOrNull();
 		int numPeacefulTownsReleased = 0;
 		List<Town> peacefulTownsInOldRadius = SiegeWarDistanceUtil.getNearbyTownsPeacefulTowns(townMovingHomeBlock.getHomeBlockOrNull(), SiegeWarSettings.getPeacefulTownsGuardianTownSearchRadius());
+		if(peacefulTownsInOldRadius.isEmpty())
+			return 0;
+		/*
+		 * Any guardian of a peaceful town in the old radius is within 2x the radius of the moving town,
+		 * so one index lookup gives the candidates for all of them.
+		 */
+		int searchRadiusInTownBlocks = SiegeWarSettings.getPeacefulTownsGuardianTownSearchRadius() / TownySettings.getTownBlockSize();
+		List<Town> candidateGuardianTowns = SiegeWarHomeBlockIndex.getCandidateTownsNear(townMovingHomeBlock.getHomeBlockOrNull(), searchRadiusInTownBlocks * 2);
 		for(Town peacefulTown: peacefulTownsInOldRadius) {
-			if (calculateGuardianTown(peacefulTown) == townMovingHomeBlock
+			if (calculateGuardianTown(peacefulTown, candidateGuardianTowns, searchRadiusInTownBlocks) == townMovingHomeBlock
 					&& TownOccupationController.isTownOccupied(peacefulTown)
 					&& peacefulTown.getNationOrNull() == nationOfTownMovingHomeBlock) {
 				TownOccupationController.removeTownOccupation(peacefulTown);
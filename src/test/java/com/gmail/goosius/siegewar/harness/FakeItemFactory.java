@@ -0,0 +1,112 @@
+package com.gmail.goosius.siegewar.harness;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemFactory;
+import org.bukkit.inventory.meta.Damageable;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.mockito.Mockito;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Objects;
+
+/**
+ * An item factory for the harness, so that ItemStacks can have item meta without CraftBukkit.
+ *
+ * Every meta is Damageable, and only keeps its damage and whether it is unbreakable.
+ * Like CraftBukkit, ItemStack.getItemMeta() returns a copy of the stored meta, and setItemMeta() stores a copy.
+ * Metas are plain proxies rather than mocks, because items copy their meta on every call.
+ */
+final class FakeItemFactory {
+
+	private FakeItemFactory() {
+	}
+
+	static ItemFactory create() {
+		return HarnessMocks.mock(ItemFactory.class, invocation -> {
+			Object[] args = invocation.getArguments();
+			switch (invocation.getMethod().getName()) {
+				case "getItemMeta":
+					return args[0] == Material.AIR ? null : newItemMeta(0, false);
+				case "isApplicable":
+					return true;
+				case "asMetaFor":
+					return args[0];
+				case "updateMaterial":
+					return args[1];
+				case "equals":
+					if (args.length == 2)
+						return Objects.equals(args[0], args[1]);
+					return invocation.getMock() == args[0];
+				default:
+					return Mockito.RETURNS_DEFAULTS.answer(invocation);
+			}
+		});
+	}
+
+	private static ItemMeta newItemMeta(int damage, boolean unbreakable) {
+		return (ItemMeta) Proxy.newProxyInstance(Damageable.class.getClassLoader(), new Class<?>[] {Damageable.class}, new MetaHandler(damage, unbreakable));
+	}
+
+	private static class MetaHandler implements InvocationHandler {
+		private int damage;
+		private boolean unbreakable;
+
+		private MetaHandler(int damage, boolean unbreakable) {
+			this.damage = damage;
+			this.unbreakable = unbreakable;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) {
+			switch (method.getName()) {
+				case "getDamage":
+					return damage;
+				case "setDamage":
+					damage = (Integer) args[0];
+					return null;
+				case "hasDamage":
+					return damage > 0;
+				case "isUnbreakable":
+					return unbreakable;
+				case "setUnbreakable":
+					unbreakable = (Boolean) args[0];
+					return null;
+				case "clone":
+					return newItemMeta(damage, unbreakable);
+				case "equals":
+					if (args[0] == null || !Proxy.isProxyClass(args[0].getClass()) || !(Proxy.getInvocationHandler(args[0]) instanceof MetaHandler))
+						return false;
+					MetaHandler other = (MetaHandler) Proxy.getInvocationHandler(args[0]);
+					return other.damage == damage && other.unbreakable == unbreakable;
+				case "hashCode":
+					return Objects.hash(damage, unbreakable);
+				case "toString":
+					return "FakeItemMeta{damage=" + damage + ",unbreakable=" + unbreakable + "}";
+				default:
+					return getDefaultValue(method.getReturnType());
+			}
+		}
+
+		private static Object getDefaultValue(Class<?> type) {
+			if (!type.isPrimitive() || type == void.class)
+				return null;
+			if (type == boolean.class)
+				return false;
+			if (type == char.class)
+				return '\0';
+			if (type == long.class)
+				return 0L;
+			if (type == double.class)
+				return 0.0;
+			if (type == float.class)
+				return 0.0f;
+			if (type == short.class)
+				return (short) 0;
+			if (type == byte.class)
+				return (byte) 0;
+			return 0;
+		}
+	}
+}
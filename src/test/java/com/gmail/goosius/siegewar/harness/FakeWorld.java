@@ -0,0 +1,148 @@
+package com.gmail.goosius.siegewar.harness;
+
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * An in-memory world for the test harness.
+ *
+ * Every block is air until its type is set.
+ * Blocks are created on first use and then reused, so the same coordinates always give the same block.
+ */
+public class FakeWorld {
+
+	public static final int MIN_HEIGHT = -64;
+	public static final int MAX_HEIGHT = 320;
+
+	private final String name;
+	private final UUID uid;
+	private final World world;
+	private final Map<Long, Material> types = new HashMap<>();
+	private final Map<Long, Block> blocks = new HashMap<>();
+
+	public FakeWorld(String name) {
+		this.name = name;
+		this.uid = UUID.nameUUIDFromBytes(name.getBytes());
+		this.world = HarnessMocks.mock(World.class, this::answerWorld);
+	}
+
+	public World getWorld() {
+		return world;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public Location getLocation(double x, double y, double z) {
+		return new Location(world, x, y, z);
+	}
+
+	public Block getBlockAt(int x, int y, int z) {
+		return blocks.computeIfAbsent(getBlockKey(x, y, z), k -> HarnessMocks.mock(Block.class, invocation -> answerBlock(invocation, x, y, z)));
+	}
+
+	public Block getBlockAt(Location location) {
+		return getBlockAt(location.getBlockX(), location.getBlockY(), location.getBlockZ());
+	}
+
+	public Material getType(int x, int y, int z) {
+		return types.getOrDefault(getBlockKey(x, y, z), Material.AIR);
+	}
+
+	public void setType(int x, int y, int z, Material type) {
+		if (type == Material.AIR)
+			types.remove(getBlockKey(x, y, z));
+		else
+			types.put(getBlockKey(x, y, z), type);
+	}
+
+	/*
+	 * Packed like a Minecraft block position: 26 bits each for x and z, 12 bits for y.
+	 */
+	private static long getBlockKey(int x, int y, int z) {
+		return ((long) (x & 0x3FFFFFF) << 38) | ((long) (z & 0x3FFFFFF) << 12) | (y & 0xFFF);
+	}
+
+	private Object answerWorld(InvocationOnMock invocation) throws Throwable {
+		Object[] args = invocation.getArguments();
+		switch (invocation.getMethod().getName()) {
+			case "getName":
+				return name;
+			case "getUID":
+				return uid;
+			case "getMinHeight":
+				return MIN_HEIGHT;
+			case "getMaxHeight":
+				return MAX_HEIGHT;
+			case "getEnvironment":
+				return World.Environment.NORMAL;
+			case "getBlockAt":
+				if (args.length == 1)
+					return getBlockAt((Location) args[0]);
+				return getBlockAt((Integer) args[0], (Integer) args[1], (Integer) args[2]);
+			case "equals":
+				return invocation.getMock() == args[0];
+			case "hashCode":
+				return uid.hashCode();
+			case "toString":
+				return "FakeWorld{" + name + "}";
+			default:
+				return Mockito.RETURNS_DEFAULTS.answer(invocation);
+		}
+	}
+
+	private Object answerBlock(InvocationOnMock invocation, int x, int y, int z) throws Throwable {
+		Object[] args = invocation.getArguments();
+		switch (invocation.getMethod().getName()) {
+			case "getWorld":
+				return world;
+			case "getX":
+				return x;
+			case "getY":
+				return y;
+			case "getZ":
+				return z;
+			case "getType":
+				return getType(x, y, z);
+			case "setType":
+				setType(x, y, z, (Material) args[0]);
+				return null;
+			case "isEmpty":
+				return getType(x, y, z) == Material.AIR;
+			case "getLocation":
+				if (args.length == 1 && args[0] != null) {
+					Location location = (Location) args[0];
+					location.setWorld(world);
+					location.setX(x);
+					location.setY(y);
+					location.setZ(z);
+					return location;
+				}
+				return new Location(world, x, y, z);
+			case "getRelative":
+				if (args.length == 3)
+					return getBlockAt(x + (Integer) args[0], y + (Integer) args[1], z + (Integer) args[2]);
+				BlockFace face = (BlockFace) args[0];
+				int distance = args.length == 2 ? (Integer) args[1] : 1;
+				return getBlockAt(x + face.getModX() * distance, y + face.getModY() * distance, z + face.getModZ() * distance);
+			case "equals":
+				return invocation.getMock() == args[0];
+			case "hashCode":
+				return Long.hashCode(getBlockKey(x, y, z));
+			case "toString":
+				return "FakeBlock{" + name + "," + x + "," + y + "," + z + "}";
+			default:
+				return Mockito.RETURNS_DEFAULTS.answer(invocation);
+		}
+	}
+}
@@ -0,0 +1,25 @@
+package com.gmail.goosius.siegewar.harness;
+
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
+import org.mockito.stubbing.Answer;
+
+/**
+ * Mocks for the harness.
+ *
+ * They are stub-only, so they do not record their invocations.
+ * A benchmark calls them millions of times, and recorded invocations would fill the heap.
+ */
+final class HarnessMocks {
+
+	private HarnessMocks() {
+	}
+
+	static <T> T mock(Class<T> type, Answer<?> answer) {
+		return Mockito.mock(type, Mockito.withSettings().stubOnly().defaultAnswer(answer));
+	}
+
+	static <T> MockedStatic<T> mockStatic(Class<T> type, Answer<?> answer) {
+		return Mockito.mockStatic(type, Mockito.withSettings().stubOnly().defaultAnswer(answer));
+	}
+}
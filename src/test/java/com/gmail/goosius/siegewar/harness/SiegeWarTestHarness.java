@@ -0,0 +1,956 @@
+package com.gmail.goosius.siegewar.harness;
+
+import com.gmail.goosius.siegewar.SiegeController;
+import com.gmail.goosius.siegewar.SiegeWar;
+import com.gmail.goosius.siegewar.hud.SiegeHUDManager;
+import com.gmail.goosius.siegewar.listeners.SiegeWarTownyEventListener;
+import com.gmail.goosius.siegewar.objects.BattleSession;
+import com.gmail.goosius.siegewar.objects.Siege;
+import com.gmail.goosius.siegewar.playeractions.StartConquestSiege;
+import com.gmail.goosius.siegewar.settings.ConfigNodes;
+import com.gmail.goosius.siegewar.settings.Settings;
+import com.gmail.goosius.siegewar.settings.SiegeWarSettings;
+import com.gmail.goosius.siegewar.utils.BossBarUtil;
+import com.gmail.goosius.siegewar.utils.SiegeWarDistanceUtil;
+import com.palmergames.bukkit.towny.Towny;
+import com.palmergames.bukkit.towny.TownyAPI;
+import com.palmergames.bukkit.towny.TownyEconomyHandler;
+import com.palmergames.bukkit.towny.TownyMessaging;
+import com.palmergames.bukkit.towny.TownySettings;
+import com.palmergames.bukkit.towny.TownyUniverse;
+import com.palmergames.bukkit.towny.event.time.NewShortTimeEvent;
+import com.palmergames.bukkit.towny.exceptions.NotRegisteredException;
+import com.palmergames.bukkit.towny.exceptions.TownyException;
+import com.palmergames.bukkit.towny.object.Coord;
+import com.palmergames.bukkit.towny.object.Nation;
+import com.palmergames.bukkit.towny.object.Resident;
+import com.palmergames.bukkit.towny.object.Town;
+import com.palmergames.bukkit.towny.object.TownBlock;
+import com.palmergames.bukkit.towny.object.TownyWorld;
+import com.palmergames.bukkit.towny.object.Translation;
+import com.palmergames.bukkit.towny.object.metadata.CustomDataField;
+import com.palmergames.bukkit.towny.permissions.TownyPermissionSource;
+import com.palmergames.bukkit.towny.scheduling.TaskScheduler;
+import org.bukkit.Bukkit;
+import org.bukkit.GameMode;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.Server;
+import org.bukkit.block.Block;
+import org.bukkit.entity.Player;
+import org.bukkit.event.Event;
+import org.bukkit.inventory.ItemFactory;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.PlayerInventory;
+import org.bukkit.plugin.PluginManager;
+import org.bukkit.scoreboard.Objective;
+import org.bukkit.scoreboard.Scoreboard;
+import org.bukkit.scoreboard.ScoreboardManager;
+import org.bukkit.scoreboard.Team;
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A headless server for running SiegeWar in tests and benchmarks.
+ *
+ * Bukkit and the parts of Towny which SiegeWar calls statically are replaced by Mockito static mocks.
+ * Towns, nations, residents and townblocks are mocks backed by the maps in this class,
+ * and their metadata is kept in memory.
+ * Scheduled tasks are queued, and only run when the harness is told to run them.
+ * Every player holds every permission.
+ * Scoreboards keep their objectives and teams, so war HUDs can be shown.
+ * Each player has an inventory, and items keep their damage (see FakeItemFactory).
+ *
+ * Static mocks only apply to the thread which created them,
+ * so a harness must be created, used and closed on one thread.
+ * Only one harness may be open at a time, because SiegeWar keeps its state in static fields.
+ */
+public class SiegeWarTestHarness implements AutoCloseable {
+
+	public static final String VERSION = "test";
+	public static final int TOWN_BLOCK_SIZE = 16;
+	//36 storage slots, 4 armour slots and the off hand
+	public static final int INVENTORY_SIZE = 41;
+
+	private static final Object UNHANDLED = new Object();
+
+	private final List<MockedStatic<?>> staticMocks = new ArrayList<>();
+	private final Deque<Runnable> scheduledTasks = new ArrayDeque<>();
+	private final List<Event> calledEvents = new ArrayList<>();
+	private final Logger logger = Logger.getLogger("SiegeWarTestHarness");
+
+	private final List<Town> towns = new ArrayList<>();
+	private final List<Nation> nations = new ArrayList<>();
+	private final Map<UUID, Resident> residents = new HashMap<>();
+	private final Map<Resident, Town> residentTowns = new HashMap<>();
+	private final Map<Town, List<Resident>> townResidents = new HashMap<>();
+	private final Map<Town, List<TownBlock>> townBlocks = new HashMap<>();
+	private final Map<Town, Nation> townNations = new HashMap<>();
+	private final Map<Nation, Town> nationCapitals = new HashMap<>();
+	private final Map<Nation, Set<Nation>> nationEnemies = new HashMap<>();
+	//Keyed by the packed townblock coordinates
+	private final Map<Long, TownBlock> claims = new HashMap<>();
+
+	//Players in the order they joined
+	private final Map<UUID, Player> onlinePlayers = new LinkedHashMap<>();
+	private final Map<Player, Location> playerLocations = new HashMap<>();
+	private final Map<Player, List<String>> playerMessages = new HashMap<>();
+	private final Map<Player, Scoreboard> playerScoreboards = new HashMap<>();
+	private final Map<Player, PlayerInventory> playerInventories = new HashMap<>();
+
+	private final Path dataFolder;
+	private final FakeWorld world;
+	private final TownyWorld townyWorld;
+	private final Server server;
+	private final PluginManager pluginManager;
+	private final Scoreboard mainScoreboard;
+	private final ScoreboardManager scoreboardManager;
+	private final ItemFactory itemFactory;
+	private final TaskScheduler scheduler;
+	private final TownyPermissionSource permissionSource;
+	private final TownyAPI townyAPI;
+	private final TownyUniverse townyUniverse;
+	private final SiegeWar plugin;
+	private final SiegeWar previousPlugin;
+	private final SiegeWarTownyEventListener townyEventListener;
+	private final NewShortTimeEvent shortTimeEvent;
+	private Object adventure;
+
+	/**
+	 * Start a harness. The config is written to, and read from, the given folder.
+	 *
+	 * @param dataFolder an empty folder for the plugin data
+	 * @throws Exception if the config cannot be loaded
+	 */
+	public SiegeWarTestHarness(Path dataFolder) throws Exception {
+		this.dataFolder = dataFolder;
+		logger.setLevel(Level.WARNING);
+		world = new FakeWorld("world");
+		townyWorld = mockTownyObject(TownyWorld.class, this::answerTownyWorld);
+		pluginManager = HarnessMocks.mock(PluginManager.class, this::answerPluginManager);
+		mainScoreboard = newScoreboard();
+		scoreboardManager = HarnessMocks.mock(ScoreboardManager.class, invocation ->
+				invocation.getMethod().getName().equals("getMainScoreboard") ? mainScoreboard : newScoreboard());
+		itemFactory = FakeItemFactory.create();
+		server = HarnessMocks.mock(Server.class, this::answerServer);
+		scheduler = HarnessMocks.mock(TaskScheduler.class, this::answerScheduler);
+		permissionSource = HarnessMocks.mock(TownyPermissionSource.class, invocation ->
+				invocation.getMethod().getReturnType() == boolean.class ? Boolean.TRUE : Mockito.RETURNS_DEFAULTS.answer(invocation));
+		townyAPI = HarnessMocks.mock(TownyAPI.class, this::answerTownyAPI);
+		townyUniverse = HarnessMocks.mock(TownyUniverse.class, this::answerTownyUniverse);
+
+		staticMocks.add(HarnessMocks.mockStatic(Bukkit.class, this::answerBukkit));
+		staticMocks.add(HarnessMocks.mockStatic(Translation.class, SiegeWarTestHarness::answerTranslation));
+		staticMocks.add(HarnessMocks.mockStatic(TownySettings.class, invocation ->
+				invocation.getMethod().getName().equals("getTownBlockSize") ? TOWN_BLOCK_SIZE : Mockito.RETURNS_DEFAULTS.answer(invocation)));
+		staticMocks.add(HarnessMocks.mockStatic(TownyAPI.class, invocation ->
+				invocation.getMethod().getName().equals("getInstance") ? townyAPI : Mockito.RETURNS_DEFAULTS.answer(invocation)));
+		staticMocks.add(HarnessMocks.mockStatic(TownyUniverse.class, invocation ->
+				invocation.getMethod().getName().equals("getInstance") ? townyUniverse : Mockito.RETURNS_DEFAULTS.answer(invocation)));
+		staticMocks.add(HarnessMocks.mockStatic(TownyMessaging.class, Mockito.RETURNS_DEFAULTS));
+		staticMocks.add(HarnessMocks.mockStatic(TownyEconomyHandler.class, Mockito.RETURNS_DEFAULTS));
+		staticMocks.add(HarnessMocks.mockStatic(Towny.class, this::answerTowny));
+
+		plugin = HarnessMocks.mock(SiegeWar.class, this::answerPlugin);
+		previousPlugin = SiegeWar.getSiegeWar();
+		setPluginField(plugin);
+
+		Settings.loadConfig(dataFolder.resolve("config.yml").toString(), VERSION);
+		townyEventListener = new SiegeWarTownyEventListener(plugin);
+		shortTimeEvent = HarnessMocks.mock(NewShortTimeEvent.class, Mockito.RETURNS_DEFAULTS);
+		SiegeController.clearSieges();
+	}
+
+	public FakeWorld getWorld() {
+		return world;
+	}
+
+	public SiegeWar getPlugin() {
+		return plugin;
+	}
+
+	/**
+	 * Override a config setting. The rest keep their defaults.
+	 *
+	 * @param node the setting
+	 * @param value the new value
+	 */
+	public void setConfig(ConfigNodes node, Object value) {
+		Settings.getConfig().set(node.getRoot().toLowerCase(), String.valueOf(value));
+	}
+
+	/**
+	 * Create a town, with a homeblock at the given townblock coordinates.
+	 *
+	 * @param name the town name
+	 * @param homeBlockX townblock x
+	 * @param homeBlockZ townblock z
+	 * @return the town
+	 */
+	public Town createTown(String name, int homeBlockX, int homeBlockZ) {
+		UUID uuid = UUID.nameUUIDFromBytes(("town:" + name).getBytes());
+		Town town = mockTownyObject(Town.class, invocation -> answerTown(invocation, name, uuid));
+		towns.add(town);
+		townResidents.put(town, new ArrayList<>());
+		townBlocks.put(town, new ArrayList<>());
+		claim(town, homeBlockX, homeBlockZ);
+		return town;
+	}
+
+	/**
+	 * Claim a townblock for the given town. The first claim is the homeblock.
+	 *
+	 * @param town the town
+	 * @param townBlockX townblock x
+	 * @param townBlockZ townblock z
+	 * @return the townblock
+	 */
+	public TownBlock claim(Town town, int townBlockX, int townBlockZ) {
+		TownBlock townBlock = mockTownyObject(TownBlock.class, invocation -> answerTownBlock(invocation, town, townBlockX, townBlockZ));
+		townBlocks.get(town).add(townBlock);
+		claims.put(SiegeWarDistanceUtil.getChunkKey(townBlockX, townBlockZ), townBlock);
+		return townBlock;
+	}
+
+	/**
+	 * Create a nation with the given capital.
+	 *
+	 * @param name the nation name
+	 * @param capital the capital town
+	 * @return the nation
+	 */
+	public Nation createNation(String name, Town capital) {
+		UUID uuid = UUID.nameUUIDFromBytes(("nation:" + name).getBytes());
+		Nation nation = mockTownyObject(Nation.class, invocation -> answerNation(invocation, name, uuid));
+		nations.add(nation);
+		nationCapitals.put(nation, capital);
+		nationEnemies.put(nation, new HashSet<>());
+		townNations.put(capital, nation);
+		SiegeController.markSiegeParticipantsChanged();
+		return nation;
+	}
+
+	public void addTownToNation(Town town, Nation nation) {
+		townNations.put(town, nation);
+		SiegeController.markSiegeParticipantsChanged();
+	}
+
+	/**
+	 * Make two nations enemies of each other.
+	 */
+	public void setEnemies(Nation nation1, Nation nation2) {
+		nationEnemies.get(nation1).add(nation2);
+		nationEnemies.get(nation2).add(nation1);
+	}
+
+	/**
+	 * Create an online player, who is a resident of the given town.
+	 *
+	 * @param name the player name
+	 * @param town the town of the player, or null for a nomad
+	 * @param location where the player stands
+	 * @return the player
+	 */
+	public Player createPlayer(String name, Town town, Location location) {
+		UUID uuid = UUID.nameUUIDFromBytes(("player:" + name).getBytes());
+		Player player = HarnessMocks.mock(Player.class, invocation -> answerPlayer(invocation, name, uuid));
+		Resident resident = mockTownyObject(Resident.class, invocation -> answerResident(invocation, name, uuid));
+		residents.put(uuid, resident);
+		if (town != null) {
+			residentTowns.put(resident, town);
+			townResidents.get(town).add(resident);
+		}
+		playerLocations.put(player, location.clone());
+		playerMessages.put(player, new ArrayList<>());
+		onlinePlayers.put(uuid, player);
+		SiegeController.markSiegeParticipantsChanged();
+		return player;
+	}
+
+	public Resident getResident(Player player) {
+		return residents.get(player.getUniqueId());
+	}
+
+	public void movePlayer(Player player, Location location) {
+		playerLocations.put(player, location.clone());
+	}
+
+	/**
+	 * @return the messages sent to the player, oldest first
+	 */
+	public List<String> getMessages(Player player) {
+		return playerMessages.get(player);
+	}
+
+	/**
+	 * @return the Bukkit events called since the harness started, oldest first
+	 */
+	public List<Event> getCalledEvents() {
+		return calledEvents;
+	}
+
+	/**
+	 * Place a standing banner on a stone block.
+	 *
+	 * @return the banner block
+	 */
+	public Block placeBanner(int x, int y, int z) {
+		world.setType(x, y - 1, z, Material.STONE);
+		world.setType(x, y, z, Material.RED_BANNER);
+		return world.getBlockAt(x, y, z);
+	}
+
+	/**
+	 * Start a conquest siege the way a player placing a banner would.
+	 * The siege attacks from the nation of the player's town, and is started through StartConquestSiege.
+	 *
+	 * @param player the player starting the siege
+	 * @param targetTown the town to besiege
+	 * @param bannerBlock the siege banner
+	 * @return the new siege
+	 * @throws TownyException if the siege is refused
+	 */
+	public Siege startConquestSiege(Player player, Town targetTown, Block bannerBlock) throws TownyException {
+		Town townOfSiegeStarter = residentTowns.get(getResident(player));
+		Nation nationOfSiegeStarter = townNations.get(townOfSiegeStarter);
+		TownBlock townBlock = townBlocks.get(targetTown).get(0);
+		StartConquestSiege.processStartSiegeRequest(player, townOfSiegeStarter, nationOfSiegeStarter, townBlock, targetTown, bannerBlock);
+		return SiegeController.getSiege(targetTown);
+	}
+
+	/**
+	 * Start a battle session which ends after the configured duration.
+	 */
+	public void startBattleSession() {
+		BattleSession battleSession = BattleSession.getBattleSession();
+		battleSession.setActive(true);
+		battleSession.setScheduledEndTime(System.currentTimeMillis() + SiegeWarSettings.getWarSiegeBattleSessionsDurationMinutes() * 60000L);
+	}
+
+	/**
+	 * Fire one Towny short tick at SiegeWar, then run the tasks it scheduled.
+	 */
+	public void advanceShortTick() {
+		townyEventListener.onShortTime(shortTimeEvent);
+		runScheduledTasks();
+	}
+
+	/**
+	 * Run the tasks scheduled so far. Tasks which they schedule are left for the next call.
+	 */
+	public void runScheduledTasks() {
+		for (int numTasks = scheduledTasks.size(); numTasks > 0; numTasks--)
+			scheduledTasks.poll().run();
+	}
+
+	@Override
+	public void close() throws Exception {
+		try {
+			for (Player player : onlinePlayers.values()) {
+				BossBarUtil.removeBossBars(player);
+				SiegeHUDManager.toggleOff(player);
+			}
+			onlinePlayers.clear();
+			SiegeController.clearSieges();
+			SiegeWarDistanceUtil.recalculatePlayerChunkBuckets();
+			SiegeWarDistanceUtil.recalculatePlayersRegisteredToActiveSiegeZones();
+			BattleSession battleSession = BattleSession.getBattleSession();
+			battleSession.setActive(false);
+			battleSession.setScheduledEndTime(0);
+			battleSession.setScheduledStartTime(null);
+			scheduledTasks.clear();
+			setPluginField(previousPlugin);
+		} finally {
+			for (int i = staticMocks.size() - 1; i >= 0; i--)
+				staticMocks.get(i).close();
+		}
+	}
+
+	private static void setPluginField(SiegeWar siegeWar) throws ReflectiveOperationException {
+		Field field = SiegeWar.class.getDeclaredField("plugin");
+		field.setAccessible(true);
+		field.set(null, siegeWar);
+	}
+
+	/*
+	 * Towny objects
+	 */
+
+	/**
+	 * Mock a Towny object whose metadata is kept in a map. Other calls go to the given answer.
+	 */
+	private static <T> T mockTownyObject(Class<T> type, Answer<Object> answer) {
+		Map<String, CustomDataField<?>> metadata = new HashMap<>();
+		return HarnessMocks.mock(type, invocation -> {
+			Object[] args = invocation.getArguments();
+			CustomDataField<?> field;
+			switch (invocation.getMethod().getName()) {
+				case "hasMeta":
+					if (args.length == 0)
+						return !metadata.isEmpty();
+					field = metadata.get((String) args[0]);
+					return field != null && (args.length == 1 || ((Class<?>) args[1]).isInstance(field));
+				case "getMetadata":
+					if (args.length == 0)
+						return new ArrayList<>(metadata.values());
+					field = metadata.get((String) args[0]);
+					return args.length == 2 && !((Class<?>) args[1]).isInstance(field) ? null : field;
+				case "addMetaData":
+					field = (CustomDataField<?>) args[0];
+					metadata.put(field.getKey(), field);
+					return null;
+				case "removeMetaData":
+					String key = args[0] instanceof CustomDataField ? ((CustomDataField<?>) args[0]).getKey() : (String) args[0];
+					boolean removed = metadata.remove(key) != null;
+					return invocation.getMethod().getReturnType() == boolean.class ? removed : null;
+				case "equals":
+					return invocation.getMock() == args[0];
+				case "hashCode":
+					return System.identityHashCode(invocation.getMock());
+				default:
+					Object result = answer.answer(invocation);
+					return result == UNHANDLED ? Mockito.RETURNS_DEFAULTS.answer(invocation) : result;
+			}
+		});
+	}
+
+	private Object answerTown(InvocationOnMock invocation, String name, UUID uuid) throws Throwable {
+		Town town = (Town) invocation.getMock();
+		Object[] args = invocation.getArguments();
+		Nation nation = townNations.get(town);
+		List<TownBlock> claimed = townBlocks.get(town);
+		switch (invocation.getMethod().getName()) {
+			case "getName":
+			case "getFormattedName":
+			case "toString":
+				return name;
+			case "getUUID":
+				return uuid;
+			case "hasNation":
+				return nation != null;
+			case "getNationOrNull":
+				return nation;
+			case "getNation":
+				if (nation == null)
+					throw new NotRegisteredException(name + " has no nation");
+				return nation;
+			case "isCapital":
+				return nation != null && nationCapitals.get(nation) == town;
+			case "getResidents":
+				return new ArrayList<>(townResidents.get(town));
+			case "getNumResidents":
+				return townResidents.get(town).size();
+			case "hasResident":
+				return hasResident(town, args[0]);
+			case "getTownBlocks":
+				return new ArrayList<>(claimed);
+			case "getNumTownBlocks":
+				return claimed.size();
+			case "hasHomeBlock":
+				return !claimed.isEmpty();
+			case "getHomeBlock":
+				if (claimed.isEmpty())
+					throw new TownyException(name + " has no homeblock");
+				return claimed.get(0);
+			case "getHomeBlockOrNull":
+				return claimed.isEmpty() ? null : claimed.get(0);
+			case "getLevelNumber":
+				return 1;
+			default:
+				return UNHANDLED;
+		}
+	}
+
+	private boolean hasResident(Town town, Object residentOrPlayer) {
+		for (Resident resident : townResidents.get(town)) {
+			if (resident == residentOrPlayer
+					|| residentOrPlayer instanceof Player && resident.getUUID().equals(((Player) residentOrPlayer).getUniqueId())
+					|| residentOrPlayer instanceof String && resident.getName().equals(residentOrPlayer))
+				return true;
+		}
+		return false;
+	}
+
+	private Object answerNation(InvocationOnMock invocation, String name, UUID uuid) {
+		Nation nation = (Nation) invocation.getMock();
+		Object[] args = invocation.getArguments();
+		switch (invocation.getMethod().getName()) {
+			case "getName":
+			case "getFormattedName":
+			case "toString":
+				return name;
+			case "getUUID":
+				return uuid;
+			case "getCapital":
+				return nationCapitals.get(nation);
+			case "getTowns":
+				return getTowns(nation);
+			case "getNumTowns":
+				return getTowns(nation).size();
+			case "hasTown":
+				return args[0] instanceof Town && townNations.get(args[0]) == nation;
+			case "getResidents":
+				List<Resident> nationResidents = new ArrayList<>();
+				for (Town town : getTowns(nation))
+					nationResidents.addAll(townResidents.get(town));
+				return nationResidents;
+			case "hasEnemy":
+				return nationEnemies.get(nation).contains(args[0]);
+			case "getEnemies":
+				return new ArrayList<>(nationEnemies.get(nation));
+			default:
+				return UNHANDLED;
+		}
+	}
+
+	private List<Town> getTowns(Nation nation) {
+		List<Town> result = new ArrayList<>();
+		for (Town town : towns)
+			if (townNations.get(town) == nation)
+				result.add(town);
+		return result;
+	}
+
+	private Object answerResident(InvocationOnMock invocation, String name, UUID uuid) throws Throwable {
+		Town town = residentTowns.get((Resident) invocation.getMock());
+		Nation nation = town == null ? null : townNations.get(town);
+		switch (invocation.getMethod().getName()) {
+			case "getName":
+			case "getFormattedName":
+			case "toString":
+				return name;
+			case "getUUID":
+				return uuid;
+			case "hasTown":
+				return town != null;
+			case "getTownOrNull":
+				return town;
+			case "getTown":
+				if (town == null)
+					throw new NotRegisteredException(name + " has no town");
+				return town;
+			case "hasNation":
+				return nation != null;
+			case "getNationOrNull":
+				return nation;
+			case "getNation":
+				if (nation == null)
+					throw new NotRegisteredException(name + " has no nation");
+				return nation;
+			case "getPlayer":
+				return onlinePlayers.get(uuid);
+			case "isOnline":
+				return onlinePlayers.containsKey(uuid);
+			default:
+				return UNHANDLED;
+		}
+	}
+
+	private Object answerTownBlock(InvocationOnMock invocation, Town town, int x, int z) throws Throwable {
+		switch (invocation.getMethod().getName()) {
+			case "getX":
+				return x;
+			case "getZ":
+				return z;
+			case "getCoord":
+				return new Coord(x, z);
+			case "getWorld":
+				return townyWorld;
+			case "hasTown":
+				return true;
+			case "getTown":
+			case "getTownOrNull":
+				return town;
+			case "toString":
+				return "FakeTownBlock{" + x + "," + z + "}";
+			default:
+				return UNHANDLED;
+		}
+	}
+
+	private Object answerTownyWorld(InvocationOnMock invocation) {
+		switch (invocation.getMethod().getName()) {
+			case "getName":
+			case "getFormattedName":
+			case "toString":
+				return world.getName();
+			case "getUUID":
+				return world.getWorld().getUID();
+			case "getBukkitWorld":
+				return world.getWorld();
+			case "isUsingTowny":
+			case "isWarAllowed":
+				return true;
+			default:
+				return UNHANDLED;
+		}
+	}
+
+	private Object answerTownyAPI(InvocationOnMock invocation) throws Throwable {
+		Object[] args = invocation.getArguments();
+		switch (invocation.getMethod().getName()) {
+			case "getResident":
+				return findResident(args[0]);
+			case "getTown":
+				if (args[0] instanceof Location)
+					return getTownAt((Location) args[0]);
+				return findTown(args[0]);
+			case "getTownBlock":
+				return args[0] instanceof Location ? getTownBlockAt((Location) args[0]) : null;
+			case "isWilderness":
+				if (args[0] instanceof Location)
+					return getTownBlockAt((Location) args[0]) == null;
+				if (args[0] instanceof Block)
+					return getTownBlockAt(((Block) args[0]).getLocation()) == null;
+				return true;
+			case "isTownyWorld":
+				return true;
+			case "getTownyWorld":
+				return townyWorld;
+			case "getNation":
+				return findNation(args[0]);
+			case "getNations":
+				return new ArrayList<>(nations);
+			case "getTowns":
+				return new ArrayList<>(towns);
+			case "getOnlinePlayers":
+				return getOnlinePlayersOf(args[0]);
+			default:
+				return Mockito.RETURNS_DEFAULTS.answer(invocation);
+		}
+	}
+
+	private Object answerTownyUniverse(InvocationOnMock invocation) throws Throwable {
+		Object[] args = invocation.getArguments();
+		switch (invocation.getMethod().getName()) {
+			case "getResident":
+				return findResident(args[0]);
+			case "hasResident":
+				return findResident(args[0]) != null;
+			case "getPermissionSource":
+				return permissionSource;
+			case "getTown":
+				return findTown(args[0]);
+			case "getNation":
+				return findNation(args[0]);
+			case "getTowns":
+				return new ArrayList<>(towns);
+			case "getNations":
+				return new ArrayList<>(nations);
+			case "getResidents":
+				return new ArrayList<>(residents.values());
+			default:
+				return Mockito.RETURNS_DEFAULTS.answer(invocation);
+		}
+	}
+
+	private Resident findResident(Object key) {
+		if (key instanceof Player)
+			return residents.get(((Player) key).getUniqueId());
+		if (key instanceof UUID)
+			return residents.get(key);
+		for (Resident resident : residents.values())
+			if (resident.getName().equals(key))
+				return resident;
+		return null;
+	}
+
+	private Town findTown(Object key) {
+		for (Town town : towns)
+			if (town.getUUID().equals(key) || town.getName().equals(key))
+				return town;
+		return null;
+	}
+
+	private Nation findNation(Object key) {
+		for (Nation nation : nations)
+			if (nation.getUUID().equals(key) || nation.getName().equals(key))
+				return nation;
+		return null;
+	}
+
+	private TownBlock getTownBlockAt(Location location) {
+		return claims.get(SiegeWarDistanceUtil.getChunkKey(
+				Math.floorDiv(location.getBlockX(), TOWN_BLOCK_SIZE),
+				Math.floorDiv(location.getBlockZ(), TOWN_BLOCK_SIZE)));
+	}
+
+	private Town getTownAt(Location location) {
+		TownBlock townBlock = getTownBlockAt(location);
+		return townBlock == null ? null : townBlock.getTownOrNull();
+	}
+
+	private List<Player> getOnlinePlayersOf(Object government) {
+		List<Player> result = new ArrayList<>();
+		for (Player player : onlinePlayers.values()) {
+			Town town = residentTowns.get(residents.get(player.getUniqueId()));
+			if (town != null && (town == government || townNations.get(town) == government))
+				result.add(player);
+		}
+		return result;
+	}
+
+	/*
+	 * Players
+	 */
+
+	private Object answerPlayer(InvocationOnMock invocation, String name, UUID uuid) throws Throwable {
+		Player player = (Player) invocation.getMock();
+		Object[] args = invocation.getArguments();
+		switch (invocation.getMethod().getName()) {
+			case "getName":
+			case "getDisplayName":
+			case "toString":
+				return name;
+			case "getUniqueId":
+				return uuid;
+			case "getLocation":
+				Location location = playerLocations.get(player);
+				if (args.length == 1 && args[0] != null) {
+					Location target = (Location) args[0];
+					target.setWorld(location.getWorld());
+					target.setX(location.getX());
+					target.setY(location.getY());
+					target.setZ(location.getZ());
+					target.setYaw(location.getYaw());
+					target.setPitch(location.getPitch());
+					return target;
+				}
+				return location.clone();
+			case "getWorld":
+				return playerLocations.get(player).getWorld();
+			case "teleport":
+				if (args[0] instanceof Location)
+					movePlayer(player, (Location) args[0]);
+				return true;
+			case "isOnline":
+			case "isValid":
+				return onlinePlayers.containsKey(uuid);
+			case "hasPermission":
+				return true;
+			case "getGameMode":
+				return GameMode.SURVIVAL;
+			case "getScoreboard":
+				return playerScoreboards.getOrDefault(player, mainScoreboard);
+			case "setScoreboard":
+				playerScoreboards.put(player, (Scoreboard) args[0]);
+				return null;
+			case "getInventory":
+				return playerInventories.computeIfAbsent(player, SiegeWarTestHarness::newInventory);
+			case "sendMessage":
+				for (Object arg : args)
+					if (arg instanceof String)
+						playerMessages.get(player).add((String) arg);
+				return null;
+			case "equals":
+				return player == args[0];
+			case "hashCode":
+				return uuid.hashCode();
+			default:
+				return Mockito.RETURNS_DEFAULTS.answer(invocation);
+		}
+	}
+
+	/*
+	 * Server and plugin
+	 */
+
+	/**
+	 * Static Bukkit methods are delegated to the mock server, like Bukkit itself does.
+	 */
+	private Object answerBukkit(InvocationOnMock invocation) throws Throwable {
+		Method method = invocation.getMethod();
+		if (method.getName().equals("getServer"))
+			return server;
+		Method serverMethod;
+		try {
+			serverMethod = Server.class.getMethod(method.getName(), method.getParameterTypes());
+		} catch (NoSuchMethodException e) {
+			return Mockito.RETURNS_DEFAULTS.answer(invocation);
+		}
+		try {
+			return serverMethod.invoke(server, invocation.getArguments());
+		} catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+
+	private Object answerServer(InvocationOnMock invocation) throws Throwable {
+		Object[] args = invocation.getArguments();
+		switch (invocation.getMethod().getName()) {
+			case "getOnlinePlayers":
+				return Collections.unmodifiableList(new ArrayList<>(onlinePlayers.values()));
+			case "getPlayer":
+			case "getPlayerExact":
+				if (args[0] instanceof UUID)
+					return onlinePlayers.get(args[0]);
+				for (Player player : onlinePlayers.values())
+					if (player.getName().equals(args[0]))
+						return player;
+				return null;
+			case "getWorld":
+				return world.getName().equals(args[0]) || world.getWorld().getUID().equals(args[0]) ? world.getWorld() : null;
+			case "getWorlds":
+				return Collections.singletonList(world.getWorld());
+			case "isPrimaryThread":
+				return true;
+			case "getPluginManager":
+				return pluginManager;
+			case "getScoreboardManager":
+				return scoreboardManager;
+			case "getItemFactory":
+				return itemFactory;
+			case "getLogger":
+				return logger;
+			case "getName":
+				return "SiegeWarTestHarness";
+			default:
+				return Mockito.RETURNS_DEFAULTS.answer(invocation);
+		}
+	}
+
+	/**
+	 * A player inventory which keeps its items. Like CraftBukkit, getContents() returns the stored items, not copies.
+	 */
+	private static PlayerInventory newInventory(Player player) {
+		ItemStack[] items = new ItemStack[INVENTORY_SIZE];
+		return HarnessMocks.mock(PlayerInventory.class, invocation -> {
+			Object[] args = invocation.getArguments();
+			switch (invocation.getMethod().getName()) {
+				case "getSize":
+					return INVENTORY_SIZE;
+				case "getContents":
+					return items.clone();
+				case "setContents":
+					ItemStack[] contents = (ItemStack[]) args[0];
+					for (int i = 0; i < INVENTORY_SIZE; i++)
+						items[i] = i < contents.length ? contents[i] : null;
+					return null;
+				case "getItem":
+					return args[0] instanceof Integer ? items[(Integer) args[0]] : null;
+				case "setItem":
+					if (args[0] instanceof Integer)
+						items[(Integer) args[0]] = (ItemStack) args[1];
+					return null;
+				case "getHolder":
+					return player;
+				default:
+					return Mockito.RETURNS_DEFAULTS.answer(invocation);
+			}
+		});
+	}
+
+	/**
+	 * A scoreboard which keeps its objectives and teams. Everything else about it does nothing.
+	 */
+	private static Scoreboard newScoreboard() {
+		Map<String, Objective> objectives = new HashMap<>();
+		Map<String, Team> teams = new HashMap<>();
+		return HarnessMocks.mock(Scoreboard.class, invocation -> {
+			Object[] args = invocation.getArguments();
+			switch (invocation.getMethod().getName()) {
+				case "registerNewObjective":
+					Objective objective = HarnessMocks.mock(Objective.class, Mockito.RETURNS_MOCKS);
+					objectives.put((String) args[0], objective);
+					return objective;
+				case "getObjective":
+					return args[0] instanceof String ? objectives.get(args[0]) : null;
+				case "registerNewTeam":
+					Team team = HarnessMocks.mock(Team.class, Mockito.RETURNS_DEFAULTS);
+					teams.put((String) args[0], team);
+					return team;
+				case "getTeam":
+					return teams.get(args[0]);
+				default:
+					return Mockito.RETURNS_DEFAULTS.answer(invocation);
+			}
+		});
+	}
+
+	private Object answerPluginManager(InvocationOnMock invocation) throws Throwable {
+		if (invocation.getMethod().getName().equals("callEvent")) {
+			calledEvents.add((Event) invocation.getArguments()[0]);
+			return null;
+		}
+		return Mockito.RETURNS_DEFAULTS.answer(invocation);
+	}
+
+	private Object answerPlugin(InvocationOnMock invocation) throws Throwable {
+		switch (invocation.getMethod().getName()) {
+			case "getLogger":
+				return logger;
+			case "getVersion":
+				return VERSION;
+			case "isEnabled":
+				return true;
+			case "getScheduler":
+				return scheduler;
+			case "getDataFolder":
+				return dataFolder.toFile();
+			case "getName":
+				return "SiegeWar";
+			case "getServer":
+				return server;
+			default:
+				return Mockito.RETURNS_DEFAULTS.answer(invocation);
+		}
+	}
+
+	/**
+	 * Tasks are queued whichever scheduler method is used. Repeating tasks only run once.
+	 */
+	private Object answerScheduler(InvocationOnMock invocation) throws Throwable {
+		if (invocation.getMethod().getReturnType() == boolean.class)
+			return true; //Every thread is the main thread
+		for (Object arg : invocation.getArguments()) {
+			if (arg instanceof Runnable) {
+				scheduledTasks.add((Runnable) arg);
+				break;
+			}
+		}
+		return Mockito.RETURNS_MOCKS.answer(invocation);
+	}
+
+	private Object answerTowny(InvocationOnMock invocation) throws Throwable {
+		if (invocation.getMethod().getName().equals("getAdventure")) {
+			if (adventure == null)
+				adventure = HarnessMocks.mock(invocation.getMethod().getReturnType(), Mockito.RETURNS_MOCKS);
+			return adventure;
+		}
+		return Mockito.RETURNS_DEFAULTS.answer(invocation);
+	}
+
+	/**
+	 * Translations return their key, so messages can be checked without language files.
+	 */
+	private static Object answerTranslation(InvocationOnMock invocation) throws Throwable {
+		Object[] args = invocation.getArguments();
+		Class<?> returnType = invocation.getMethod().getReturnType();
+		if (returnType == String.class && args.length > 0 && args[0] instanceof String)
+			return args[0];
+		if (returnType == Locale.class)
+			return Locale.ROOT;
+		return Mockito.RETURNS_DEFAULTS.answer(invocation);
+	}
+}
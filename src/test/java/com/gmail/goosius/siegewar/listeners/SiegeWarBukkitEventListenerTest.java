@@ -0,0 +1,17 @@
+package com.gmail.goosius.siegewar.listeners;
+
+import org.bukkit.event.player.PlayerTeleportEvent.TeleportCause;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class SiegeWarBukkitEventListenerTest {
+
+	@Test
+	public void onlyPluginAndCommandTeleportsAreChecked() {
+		for (TeleportCause cause : TeleportCause.values()) {
+			boolean expected = cause == TeleportCause.PLUGIN || cause == TeleportCause.COMMAND;
+			assertEquals(cause.name(), expected, SiegeWarBukkitEventListener.isTeleportCauseCheckedBySiegeWar(cause));
+		}
+	}
+}
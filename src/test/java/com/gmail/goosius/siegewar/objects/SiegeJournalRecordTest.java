@@ -0,0 +1,59 @@
+package com.gmail.goosius.siegewar.objects;
+
+import com.gmail.goosius.siegewar.enums.SiegeJournalEventType;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class SiegeJournalRecordTest {
+
+	@Test
+	public void recordRoundTripsThroughItsFixedSize() throws IOException {
+		UUID siegeId = UUID.randomUUID();
+		for (SiegeJournalEventType type : SiegeJournalEventType.values()) {
+			SiegeJournalRecord original = new SiegeJournalRecord(1234567890123L, type, siegeId, SiegeJournalRecord.SIDE_DEFENDERS, -42);
+
+			byte[] bytes = write(original);
+			assertEquals(SiegeJournalRecord.RECORD_SIZE, bytes.length);
+
+			SiegeJournalRecord read = SiegeJournalRecord.readFrom(new DataInputStream(new ByteArrayInputStream(bytes)));
+			assertEquals(original.getTime(), read.getTime());
+			assertEquals(type, read.getType());
+			assertEquals(siegeId, read.getSiegeId());
+			assertEquals(SiegeJournalRecord.SIDE_DEFENDERS, read.getSide());
+			assertEquals(-42, read.getValue());
+		}
+	}
+
+	@Test
+	public void globalRecordKeepsNoSiegeId() throws IOException {
+		SiegeJournalRecord original = new SiegeJournalRecord(0, SiegeJournalEventType.SESSION_START, SiegeJournalRecord.NO_SIEGE, SiegeJournalRecord.SIDE_NOBODY, 0);
+
+		SiegeJournalRecord read = SiegeJournalRecord.readFrom(new DataInputStream(new ByteArrayInputStream(write(original))));
+		assertEquals(SiegeJournalRecord.NO_SIEGE, read.getSiegeId());
+	}
+
+	@Test
+	public void unknownEventCodeReadsAsNullType() throws IOException {
+		byte[] bytes = write(new SiegeJournalRecord(0, SiegeJournalEventType.BATTLE_RESULT, UUID.randomUUID(), SiegeJournalRecord.SIDE_NOBODY, 0));
+		bytes[8] = 127; //The event type follows the time
+
+		assertNull(SiegeJournalRecord.readFrom(new DataInputStream(new ByteArrayInputStream(bytes))).getType());
+	}
+
+	private static byte[] write(SiegeJournalRecord record) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream output = new DataOutputStream(bytes)) {
+			record.writeTo(output);
+		}
+		return bytes.toByteArray();
+	}
+}
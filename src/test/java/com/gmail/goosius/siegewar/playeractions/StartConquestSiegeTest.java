@@ -0,0 +1,117 @@
+package com.gmail.goosius.siegewar.playeractions;
+
+import com.gmail.goosius.siegewar.SiegeController;
+import com.gmail.goosius.siegewar.SiegeWarAPI;
+import com.gmail.goosius.siegewar.enums.SiegeSide;
+import com.gmail.goosius.siegewar.enums.SiegeStatus;
+import com.gmail.goosius.siegewar.enums.SiegeType;
+import com.gmail.goosius.siegewar.events.SiegeWarStartEvent;
+import com.gmail.goosius.siegewar.harness.SiegeWarTestHarness;
+import com.gmail.goosius.siegewar.metadata.SiegeMetaDataController;
+import com.gmail.goosius.siegewar.objects.BannerControlSession;
+import com.gmail.goosius.siegewar.objects.Siege;
+import com.gmail.goosius.siegewar.objects.SiegeWorldView.SiegeSnapshot;
+import com.palmergames.bukkit.towny.exceptions.TownyException;
+import com.palmergames.bukkit.towny.object.Nation;
+import com.palmergames.bukkit.towny.object.Town;
+import org.bukkit.block.Block;
+import org.bukkit.entity.Player;
+import org.bukkit.event.Event;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class StartConquestSiegeTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private SiegeWarTestHarness harness;
+	private Town defendingTown;
+	private Nation attackingNation;
+	private Nation defendingNation;
+	private Player attacker;
+	private Block bannerBlock;
+
+	/*
+	 * The defending town claims townblock 0,0 i.e. blocks 0 to 15.
+	 * The banner stands in the wilderness just east of it, and the attacker stands beside the banner.
+	 */
+	@Before
+	public void startServer() throws Exception {
+		harness = new SiegeWarTestHarness(temporaryFolder.newFolder().toPath());
+		defendingTown = harness.createTown("Defenders", 0, 0);
+		defendingNation = harness.createNation("DefendingNation", defendingTown);
+		Town attackingTown = harness.createTown("Attackers", 20, 0);
+		attackingNation = harness.createNation("AttackingNation", attackingTown);
+		harness.setEnemies(attackingNation, defendingNation);
+		bannerBlock = harness.placeBanner(20, 64, 8);
+		attacker = harness.createPlayer("attacker", attackingTown, harness.getWorld().getLocation(21.5, 64, 8.5));
+	}
+
+	@After
+	public void stopServer() throws Exception {
+		harness.close();
+	}
+
+	@Test
+	public void startSiegeThenAdvanceOneShortTick() throws TownyException {
+		Siege siege = harness.startConquestSiege(attacker, defendingTown, bannerBlock);
+
+		assertNotNull(siege);
+		assertEquals(SiegeType.CONQUEST, siege.getSiegeType());
+		assertEquals(SiegeStatus.IN_PROGRESS, siege.getStatus());
+		assertSame(attackingNation, siege.getAttacker());
+		assertSame(defendingTown, siege.getDefender());
+		assertEquals(bannerBlock.getLocation(), siege.getFlagLocation());
+		assertTrue(SiegeMetaDataController.hasSiege(defendingTown));
+		assertTrue(SiegeController.getActiveSieges().contains(siege));
+		assertSame(siege, SiegeController.getActiveSiegeAtLocation(attacker.getLocation()));
+		assertEquals(1, countCalledEvents(SiegeWarStartEvent.class));
+
+		harness.startBattleSession();
+		harness.advanceShortTick();
+
+		BannerControlSession session = siege.getBannerControlSessions().get(attacker);
+		assertNotNull("The attacker at the banner should start a banner control session", session);
+		assertEquals(SiegeSide.ATTACKERS, session.getSiegeSide());
+		assertEquals(SiegeSide.NOBODY, siege.getBannerControllingSide());
+
+		SiegeSnapshot snapshot = SiegeWarAPI.snapshot().getSiegeOfTown(defendingTown.getUUID());
+		assertNotNull("The short tick should publish the siege to async readers", snapshot);
+		assertEquals(SiegeStatus.IN_PROGRESS, snapshot.getStatus());
+	}
+
+	@Test
+	public void siegeIsRefusedAgainstNonEnemyNation() {
+		Town neutralTown = harness.createTown("Neutrals", -20, 0);
+		harness.createNation("NeutralNation", neutralTown);
+
+		try {
+			harness.startConquestSiege(attacker, neutralTown, harness.placeBanner(-21, 64, 8));
+		} catch (TownyException expected) {
+			assertNull(SiegeController.getSiege(neutralTown));
+			assertFalse(SiegeMetaDataController.hasSiege(neutralTown));
+			assertEquals(0, countCalledEvents(SiegeWarStartEvent.class));
+			return;
+		}
+		throw new AssertionError("The siege should have been refused");
+	}
+
+	private int countCalledEvents(Class<? extends Event> type) {
+		int count = 0;
+		for (Event event : harness.getCalledEvents())
+			if (type.isInstance(event))
+				count++;
+		return count;
+	}
+}
@@ -0,0 +1,39 @@
+package com.gmail.goosius.siegewar.utils;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+
+public class SiegeWarDistanceUtilTest {
+
+	private static final int[] COORDINATES = {0, 1, -1, 15, -16, 1875000, -1875000, Integer.MAX_VALUE, Integer.MIN_VALUE};
+
+	@Test
+	public void chunkKeyRoundTripsBothCoordinates() {
+		for (int chunkX : COORDINATES) {
+			for (int chunkZ : COORDINATES) {
+				long chunkKey = SiegeWarDistanceUtil.getChunkKey(chunkX, chunkZ);
+				assertEquals(chunkX, SiegeWarDistanceUtil.getChunkX(chunkKey));
+				assertEquals(chunkZ, SiegeWarDistanceUtil.getChunkZ(chunkKey));
+			}
+		}
+	}
+
+	/*
+	 * A negative z must not bleed into the x half of the key,
+	 * otherwise neighbouring chunks would share a bucket.
+	 */
+	@Test
+	public void chunkKeysAreUnique() {
+		Set<Long> chunkKeys = new HashSet<>();
+		for (int chunkX : COORDINATES) {
+			for (int chunkZ : COORDINATES) {
+				chunkKeys.add(SiegeWarDistanceUtil.getChunkKey(chunkX, chunkZ));
+			}
+		}
+		assertEquals(COORDINATES.length * COORDINATES.length, chunkKeys.size());
+	}
+}
@@ -0,0 +1,127 @@
+package com.gmail.goosius.siegewar.utils;
+
+import com.gmail.goosius.siegewar.enums.SiegeJournalEventType;
+import com.gmail.goosius.siegewar.objects.SiegeJournalRecord;
+import com.gmail.goosius.siegewar.utils.SiegeWarJournalReplayer.ReplayedSiege;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SiegeWarJournalReplayerTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private final UUID siegeId = UUID.randomUUID();
+
+	@Test
+	public void replayRecomputesBattleResultsAndOutcome() throws IOException {
+		Path journalFolder = temporaryFolder.getRoot().toPath();
+		writeJournal(SiegeWarJournalReplayer.getActiveFile(journalFolder),
+				globalRecord(SiegeJournalEventType.SESSION_START),
+				record(SiegeJournalEventType.BANNER_CONTROL_GAINED, SiegeJournalRecord.SIDE_ATTACKERS, 0),
+				record(SiegeJournalEventType.BANNER_CONTROL_POINTS, SiegeJournalRecord.SIDE_ATTACKERS, 30),
+				record(SiegeJournalEventType.DEATH_PENALTY_POINTS, SiegeJournalRecord.SIDE_DEFENDERS, 10),
+				record(SiegeJournalEventType.BATTLE_RESULT, SiegeJournalRecord.SIDE_NOBODY, 20),
+				record(SiegeJournalEventType.DEATH_PENALTY_POINTS, SiegeJournalRecord.SIDE_ATTACKERS, 5),
+				globalRecord(SiegeJournalEventType.SESSION_END));
+
+		Map<UUID, ReplayedSiege> sieges = SiegeWarJournalReplayer.replay(SiegeWarJournalReplayer.getJournalFiles(journalFolder), false);
+
+		assertEquals(1, sieges.size());
+		ReplayedSiege siege = sieges.get(siegeId);
+		assertEquals(1, siege.getNumBattles());
+		assertEquals(20, siege.getSiegeBalanceAdjustments());
+		assertEquals(0, siege.getNumMismatchedBattleResults());
+		assertEquals(SiegeJournalRecord.SIDE_NOBODY, siege.getBannerControllingSide());
+		assertEquals(5, siege.getAttackerBattlePoints());
+		assertEquals(0, siege.getDefenderBattlePoints());
+		assertFalse(siege.isFinished());
+	}
+
+	@Test
+	public void replayCountsBattleResultsWhichDisagreeWithTheSetting() throws IOException {
+		Path journal = temporaryFolder.newFile().toPath();
+		writeJournal(journal,
+				record(SiegeJournalEventType.BANNER_CONTROL_POINTS, SiegeJournalRecord.SIDE_ATTACKERS, 30),
+				record(SiegeJournalEventType.BANNER_CONTROL_POINTS, SiegeJournalRecord.SIDE_DEFENDERS, 10),
+				record(SiegeJournalEventType.BATTLE_RESULT, SiegeJournalRecord.SIDE_NOBODY, 20));
+
+		assertEquals(1, SiegeWarJournalReplayer.replay(Collections.singletonList(journal), true).get(siegeId).getNumMismatchedBattleResults());
+		assertEquals(0, SiegeWarJournalReplayer.replay(Collections.singletonList(journal), false).get(siegeId).getNumMismatchedBattleResults());
+	}
+
+	@Test
+	public void replayReadsRotatedFilesOldestFirstAndStartsNewSiegeAfterOutcome() throws IOException {
+		Path journalFolder = temporaryFolder.getRoot().toPath();
+		writeJournal(SiegeWarJournalReplayer.getRotatedFile(journalFolder, 2),
+				record(SiegeJournalEventType.BATTLE_RESULT, SiegeJournalRecord.SIDE_NOBODY, 0));
+		writeJournal(SiegeWarJournalReplayer.getRotatedFile(journalFolder, 1),
+				record(SiegeJournalEventType.SIEGE_OUTCOME, SiegeJournalRecord.SIDE_DEFENDERS, -100));
+		writeJournal(SiegeWarJournalReplayer.getActiveFile(journalFolder),
+				record(SiegeJournalEventType.BANNER_CONTROL_POINTS, SiegeJournalRecord.SIDE_DEFENDERS, 15));
+
+		List<Path> files = SiegeWarJournalReplayer.getJournalFiles(journalFolder);
+		assertEquals(Arrays.asList(
+				SiegeWarJournalReplayer.getRotatedFile(journalFolder, 2),
+				SiegeWarJournalReplayer.getRotatedFile(journalFolder, 1),
+				SiegeWarJournalReplayer.getActiveFile(journalFolder)), files);
+
+		ReplayedSiege siege = SiegeWarJournalReplayer.replay(files, false).get(siegeId);
+		assertFalse(siege.isFinished());
+		assertEquals(0, siege.getNumBattles());
+		assertEquals(15, siege.getDefenderBattlePoints());
+	}
+
+	@Test
+	public void replayIgnoresPartialRecordAtEndOfFile() throws IOException {
+		Path journal = temporaryFolder.newFile().toPath();
+		writeJournal(journal,
+				record(SiegeJournalEventType.SIEGE_OUTCOME, SiegeJournalRecord.SIDE_ATTACKERS, 250));
+		Files.write(journal, new byte[SiegeJournalRecord.RECORD_SIZE - 1], StandardOpenOption.APPEND);
+
+		ReplayedSiege siege = SiegeWarJournalReplayer.replay(Collections.singletonList(journal), false).get(siegeId);
+		assertTrue(siege.isFinished());
+		assertEquals(SiegeJournalRecord.SIDE_ATTACKERS, siege.getWinner());
+		assertEquals(250, siege.getFinalSiegeBalance());
+	}
+
+	@Test(expected = IOException.class)
+	public void replayRejectsFileWithoutHeader() throws IOException {
+		Path journal = temporaryFolder.newFile().toPath();
+		Files.write(journal, new byte[] {1, 2, 3, 4});
+
+		SiegeWarJournalReplayer.replay(Collections.singletonList(journal), false);
+	}
+
+	private SiegeJournalRecord record(SiegeJournalEventType type, byte side, int value) {
+		return new SiegeJournalRecord(System.currentTimeMillis(), type, siegeId, side, value);
+	}
+
+	private static SiegeJournalRecord globalRecord(SiegeJournalEventType type) {
+		return new SiegeJournalRecord(System.currentTimeMillis(), type, SiegeJournalRecord.NO_SIEGE, SiegeJournalRecord.SIDE_NOBODY, 0);
+	}
+
+	private static void writeJournal(Path file, SiegeJournalRecord... records) throws IOException {
+		try (DataOutputStream output = new DataOutputStream(Files.newOutputStream(file))) {
+			output.writeInt(SiegeJournalRecord.FILE_HEADER);
+			for (SiegeJournalRecord record : records)
+				record.writeTo(output);
+		}
+	}
+}
@@ -0,0 +1,224 @@
+package com.gmail.goosius.siegewar.utils;
+
+import com.gmail.goosius.siegewar.SiegeController;
+import com.gmail.goosius.siegewar.enums.SiegeSide;
+import com.gmail.goosius.siegewar.enums.SiegeStatus;
+import com.gmail.goosius.siegewar.objects.Siege;
+import com.gmail.goosius.siegewar.settings.SiegeWarSettings;
+import org.bukkit.Location;
+import org.bukkit.World;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * This class runs a synthetic load through the per-tick siege pipeline
+ *
+ * It creates N synthetic sieges and M synthetic participant positions,
+ * which exist only inside the simulation. No towns, players or siege data are created or modified.
+ * It needs a loaded config, so run it inside a SiegeWarTestHarness.
+ *
+ * Each simulated tick runs these stages, each timed in the result rather than in SiegeWarTimingsUtil:
+ * - zone_membership: find the active siege at each position
+ * - banner_control: bucket positions by chunk, then find the positions in each siege's timed point zone
+ * - scoring: award banner control battle points
+ * - hud: render each participant's HUD values to a null sink
+ */
+public class SiegeWarLoadSimulator {
+
+	public static final String ZONE_MEMBERSHIP = "zone_membership";
+	public static final String BANNER_CONTROL = "banner_control";
+	public static final String SCORING = "scoring";
+	public static final String HUD = "hud";
+	private static final long RANDOM_SEED = 1234L;
+
+	/**
+	 * Run the simulation on the calling thread.
+	 *
+	 * @param world the world to place the synthetic sieges and positions in. No chunks are loaded.
+	 * @param numSieges the number of synthetic sieges
+	 * @param numPositions the number of synthetic participant positions
+	 * @param numTicks the number of short ticks to simulate
+	 * @param worldRadiusBlocks sieges are placed within this distance of 0,0
+	 * @return the result
+	 */
+	public static SimulationResult simulate(World world, int numSieges, int numPositions, int numTicks, int worldRadiusBlocks) {
+		Random random = new Random(RANDOM_SEED);
+		List<Siege> sieges = createSyntheticSieges(world, numSieges, worldRadiusBlocks, random);
+		List<Location> positions = createSyntheticPositions(world, sieges, numPositions, worldRadiusBlocks, random);
+
+		Map<String, Long> stageNanos = new LinkedHashMap<>();
+		long hudSink = 0;
+		int positionsInSiegeZones = 0;
+		long startTime = System.nanoTime();
+		for (int tick = 0; tick < numTicks; tick++) {
+			//Zone membership
+			long stageStartTime = System.nanoTime();
+			List<Siege> participantSieges = new ArrayList<>();
+			for (Location position : positions) {
+				Siege siege = SiegeController.getActiveSiegeAtLocation(position, sieges);
+				if (siege != null)
+					participantSieges.add(siege);
+			}
+			positionsInSiegeZones = participantSieges.size();
+			record(stageNanos, ZONE_MEMBERSHIP, stageStartTime);
+
+			//Banner control
+			stageStartTime = System.nanoTime();
+			Map<Long, List<Location>> chunkBuckets = new HashMap<>();
+			for (Location position : positions) {
+				chunkBuckets.computeIfAbsent(
+						SiegeWarDistanceUtil.getChunkKey(position.getBlockX() >> 4, position.getBlockZ() >> 4),
+						k -> new ArrayList<>()).add(position);
+			}
+			int radius = SiegeWarSettings.getWarSiegeBannerControlSessionRadiusBlocks();
+			int[] numBannerControllers = new int[sieges.size()];
+			for (int i = 0; i < sieges.size(); i++) {
+				Location flag = sieges.get(i).getFlagLocation();
+				for (int chunkX = (flag.getBlockX() - radius) >> 4; chunkX <= (flag.getBlockX() + radius) >> 4; chunkX++) {
+					for (int chunkZ = (flag.getBlockZ() - radius) >> 4; chunkZ <= (flag.getBlockZ() + radius) >> 4; chunkZ++) {
+						List<Location> bucket = chunkBuckets.get(SiegeWarDistanceUtil.getChunkKey(chunkX, chunkZ));
+						if (bucket == null)
+							continue;
+						for (Location position : bucket) {
+							if (SiegeWarDistanceUtil.isInTimedPointZone(position, sieges.get(i)))
+								numBannerControllers[i]++;
+						}
+					}
+				}
+			}
+			record(stageNanos, BANNER_CONTROL, stageStartTime);
+
+			//Scoring
+			stageStartTime = System.nanoTime();
+			for (int i = 0; i < sieges.size(); i++) {
+				SiegeWarBannerControlUtil.awardBannerControlBattlePoints(sieges.get(i), numBannerControllers[i]);
+			}
+			record(stageNanos, SCORING, stageStartTime);
+
+			//HUD rendering, to a null sink
+			stageStartTime = System.nanoTime();
+			for (Siege siege : participantSieges) {
+				String hudText = siege.getSiegeBalance()
+						+ siege.getFormattedAttackerBattlePoints()
+						+ siege.getFormattedDefenderBattlePoints()
+						+ siege.getNumBattleSessionsCompleted() + "/" + SiegeWarSettings.getSiegeDurationBattleSessions()
+						+ siege.getStatus().getName()
+						+ siege.getBannerControllingSide().name();
+				hudSink += hudText.length();
+			}
+			record(stageNanos, HUD, stageStartTime);
+		}
+		long elapsedNanos = System.nanoTime() - startTime;
+		return new SimulationResult(numSieges, numPositions, numTicks, positionsInSiegeZones, elapsedNanos, stageNanos, hudSink);
+	}
+
+	private static void record(Map<String, Long> stageNanos, String stage, long startNanos) {
+		stageNanos.merge(stage, System.nanoTime() - startNanos, Long::sum);
+	}
+
+	private static List<Siege> createSyntheticSieges(World world, int numSieges, int worldRadiusBlocks, Random random) {
+		List<Siege> sieges = new ArrayList<>();
+		for (int i = 0; i < numSieges; i++) {
+			Location flagLocation = new Location(world, randomCoord(worldRadiusBlocks, random), 64, randomCoord(worldRadiusBlocks, random));
+			SiegeSide bannerControllingSide = random.nextBoolean() ? SiegeSide.ATTACKERS : SiegeSide.DEFENDERS;
+			sieges.add(new Siege(SiegeStatus.IN_PROGRESS, flagLocation, bannerControllingSide));
+		}
+		return sieges;
+	}
+
+	/*
+	 * Half of the positions are placed in siege zones, and half are scattered across the world.
+	 */
+	private static List<Location> createSyntheticPositions(World world, List<Siege> sieges, int numPositions, int worldRadiusBlocks, Random random) {
+		List<Location> positions = new ArrayList<>();
+		int zoneRadius = SiegeWarSettings.getWarSiegeZoneRadiusBlocks();
+		for (int i = 0; i < numPositions; i++) {
+			if (!sieges.isEmpty() && i % 2 == 0) {
+				Location flag = sieges.get(random.nextInt(sieges.size())).getFlagLocation();
+				positions.add(flag.clone().add(randomCoord(zoneRadius, random), 0, randomCoord(zoneRadius, random)));
+			} else {
+				positions.add(new Location(world, randomCoord(worldRadiusBlocks, random), 64, randomCoord(worldRadiusBlocks, random)));
+			}
+		}
+		return positions;
+	}
+
+	private static int randomCoord(int radius, Random random) {
+		return random.nextInt(radius * 2 + 1) - radius;
+	}
+
+	public static class SimulationResult {
+		private final int numSieges;
+		private final int numPositions;
+		private final int numTicks;
+		private final int positionsInSiegeZones;
+		private final long elapsedNanos;
+		private final Map<String, Long> stageNanos;
+		private final long hudSink;
+
+		private SimulationResult(int numSieges, int numPositions, int numTicks, int positionsInSiegeZones, long elapsedNanos, Map<String, Long> stageNanos, long hudSink) {
+			this.numSieges = numSieges;
+			this.numPositions = numPositions;
+			this.numTicks = numTicks;
+			this.positionsInSiegeZones = positionsInSiegeZones;
+			this.elapsedNanos = elapsedNanos;
+			this.stageNanos = Collections.unmodifiableMap(stageNanos);
+			this.hudSink = hudSink;
+		}
+
+		public int getNumSieges() {
+			return numSieges;
+		}
+
+		public int getNumPositions() {
+			return numPositions;
+		}
+
+		public int getNumTicks() {
+			return numTicks;
+		}
+
+		public int getPositionsInSiegeZones() {
+			return positionsInSiegeZones;
+		}
+
+		public double getMillisPerTick() {
+			return numTicks == 0 ? 0 : elapsedNanos / 1_000_000.0 / numTicks;
+		}
+
+		public double getPositionsPerSecond() {
+			return elapsedNanos == 0 ? 0 : (double) numPositions * numTicks / (elapsedNanos / 1_000_000_000.0);
+		}
+
+		/**
+		 * @return the total nanos spent in each stage, in stage order
+		 */
+		public Map<String, Long> getStageNanos() {
+			return stageNanos;
+		}
+
+		/**
+		 * @return the total length of the rendered HUD text. Returned so the rendering cannot be optimised away.
+		 */
+		public long getHudSink() {
+			return hudSink;
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder builder = new StringBuilder(String.format(Locale.ROOT,
+					"%d sieges, %d positions, %d ticks: %.3f ms per tick, %.0f positions per second, %d positions in siege zones",
+					numSieges, numPositions, numTicks, getMillisPerTick(), getPositionsPerSecond(), positionsInSiegeZones));
+			for (Map.Entry<String, Long> stage : stageNanos.entrySet())
+				builder.append(String.format(Locale.ROOT, ", %s=%.3f ms per tick", stage.getKey(), numTicks == 0 ? 0 : stage.getValue() / 1_000_000.0 / numTicks));
+			return builder.toString();
+		}
+	}
+}
@@ -0,0 +1,58 @@
+package com.gmail.goosius.siegewar.utils;
+
+import com.gmail.goosius.siegewar.SiegeController;
+import com.gmail.goosius.siegewar.harness.SiegeWarTestHarness;
+import com.gmail.goosius.siegewar.utils.SiegeWarLoadSimulator.SimulationResult;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/*
+ * The sizes are small by default so the normal build stays fast.
+ * For a real load run, pass them as system properties, e.g.
+ * mvn test -Dtest=SiegeWarLoadSimulatorTest -Dsiegewar.simulation.sieges=1000 -Dsiegewar.simulation.positions=100000
+ */
+public class SiegeWarLoadSimulatorTest {
+
+	private static final int NUM_SIEGES = Integer.getInteger("siegewar.simulation.sieges", 50);
+	private static final int NUM_POSITIONS = Integer.getInteger("siegewar.simulation.positions", 2000);
+	private static final int NUM_TICKS = Integer.getInteger("siegewar.simulation.ticks", 10);
+	private static final int WORLD_RADIUS_BLOCKS = Integer.getInteger("siegewar.simulation.worldradius", 10000);
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private SiegeWarTestHarness harness;
+
+	@Before
+	public void startServer() throws Exception {
+		harness = new SiegeWarTestHarness(temporaryFolder.newFolder().toPath());
+		SiegeWarTimingsUtil.resetTimings();
+	}
+
+	@After
+	public void stopServer() throws Exception {
+		harness.close();
+	}
+
+	@Test
+	public void simulationRunsEveryStageWithoutTouchingLiveData() {
+		SimulationResult result = SiegeWarLoadSimulator.simulate(harness.getWorld().getWorld(), NUM_SIEGES, NUM_POSITIONS, NUM_TICKS, WORLD_RADIUS_BLOCKS);
+		System.out.println("SiegeWarLoadSimulator: " + result);
+
+		assertEquals(NUM_TICKS, result.getNumTicks());
+		assertTrue("Some positions should be inside siege zones", result.getPositionsInSiegeZones() > 0);
+		assertTrue(result.getPositionsInSiegeZones() <= NUM_POSITIONS);
+		assertTrue(result.getHudSink() > 0);
+		for (String stage : new String[] {SiegeWarLoadSimulator.ZONE_MEMBERSHIP, SiegeWarLoadSimulator.BANNER_CONTROL, SiegeWarLoadSimulator.SCORING, SiegeWarLoadSimulator.HUD})
+			assertTrue(stage, result.getStageNanos().containsKey(stage));
+
+		assertTrue("Synthetic sieges must not be added to the live sieges", SiegeController.getSieges().isEmpty());
+		assertTrue("Simulation samples must not reach /swa perf", SiegeWarTimingsUtil.getStageSummaries().isEmpty());
+	}
+}
@@ -0,0 +1,138 @@
+package com.gmail.goosius.siegewar.utils;
+
+import com.gmail.goosius.siegewar.SiegeWarAPI;
+import com.gmail.goosius.siegewar.enums.SiegeSide;
+import com.gmail.goosius.siegewar.objects.SiegeWorldView;
+import com.gmail.goosius.siegewar.objects.SiegeWorldView.SiegeSnapshot;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class SiegeWarSnapshotUtilTest {
+
+	private static final int NUM_READERS = 4;
+	private static final int NUM_PUBLISHES = 20_000;
+	private static final int MAX_SIEGES_PER_VIEW = 50;
+
+	@After
+	public void publishEmptyView() {
+		SiegeWarSnapshotUtil.publish(SiegeWorldView.EMPTY);
+	}
+
+	/*
+	 * One thread keeps publishing views while several threads read SiegeWarAPI.snapshot().
+	 * Every view is built so that it can check itself:
+	 * generation g has 1 + g % MAX_SIEGES_PER_VIEW sieges, and every siege carries g as its attacker battle points.
+	 * A reader which saw a view while it was still being filled in would find a mismatch.
+	 */
+	@Test
+	public void readersOnlySeeCompleteViewsWhilePublishing() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(NUM_READERS + 1);
+		AtomicBoolean publishing = new AtomicBoolean(true);
+		try {
+			List<Future<Integer>> readers = new ArrayList<>();
+			for (int i = 0; i < NUM_READERS; i++) {
+				readers.add(executor.submit(() -> {
+					int numViewsChecked = 0;
+					long lastGeneration = 0;
+					//Read at least once after publishing stops, so that every reader checks the final view
+					boolean lastRead;
+					do {
+						lastRead = !publishing.get();
+						SiegeWorldView view = SiegeWarAPI.snapshot();
+						if (view == SiegeWorldView.EMPTY)
+							continue;
+						long generation = checkView(view);
+						assertTrue("Views must never go backwards", generation >= lastGeneration);
+						lastGeneration = generation;
+						numViewsChecked++;
+					} while (!lastRead);
+					return numViewsChecked;
+				}));
+			}
+
+			Future<?> publisher = executor.submit(() -> {
+				try {
+					for (int generation = 1; generation <= NUM_PUBLISHES; generation++)
+						SiegeWarSnapshotUtil.publish(buildView(generation));
+				} finally {
+					publishing.set(false);
+				}
+			});
+
+			publisher.get(1, TimeUnit.MINUTES);
+			int numViewsChecked = 0;
+			for (Future<Integer> reader : readers)
+				numViewsChecked += getOrRethrow(reader);
+			assertTrue("Readers must have seen published views", numViewsChecked >= NUM_READERS);
+		} finally {
+			publishing.set(false);
+			executor.shutdownNow();
+		}
+	}
+
+	private static SiegeWorldView buildView(int generation) {
+		int numSieges = 1 + generation % MAX_SIEGES_PER_VIEW;
+		List<SiegeSnapshot> sieges = new ArrayList<>();
+		Map<UUID, UUID> residentTowns = new HashMap<>();
+		for (int i = 0; i < numSieges; i++) {
+			UUID townUUID = new UUID(generation, i);
+			//Enums which load Towny translations are left null. The test only checks the shape of the view.
+			sieges.add(new SiegeSnapshot(townUUID, "town" + i, null, null,
+					UUID.randomUUID(), "attacker", UUID.randomUUID(), "defender",
+					0, generation, numSieges, SiegeSide.NOBODY,
+					"world", i, 64, i));
+			residentTowns.put(getResidentUUID(townUUID), townUUID);
+		}
+		return new SiegeWorldView(generation, false, sieges, residentTowns);
+	}
+
+	/*
+	 * Iterates every collection of the view, so a concurrent modification would throw here.
+	 */
+	private static long checkView(SiegeWorldView view) {
+		long generation = view.getPublishedAtMillis();
+		int numSieges = (int) (1 + generation % MAX_SIEGES_PER_VIEW);
+		assertEquals(numSieges, view.getSieges().size());
+		assertEquals(numSieges, view.getNamesOfSiegedTowns().size());
+		for (SiegeSnapshot siege : view.getSieges()) {
+			assertEquals(generation, siege.getAttackerBattlePoints());
+			assertEquals(numSieges, siege.getDefenderBattlePoints());
+			assertSame(siege, view.getSiegeOfTown(siege.getTownUUID()));
+			assertSame(siege, view.getSiegeOfResident(getResidentUUID(siege.getTownUUID())));
+			assertTrue(view.getNamesOfSiegedTowns().contains(siege.getTownName()));
+		}
+		for (String townName : view.getNamesOfSiegedTowns())
+			assertTrue(townName.startsWith("town"));
+		return generation;
+	}
+
+	private static UUID getResidentUUID(UUID townUUID) {
+		return new UUID(townUUID.getMostSignificantBits(), ~townUUID.getLeastSignificantBits());
+	}
+
+	private static int getOrRethrow(Future<Integer> reader) throws Exception {
+		try {
+			return reader.get(1, TimeUnit.MINUTES);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof Error)
+				throw (Error) e.getCause();
+			throw (Exception) e.getCause();
+		}
+	}
+}
@@ -0,0 +1,86 @@
+package com.gmail.goosius.siegewar.utils;
+
+import com.gmail.goosius.siegewar.utils.SiegeWarTimingsUtil.StageSummary;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SiegeWarTimingsUtilTest {
+
+	private static final String STAGE = "test.stage";
+
+	@After
+	public void resetTimings() {
+		SiegeWarTimingsUtil.resetTimings();
+	}
+
+	/*
+	 * Each sample is recorded as starting a whole number of seconds ago,
+	 * so its duration in whole seconds is known despite the time taken to record it.
+	 */
+	@Test
+	public void percentilesAreTakenFromSortedSamples() {
+		for (int seconds = 100; seconds >= 1; seconds--)
+			recordSecondsAgo(seconds);
+
+		StageSummary summary = getOnlySummary();
+		assertEquals(STAGE, summary.getStage());
+		assertEquals(100, summary.getCount());
+		assertEquals(50, TimeUnit.NANOSECONDS.toSeconds(summary.getP50Nanos()));
+		assertEquals(95, TimeUnit.NANOSECONDS.toSeconds(summary.getP95Nanos()));
+		assertEquals(100, TimeUnit.NANOSECONDS.toSeconds(summary.getMaxNanos()));
+		assertTrue(summary.getTotalNanos() >= TimeUnit.SECONDS.toNanos(5050));
+	}
+
+	@Test
+	public void singleSampleIsEveryPercentile() {
+		recordSecondsAgo(7);
+
+		StageSummary summary = getOnlySummary();
+		assertEquals(1, summary.getCount());
+		assertEquals(summary.getMaxNanos(), summary.getP50Nanos());
+		assertEquals(summary.getMaxNanos(), summary.getP95Nanos());
+	}
+
+	/*
+	 * Percentiles only cover the most recent samples, while the count covers every call.
+	 */
+	@Test
+	public void oldSamplesLeaveTheWindow() {
+		for (int i = 0; i < 1000; i++)
+			recordSecondsAgo(1000);
+		for (int i = 0; i < 1000; i++)
+			recordSecondsAgo(1);
+
+		StageSummary summary = getOnlySummary();
+		assertEquals(2000, summary.getCount());
+		assertEquals(1, TimeUnit.NANOSECONDS.toSeconds(summary.getMaxNanos()));
+	}
+
+	@Test
+	public void timeRecordsEvenWhenTaskThrows() {
+		try {
+			SiegeWarTimingsUtil.time(STAGE, () -> {
+				throw new IllegalStateException();
+			});
+		} catch (IllegalStateException ignored) {
+		}
+
+		assertEquals(1, getOnlySummary().getCount());
+	}
+
+	private static void recordSecondsAgo(int seconds) {
+		SiegeWarTimingsUtil.record(STAGE, System.nanoTime() - TimeUnit.SECONDS.toNanos(seconds));
+	}
+
+	private static StageSummary getOnlySummary() {
+		List<StageSummary> summaries = SiegeWarTimingsUtil.getStageSummaries();
+		assertEquals(1, summaries.size());
+		return summaries.get(0);
+	}
+}
@@ -0,0 +1,65 @@
+package com.gmail.goosius.siegewar.utils;
+
+import com.gmail.goosius.siegewar.utils.SiegeWarTownPeacefulnessUtil.TownPeacefulnessChange;
+import com.gmail.goosius.siegewar.utils.SiegeWarTownPeacefulnessUtil.TownPeacefulnessOutcome;
+import com.gmail.goosius.siegewar.utils.SiegeWarTownPeacefulnessUtil.TownPeacefulnessSnapshot;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+
+public class SiegeWarTownPeacefulnessUtilTest {
+
+	/*
+	 * Every combination of peacefulness, capital status and countdown must give the same outcome
+	 * as the old sequential per-town update, which changed each town in turn on the new day.
+	 */
+	@Test
+	public void calculatedChangesMatchSequentialUpdate() {
+		for (boolean capitalsAllowedPeacefulness : new boolean[] {true, false}) {
+			List<TownPeacefulnessSnapshot> snapshots = new ArrayList<>();
+			List<boolean[]> peacefulAndCapital = new ArrayList<>();
+			List<Integer> countdowns = new ArrayList<>();
+			for (boolean peaceful : new boolean[] {true, false})
+				for (boolean capital : new boolean[] {true, false})
+					for (int countdownDays = 0; countdownDays <= 3; countdownDays++) {
+						snapshots.add(new TownPeacefulnessSnapshot(UUID.randomUUID(), peaceful, capital, countdownDays));
+						peacefulAndCapital.add(new boolean[] {peaceful, capital});
+						countdowns.add(countdownDays);
+					}
+
+			List<TownPeacefulnessChange> changes = SiegeWarTownPeacefulnessUtil.calculateTownPeacefulnessChanges(snapshots, capitalsAllowedPeacefulness);
+
+			assertEquals(snapshots.size(), changes.size());
+			for (int i = 0; i < snapshots.size(); i++) {
+				TownPeacefulnessChange change = changes.get(i);
+				assertEquals(snapshots.get(i).getTownUUID(), change.getTownUUID());
+				assertSequentialOutcome(peacefulAndCapital.get(i)[0], peacefulAndCapital.get(i)[1], countdowns.get(i), capitalsAllowedPeacefulness, change);
+			}
+		}
+	}
+
+	@Test
+	public void noSnapshotsGiveNoChanges() {
+		assertEquals(0, SiegeWarTownPeacefulnessUtil.calculateTownPeacefulnessChanges(new ArrayList<>(), false).size());
+	}
+
+	/*
+	 * The rules of the old SiegeWarTownPeacefulnessUtil.updateTownPeacefulnessCounters(Town).
+	 */
+	private static void assertSequentialOutcome(boolean peaceful, boolean capital, int days, boolean capitalsAllowedPeacefulness, TownPeacefulnessChange change) {
+		if (days > 1) {
+			assertEquals(TownPeacefulnessOutcome.COUNTDOWN_DECREMENTED, change.getOutcome());
+			assertEquals(days - 1, change.getNewCountdownDays());
+		} else if (!capitalsAllowedPeacefulness && capital && !peaceful) {
+			assertEquals(TownPeacefulnessOutcome.BLOCKED_BECAUSE_CAPITAL, change.getOutcome());
+			assertEquals(0, change.getNewCountdownDays());
+		} else {
+			assertEquals(peaceful ? TownPeacefulnessOutcome.BECAME_NON_PEACEFUL : TownPeacefulnessOutcome.BECAME_PEACEFUL, change.getOutcome());
+			assertEquals(0, change.getNewCountdownDays());
+		}
+	}
+}